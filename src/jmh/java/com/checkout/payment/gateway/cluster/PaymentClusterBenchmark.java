@@ -0,0 +1,138 @@
+package com.checkout.payment.gateway.cluster;
+
+import com.checkout.payment.gateway.PaymentGatewayApplication;
+import com.checkout.payment.gateway.enums.Currency;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.Payment;
+import com.checkout.payment.gateway.repository.PaymentsRepository;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * GET throughput of a partitioned cluster of {@code nodes} gateway instances on localhost ports, each sent an equal share of the
+ * requests for payments spread over all of them, so that most reads are forwarded to another node.
+ *
+ * <p>Every instance is capped at {@link #THREADS_PER_NODE} request threads, standing in for the capacity of one machine. A single
+ * node then saturates well below what the host can do, and throughput should grow almost linearly with the node count until the
+ * host's cores run out. Run {@link #main} to drive each cluster size with half as many client threads as the cluster has request
+ * threads: a forwarded read holds a request thread on both nodes, so the other half is left to serve them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentClusterBenchmark {
+
+  static final int THREADS_PER_NODE = 8;
+
+  private static final int PAYMENTS = 10_000;
+
+  @Param({"1", "2", "4"})
+  public int nodes;
+
+  private final List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+
+  private final List<String> urls = new ArrayList<>();
+
+  private UUID[] paymentIds;
+
+  private HttpClient httpClient;
+
+  @Setup
+  public void startCluster() throws IOException {
+    for (int i = 0; i < nodes; i++) {
+      try (ServerSocket socket = new ServerSocket(0)) {
+        urls.add("http://localhost:" + socket.getLocalPort());
+      }
+    }
+    for (String url : urls) {
+      contexts.add(new SpringApplicationBuilder(PaymentGatewayApplication.class)
+          .properties(
+              "server.port=" + URI.create(url).getPort(),
+              "server.tomcat.threads.max=" + THREADS_PER_NODE,
+              "server.tomcat.threads.min-spare=" + THREADS_PER_NODE,
+              "logging.level.root=WARN",
+              "payments.cluster.enabled=" + (nodes > 1),
+              "payments.cluster.nodes=" + String.join(",", urls),
+              "payments.cluster.self=" + url)
+          .run());
+    }
+
+    // Stored through the first node, which forwards each payment to its owner
+    PaymentsRepository repository = contexts.get(0).getBean(PaymentsRepository.class);
+    paymentIds = new UUID[PAYMENTS];
+    for (int i = 0; i < PAYMENTS; i++) {
+      Payment payment = new Payment();
+      payment.setId(UUID.randomUUID());
+      payment.setStatus(PaymentStatus.AUTHORIZED);
+      payment.setCardNumberLastFour(8877);
+      payment.setExpiryMonth(12);
+      payment.setExpiryYear(2030);
+      payment.setCurrency(Currency.GBP);
+      payment.setAmount(100);
+      repository.add(payment).join();
+      paymentIds[i] = payment.getId();
+    }
+
+    httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+  }
+
+  @TearDown
+  public void stopCluster() {
+    contexts.forEach(ConfigurableApplicationContext::close);
+  }
+
+  @Benchmark
+  public int getPayment() throws Exception {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    String url = urls.get(random.nextInt(urls.size()));
+    HttpRequest request = HttpRequest.newBuilder(URI.create(url + "/api/v1/payments/" + paymentIds[random.nextInt(PAYMENTS)]))
+        .GET()
+        .build();
+    HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    if (response.statusCode() != 200) {
+      throw new IllegalStateException("GET answered " + response.statusCode());
+    }
+    return response.body().length;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    for (int nodes : new int[]{1, 2, 4}) {
+      Options options = new OptionsBuilder()
+          .include(PaymentClusterBenchmark.class.getSimpleName())
+          .param("nodes", String.valueOf(nodes))
+          .threads(THREADS_PER_NODE / 2 * nodes)
+          .build();
+      new Runner(options).run();
+    }
+  }
+}
@@ -0,0 +1,145 @@
+package com.checkout.payment.gateway.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+import com.checkout.payment.gateway.PaymentGatewayApplication;
+import com.checkout.payment.gateway.client.AcquiringBankCircuitBreaker;
+import com.checkout.payment.gateway.client.AcquiringBankClient;
+import com.checkout.payment.gateway.client.AcquiringBankConcurrencyLimiter;
+import com.checkout.payment.gateway.dto.AcquiringBankRequestDTO;
+import com.checkout.payment.gateway.dto.AcquiringBankResponseDTO;
+import com.checkout.payment.gateway.enums.Currency;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.Payment;
+import com.checkout.payment.gateway.repository.PaymentsRepository;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+/**
+ * A whole request through the application context, from MVC dispatch and JSON binding to the response body, with the acquiring
+ * bank answering instantly so that only gateway code is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentGatewayRequestBenchmark {
+
+  private static final String REQUEST_BODY = """
+      {"cardNumber":"2222405343248877","cvv":"123","expiryMonth":12,"expiryYear":2030,"currency":"GBP","amount":100}
+      """;
+
+  private ConfigurableApplicationContext context;
+
+  private MockMvc mockMvc;
+
+  private UUID storedPaymentId;
+
+  // Nine unknown ids for every stored one, like a scanner probing random ids
+  private UUID[] missHeavyIds;
+
+  private int nextId;
+
+  @Setup
+  public void startApplication() {
+    context = new SpringApplicationBuilder(PaymentGatewayApplication.class)
+        .properties("server.port=0", "logging.level.root=WARN")
+        .initializers(applicationContext -> ((GenericApplicationContext) applicationContext).registerBean(
+            "instantAcquiringBankClient", AcquiringBankClient.class,
+            () -> new InstantAcquiringBankClient(applicationContext.getBean(AcquiringBankConcurrencyLimiter.class),
+                applicationContext.getBean(AcquiringBankCircuitBreaker.class)),
+            definition -> definition.setPrimary(true)))
+        .run();
+    mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+
+    Payment payment = new Payment();
+    payment.setId(UUID.randomUUID());
+    payment.setStatus(PaymentStatus.AUTHORIZED);
+    payment.setCardNumberLastFour(8877);
+    payment.setExpiryMonth(12);
+    payment.setExpiryYear(2030);
+    payment.setCurrency(Currency.GBP);
+    payment.setAmount(100);
+    context.getBean(PaymentsRepository.class).add(payment);
+    storedPaymentId = payment.getId();
+
+    missHeavyIds = new UUID[1024];
+    for (int i = 0; i < missHeavyIds.length; i++) {
+      missHeavyIds[i] = i % 10 == 0 ? storedPaymentId : UUID.randomUUID();
+    }
+  }
+
+  @TearDown
+  public void stopApplication() {
+    context.close();
+  }
+
+  @Benchmark
+  public byte[] postPayment() throws Exception {
+    MvcResult started = mockMvc.perform(post("/api/v1/payments")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(REQUEST_BODY))
+        .andReturn();
+    started.getAsyncResult();
+    return mockMvc.perform(asyncDispatch(started)).andReturn().getResponse().getContentAsByteArray();
+  }
+
+  @Benchmark
+  public byte[] getPayment() throws Exception {
+    return mockMvc.perform(get("/api/v1/payments/{id}", storedPaymentId)).andReturn().getResponse().getContentAsByteArray();
+  }
+
+  /**
+   * GET traffic where nine lookups in ten miss, reported as requests per second.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  public byte[] getPaymentMissHeavy() throws Exception {
+    UUID id = missHeavyIds[nextId++ & (missHeavyIds.length - 1)];
+    return mockMvc.perform(get("/api/v1/payments/{id}", id)).andReturn().getResponse().getContentAsByteArray();
+  }
+
+  private static final class InstantAcquiringBankClient extends AcquiringBankClient {
+
+    private static final AcquiringBankResponseDTO AUTHORIZED = new AcquiringBankResponseDTO();
+
+    static {
+      AUTHORIZED.setAuthorized(true);
+    }
+
+    InstantAcquiringBankClient(AcquiringBankConcurrencyLimiter concurrencyLimiter, AcquiringBankCircuitBreaker circuitBreaker) {
+      super("http://localhost", WebClient.create(), concurrencyLimiter, circuitBreaker);
+    }
+
+    @Override
+    protected Mono<AcquiringBankResponseDTO> exchange(AcquiringBankRequestDTO requestDTO) {
+      return Mono.just(AUTHORIZED);
+    }
+  }
+}
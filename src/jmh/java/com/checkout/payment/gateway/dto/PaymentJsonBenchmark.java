@@ -0,0 +1,63 @@
+package com.checkout.payment.gateway.dto;
+
+import com.checkout.payment.gateway.enums.Currency;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Jackson cost of reading a {@link PostPaymentRequestDTO} body and writing a {@link PostPaymentResponseDTO}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaymentJsonBenchmark {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private byte[] requestBody;
+
+  private PostPaymentResponseDTO response;
+
+  @Setup
+  public void createPayloads() {
+    requestBody = """
+        {"cardNumber":"2222405343248877","cvv":"123","expiryMonth":12,"expiryYear":2030,"currency":"GBP","amount":100}
+        """.getBytes(StandardCharsets.UTF_8);
+
+    response = new PostPaymentResponseDTO();
+    response.setId(UUID.randomUUID());
+    response.setStatus(PaymentStatus.AUTHORIZED);
+    response.setCardNumberLastFour(8877);
+    response.setExpiryMonth(12);
+    response.setExpiryYear(2030);
+    response.setCurrency(Currency.GBP);
+    response.setAmount(100);
+  }
+
+  @Benchmark
+  public PostPaymentRequestDTO readRequest() throws IOException {
+    return objectMapper.readValue(requestBody, PostPaymentRequestDTO.class);
+  }
+
+  @Benchmark
+  public byte[] writeResponse() throws IOException {
+    return objectMapper.writeValueAsBytes(response);
+  }
+}
@@ -0,0 +1,93 @@
+package com.checkout.payment.gateway.dto;
+
+import com.checkout.payment.gateway.validation.PaymentRequestValidator;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Validation of {@link PostPaymentRequestDTO} for a valid request and for one that breaks every constraint, through Bean Validation
+ * annotations and through the hand-written {@link PaymentRequestValidator} used on the request path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PostPaymentRequestValidationBenchmark {
+
+  private ValidatorFactory validatorFactory;
+
+  private Validator validator;
+
+  private PaymentRequestValidator paymentRequestValidator;
+
+  private PostPaymentRequestDTO valid;
+
+  private PostPaymentRequestDTO invalid;
+
+  @Setup
+  public void createValidator() {
+    validatorFactory = Validation.buildDefaultValidatorFactory();
+    validator = validatorFactory.getValidator();
+    paymentRequestValidator = new PaymentRequestValidator(Duration.ofSeconds(1));
+
+    valid = new PostPaymentRequestDTO();
+    valid.setCardNumber("2222405343248877");
+    valid.setCvv("123");
+    valid.setExpiryMonth(12);
+    valid.setExpiryYear(2030);
+    valid.setCurrency("GBP");
+    valid.setAmount(100);
+
+    invalid = new PostPaymentRequestDTO();
+    invalid.setCardNumber("1234");
+    invalid.setCvv("12");
+    invalid.setExpiryMonth(13);
+    invalid.setExpiryYear(2020);
+    invalid.setCurrency("JPY");
+    invalid.setAmount(0);
+  }
+
+  @TearDown
+  public void closeValidator() {
+    validatorFactory.close();
+    paymentRequestValidator.close();
+  }
+
+  @Benchmark
+  public Set<ConstraintViolation<PostPaymentRequestDTO>> validateValid() {
+    return validator.validate(valid);
+  }
+
+  @Benchmark
+  public Set<ConstraintViolation<PostPaymentRequestDTO>> validateInvalid() {
+    return validator.validate(invalid);
+  }
+
+  @Benchmark
+  public String[] handWrittenValidateValid() {
+    return paymentRequestValidator.validate(valid);
+  }
+
+  @Benchmark
+  public String[] handWrittenValidateInvalid() {
+    return paymentRequestValidator.validate(invalid);
+  }
+}
@@ -0,0 +1,65 @@
+package com.checkout.payment.gateway.dto.mappers;
+
+import com.checkout.payment.gateway.dto.PostPaymentRequestDTO;
+import com.checkout.payment.gateway.dto.PostPaymentResponseDTO;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.CreditCard;
+import com.checkout.payment.gateway.model.Payment;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of the MapStruct mappings on the request path: request to payment and card, and payment to response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaymentMapperBenchmark {
+
+  private PostPaymentRequestDTO request;
+
+  private Payment payment;
+
+  @Setup
+  public void createPayment() {
+    request = new PostPaymentRequestDTO();
+    request.setCardNumber("2222405343248877");
+    request.setCvv("123");
+    request.setExpiryMonth(12);
+    request.setExpiryYear(2030);
+    request.setCurrency("GBP");
+    request.setAmount(100);
+
+    payment = PaymentMapper.INSTANCE.toPayment(request);
+    payment.setId(UUID.randomUUID());
+    payment.setStatus(PaymentStatus.AUTHORIZED);
+  }
+
+  @Benchmark
+  public Payment toPayment() {
+    return PaymentMapper.INSTANCE.toPayment(request);
+  }
+
+  @Benchmark
+  public CreditCard toCreditCard() {
+    return CreditCardMapper.INSTANCE.toCreditCard(request);
+  }
+
+  @Benchmark
+  public PostPaymentResponseDTO toPostPaymentResponseDto() {
+    return PaymentMapper.INSTANCE.toPostPaymentResponseDto(payment);
+  }
+}
@@ -0,0 +1,97 @@
+package com.checkout.payment.gateway.exception;
+
+import com.checkout.payment.gateway.model.ErrorResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Cost of failing a request with a 404 or a 400, from the throw to the serialized body. The {@code perRequest} benchmarks do what
+ * the handlers used to do, a new exception with a stack trace and a new body serialized per request, and the others go through
+ * {@link CommonExceptionHandler} as it is now. The exception is thrown {@code stackDepth} frames down, since a servlet request
+ * puts around a hundred frames under the controller.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ErrorResponseBenchmark {
+
+  private static final String[] VALIDATION_ERRORS = {"CVV must be 3 or 4 digits", "Amount must be greater than zero"};
+
+  @Param({"10", "100"})
+  public int stackDepth;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private final CommonExceptionHandler handler = new CommonExceptionHandler(objectMapper, 1024);
+
+  @Benchmark
+  public ResponseEntity<Object> notFoundPerRequest() throws IOException {
+    try {
+      throwAt(stackDepth, () -> new RuntimeException("Payment not found"));
+      throw new AssertionError();
+    } catch (RuntimeException ex) {
+      return serialize(new ErrorResponse(HttpStatus.NOT_FOUND, new String[]{ex.getMessage()}));
+    }
+  }
+
+  @Benchmark
+  public ResponseEntity<Object> notFound() {
+    try {
+      throwAt(stackDepth, () -> PaymentNotFoundException.INSTANCE);
+      throw new AssertionError();
+    } catch (PaymentNotFoundException ex) {
+      return handler.handlePaymentNotFoundException(ex);
+    }
+  }
+
+  @Benchmark
+  public ResponseEntity<Object> invalidPaymentPerRequest() throws IOException {
+    try {
+      throwAt(stackDepth, () -> new RuntimeException("Invalid payment"));
+      throw new AssertionError();
+    } catch (RuntimeException ex) {
+      return serialize(new ErrorResponse(HttpStatus.BAD_REQUEST, VALIDATION_ERRORS.clone()));
+    }
+  }
+
+  @Benchmark
+  public ResponseEntity<Object> invalidPayment() {
+    try {
+      throwAt(stackDepth, () -> new InvalidPaymentException("Invalid payment", VALIDATION_ERRORS.clone()));
+      throw new AssertionError();
+    } catch (InvalidPaymentException ex) {
+      return handler.handleInvalidPayment(ex);
+    }
+  }
+
+  private ResponseEntity<Object> serialize(ErrorResponse errorResponse) throws IOException {
+    return ResponseEntity.status(errorResponse.status())
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(objectMapper.writeValueAsBytes(errorResponse));
+  }
+
+  private static void throwAt(int depth, Supplier<RuntimeException> exception) {
+    if (depth == 0) {
+      throw exception.get();
+    }
+    throwAt(depth - 1, exception);
+  }
+}
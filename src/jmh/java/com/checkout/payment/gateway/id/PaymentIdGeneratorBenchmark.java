@@ -0,0 +1,62 @@
+package com.checkout.payment.gateway.id;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Id generation throughput of each {@link PaymentIdGenerator} under contention.
+ *
+ * <p>Run {@link #main} to sweep the thread count from 1 to 64 and compare how {@code randomUUID()} and the time-ordered generator
+ * scale.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentIdGeneratorBenchmark {
+
+  private static final int MAX_THREADS = 64;
+
+  @Param({"random", "time-ordered"})
+  private String generator;
+
+  private PaymentIdGenerator paymentIdGenerator;
+
+  @Setup(Level.Trial)
+  public void createGenerator() {
+    paymentIdGenerator = generator.equals("random") ? new RandomPaymentIdGenerator() : new TimeOrderedPaymentIdGenerator();
+  }
+
+  @Benchmark
+  public UUID nextId() {
+    return paymentIdGenerator.nextId();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    for (int threads = 1; threads <= MAX_THREADS; threads *= 2) {
+      Options options = new OptionsBuilder()
+          .include(PaymentIdGeneratorBenchmark.class.getSimpleName())
+          .threads(threads)
+          .build();
+      new Runner(options).run();
+    }
+  }
+}
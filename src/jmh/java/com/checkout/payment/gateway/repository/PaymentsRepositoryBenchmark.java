@@ -0,0 +1,114 @@
+package com.checkout.payment.gateway.repository;
+
+import com.checkout.payment.gateway.enums.Currency;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.Payment;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Read and write throughput of {@link PaymentsRepository} under contention, for each {@link PaymentStore} backend.
+ * {@code read} looks up stored and never-stored ids in equal measure, and {@code readUnknown} only ids that were never stored,
+ * which the id filter answers without reading the store.
+ *
+ * <p>Run {@link #main} to sweep the thread count from 1 up to the number of available cores and see how throughput scales.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentsRepositoryBenchmark {
+
+  private static final int KEY_SPACE = 1 << 20;
+
+  @Param({"heap", "off-heap"})
+  private String store;
+
+  private Payment[] payments;
+
+  private PaymentsRepository repository;
+
+  @Setup(Level.Trial)
+  public void createPayments() {
+    payments = new Payment[KEY_SPACE];
+    for (int i = 0; i < KEY_SPACE; i++) {
+      Payment payment = new Payment();
+      payment.setId(UUID.randomUUID());
+      payment.setStatus(PaymentStatus.AUTHORIZED);
+      payment.setCardNumberLastFour(4321);
+      payment.setExpiryMonth(12);
+      payment.setExpiryYear(2030);
+      payment.setCurrency(Currency.USD);
+      payment.setAmount(100);
+      payments[i] = payment;
+    }
+  }
+
+  @Setup(Level.Iteration)
+  public void fillRepository() {
+    PaymentStore paymentStore = store.equals("heap") ? new HeapPaymentStore(KEY_SPACE) : new OffHeapPaymentStore(KEY_SPACE);
+    repository = new PaymentsRepository(paymentStore, Optional.empty(), 0, Duration.ZERO, new PaymentAggregates(Duration.ofHours(1)),
+        new PaymentIdFilter(1_000_000, 0.01), Optional.empty(), Optional.empty(), Optional.empty());
+    for (int i = 0; i < KEY_SPACE / 2; i++) {
+      repository.add(payments[i]);
+    }
+  }
+
+  @Benchmark
+  public void write() {
+    // A fresh instance, as the service stores: the heap store rejects a payment put back over itself
+    Payment payment = payments[ThreadLocalRandom.current().nextInt(KEY_SPACE)];
+    Payment replacement = new Payment();
+    replacement.setId(payment.getId());
+    replacement.setStatus(payment.getStatus());
+    replacement.setCardNumberLastFour(payment.getCardNumberLastFour());
+    replacement.setExpiryMonth(payment.getExpiryMonth());
+    replacement.setExpiryYear(payment.getExpiryYear());
+    replacement.setCurrency(payment.getCurrency());
+    replacement.setAmount(payment.getAmount());
+    repository.add(replacement);
+  }
+
+  @Benchmark
+  public Optional<Payment> read() {
+    return repository.getById(payments[ThreadLocalRandom.current().nextInt(KEY_SPACE)].getId());
+  }
+
+  @Benchmark
+  public Optional<Payment> readUnknown() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    return repository.getById(new UUID(random.nextLong(), random.nextLong()));
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    int cores = Runtime.getRuntime().availableProcessors();
+    for (int threads = 1; threads <= cores; threads *= 2) {
+      Options options = new OptionsBuilder()
+          .include(PaymentsRepositoryBenchmark.class.getSimpleName())
+          .threads(threads)
+          .build();
+      new Runner(options).run();
+    }
+  }
+}
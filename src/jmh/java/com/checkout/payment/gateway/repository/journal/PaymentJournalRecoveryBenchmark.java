@@ -0,0 +1,89 @@
+package com.checkout.payment.gateway.repository.journal;
+
+import com.checkout.payment.gateway.enums.Currency;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.Payment;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Time to rebuild the in-memory index from a {@link PaymentJournal} of {@code records} payments, i.e. the startup cost of
+ * running with the journal enabled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class PaymentJournalRecoveryBenchmark {
+
+  private static final DataSize SEGMENT_SIZE = DataSize.ofMegabytes(64);
+
+  @Param({"1000000", "10000000"})
+  private int records;
+
+  private Path directory;
+
+  @Setup(Level.Trial)
+  public void writeJournal() throws IOException {
+    directory = Files.createTempDirectory("payment-journal-benchmark");
+    try (PaymentJournal journal = openJournal()) {
+      journal.recover(payment -> { });
+      Payment payment = new Payment();
+      payment.setStatus(PaymentStatus.AUTHORIZED);
+      payment.setCardNumberLastFour(4321);
+      payment.setExpiryMonth(12);
+      payment.setExpiryYear(2030);
+      payment.setCurrency(Currency.USD);
+      payment.setAmount(100);
+      for (int i = 0; i < records; i++) {
+        payment.setId(UUID.randomUUID());
+        journal.append(payment);
+      }
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteJournal() throws IOException {
+    try (Stream<Path> files = Files.walk(directory)) {
+      for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(file);
+      }
+    }
+  }
+
+  @Benchmark
+  public int recover() throws IOException {
+    ConcurrentHashMap<UUID, Payment> payments = new ConcurrentHashMap<>(records);
+    try (PaymentJournal journal = openJournal()) {
+      journal.recover(payment -> payments.put(payment.getId(), payment));
+    }
+    return payments.size();
+  }
+
+  private PaymentJournal openJournal() {
+    return new PaymentJournal(directory, SEGMENT_SIZE, Duration.ofMillis(5), 256);
+  }
+}
@@ -0,0 +1,107 @@
+package com.checkout.payment.gateway.repository.snapshot;
+
+import com.checkout.payment.gateway.enums.Currency;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.Payment;
+import com.checkout.payment.gateway.repository.HeapPaymentStore;
+import com.checkout.payment.gateway.repository.PaymentAggregates;
+import com.checkout.payment.gateway.repository.PaymentIdFilter;
+import com.checkout.payment.gateway.repository.PaymentsRepository;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Startup cost of running with {@link PaymentSnapshots} at several store sizes: {@code load} decodes a snapshot of
+ * {@code records} payments into a map, and {@code restart} rebuilds a whole {@link PaymentsRepository} from it, including its
+ * indexes, aggregates and id filter. {@code loadThreads} of {@code 0} uses every processor. Compare with
+ * {@code PaymentJournalRecoveryBenchmark}, which replays a journal of the same size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx12g")
+public class PaymentSnapshotRecoveryBenchmark {
+
+  @Param({"1000000", "10000000"})
+  private int records;
+
+  @Param({"1", "0"})
+  private int loadThreads;
+
+  private Path directory;
+
+  @Setup(Level.Trial)
+  public void writeSnapshot() throws IOException {
+    directory = Files.createTempDirectory("payment-snapshot-benchmark");
+    Payment payment = new Payment();
+    payment.setStatus(PaymentStatus.AUTHORIZED);
+    payment.setCardNumberLastFour(4321);
+    payment.setExpiryMonth(12);
+    payment.setExpiryYear(2030);
+    payment.setCurrency(Currency.USD);
+    payment.setAmount(100);
+    try (PaymentSnapshots snapshots = openSnapshots()) {
+      snapshots.load(loaded -> { });
+      snapshots.start(() -> Stream.generate(() -> {
+        payment.setId(UUID.randomUUID());
+        return payment;
+      }).limit(records));
+      snapshots.snapshot();
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteSnapshot() throws IOException {
+    try (Stream<Path> files = Files.walk(directory)) {
+      for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(file);
+      }
+    }
+  }
+
+  @Benchmark
+  public int load() throws IOException {
+    ConcurrentHashMap<UUID, Payment> payments = new ConcurrentHashMap<>(records);
+    try (PaymentSnapshots snapshots = openSnapshots()) {
+      snapshots.load(payment -> payments.put(payment.getId(), payment));
+    }
+    return payments.size();
+  }
+
+  @Benchmark
+  public int restart() throws IOException {
+    try (PaymentSnapshots snapshots = openSnapshots()) {
+      PaymentsRepository repository = new PaymentsRepository(new HeapPaymentStore(records), Optional.empty(), 0, Duration.ZERO,
+          new PaymentAggregates(Duration.ofHours(1)), new PaymentIdFilter(records, 0.01), Optional.empty(), Optional.empty(),
+          Optional.of(snapshots));
+      return repository.size();
+    }
+  }
+
+  private PaymentSnapshots openSnapshots() {
+    return new PaymentSnapshots(Optional.empty(), directory, Duration.ofDays(1), 1, loadThreads, false);
+  }
+}
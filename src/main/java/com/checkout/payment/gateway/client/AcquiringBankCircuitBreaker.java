@@ -0,0 +1,172 @@
+package com.checkout.payment.gateway.client;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Circuit breaker for the acquiring bank.
+ *
+ * <p>While closed, outcomes are counted over a tumbling window of calls and the breaker opens once the failure rate reaches the
+ * threshold. While open, every call is rejected. After the open duration a few trial calls are let through: if they all succeed the
+ * breaker closes again, and a single failure reopens it.
+ *
+ * <p>The window's calls and failures are packed into one {@code long}, so a call is counted, and the window rolled over, with a
+ * single compare-and-set: the failure rate is always taken from a consistent pair of counts.
+ */
+@Component
+public class AcquiringBankCircuitBreaker implements MeterBinder {
+
+  public enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  private final int windowSize;
+  private final int minimumCalls;
+  private final double failureRateThreshold;
+  private final long openDurationNanos;
+  private final int halfOpenCalls;
+
+  private volatile State state = State.CLOSED;
+  private volatile long openedAt;
+
+  private final AtomicLong window = new AtomicLong();
+  private final AtomicInteger halfOpenPermits = new AtomicInteger();
+  private final AtomicInteger halfOpenSuccesses = new AtomicInteger();
+  private final LongAdder rejected = new LongAdder();
+
+  public AcquiringBankCircuitBreaker(@Value("${acquiring.bank.circuit-breaker.window-size:100}") int windowSize,
+      @Value("${acquiring.bank.circuit-breaker.minimum-calls:20}") int minimumCalls,
+      @Value("${acquiring.bank.circuit-breaker.failure-rate-threshold:0.5}") double failureRateThreshold,
+      @Value("${acquiring.bank.circuit-breaker.open-duration:10s}") Duration openDuration,
+      @Value("${acquiring.bank.circuit-breaker.half-open-calls:5}") int halfOpenCalls) {
+    this.windowSize = windowSize;
+    this.minimumCalls = minimumCalls;
+    this.failureRateThreshold = failureRateThreshold;
+    this.openDurationNanos = openDuration.toNanos();
+    this.halfOpenCalls = halfOpenCalls;
+  }
+
+  public boolean tryAcquirePermission() {
+    State current = state;
+    if (current == State.OPEN && System.nanoTime() - openedAt >= openDurationNanos) {
+      current = halfOpen();
+    }
+
+    boolean permitted = switch (current) {
+      case CLOSED -> true;
+      case OPEN -> false;
+      case HALF_OPEN -> halfOpenPermits.getAndDecrement() > 0;
+    };
+    if (!permitted) {
+      rejected.increment();
+    }
+    return permitted;
+  }
+
+  public void onSuccess() {
+    switch (state) {
+      case CLOSED -> record(false);
+      case HALF_OPEN -> {
+        if (halfOpenSuccesses.incrementAndGet() >= halfOpenCalls) {
+          transition(State.HALF_OPEN, State.CLOSED);
+        }
+      }
+      case OPEN -> { }
+    }
+  }
+
+  public void onError() {
+    switch (state) {
+      case CLOSED -> record(true);
+      case HALF_OPEN -> transition(State.HALF_OPEN, State.OPEN);
+      case OPEN -> { }
+    }
+  }
+
+  /**
+   * Releases a permission whose call never completed, for example because the caller cancelled it.
+   */
+  public void onIgnored() {
+    if (state == State.HALF_OPEN) {
+      halfOpenPermits.incrementAndGet();
+    }
+  }
+
+  public State getState() {
+    return state;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    for (State candidate : State.values()) {
+      Gauge.builder("acquiring.bank.circuit.breaker.state", this, breaker -> breaker.getState() == candidate ? 1 : 0)
+          .description("1 for the current state of the acquiring bank circuit breaker, 0 otherwise")
+          .tag("state", candidate.name().toLowerCase(Locale.ROOT))
+          .register(registry);
+    }
+    FunctionCounter.builder("acquiring.bank.circuit.breaker.rejections", rejected, LongAdder::sum)
+        .description("Acquiring bank calls rejected because the circuit breaker was open")
+        .register(registry);
+  }
+
+  private void record(boolean failed) {
+    long current;
+    long next;
+    boolean trips;
+    do {
+      current = window.get();
+      int totalCalls = calls(current) + 1;
+      int failedCalls = failures(current) + (failed ? 1 : 0);
+      trips = totalCalls >= minimumCalls && failedCalls >= failureRateThreshold * totalCalls;
+      next = !trips && totalCalls >= windowSize ? 0 : pack(totalCalls, failedCalls);
+    } while (!window.compareAndSet(current, next));
+
+    if (trips) {
+      transition(State.CLOSED, State.OPEN);
+    }
+  }
+
+  private static long pack(int calls, int failures) {
+    return (long) calls << 32 | failures;
+  }
+
+  private static int calls(long window) {
+    return (int) (window >>> 32);
+  }
+
+  private static int failures(long window) {
+    return (int) window;
+  }
+
+  private State halfOpen() {
+    transition(State.OPEN, State.HALF_OPEN);
+    return state;
+  }
+
+  private synchronized void transition(State from, State to) {
+    if (state != from) {
+      return;
+    }
+
+    switch (to) {
+      case OPEN -> openedAt = System.nanoTime();
+      case HALF_OPEN -> {
+        halfOpenPermits.set(halfOpenCalls);
+        halfOpenSuccesses.set(0);
+      }
+      case CLOSED -> window.set(0);
+    }
+    state = to;
+  }
+}
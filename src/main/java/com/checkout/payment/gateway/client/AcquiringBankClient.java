@@ -3,49 +3,129 @@ package com.checkout.payment.gateway.client;
 import com.checkout.payment.gateway.dto.AcquiringBankRequestDTO;
 import com.checkout.payment.gateway.dto.AcquiringBankResponseDTO;
 import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.exception.AcquiringBankTimeoutException;
+import com.checkout.payment.gateway.exception.AcquiringBankUnavailableException;
 import com.checkout.payment.gateway.model.CreditCard;
 import com.checkout.payment.gateway.model.Payment;
+import io.netty.channel.ConnectTimeoutException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
 
 @Component
 public class AcquiringBankClient {
 
   private final WebClient webClient;
 
-  public AcquiringBankClient(@Value("${acquiring.bank.base-url}") String acquiringBankBaseUrl, @Qualifier("acquiringBankWebClient") WebClient webClient) {
+  private final AcquiringBankConcurrencyLimiter concurrencyLimiter;
+
+  private final AcquiringBankCircuitBreaker circuitBreaker;
+
+  private final LongAdder errors = new LongAdder();
+
+  private final LongAdder timeouts = new LongAdder();
+
+  public AcquiringBankClient(@Value("${acquiring.bank.base-url}") String acquiringBankBaseUrl, @Qualifier("acquiringBankWebClient") WebClient webClient,
+      AcquiringBankConcurrencyLimiter concurrencyLimiter, AcquiringBankCircuitBreaker circuitBreaker) {
     this.webClient = webClient.mutate()
         .baseUrl(acquiringBankBaseUrl)
         .build();
+    this.concurrencyLimiter = concurrencyLimiter;
+    this.circuitBreaker = circuitBreaker;
+  }
+
+  /**
+   * Fails fast with {@link AcquiringBankUnavailableException} when the bank is at its concurrency limit or the circuit breaker is open,
+   * and with {@link AcquiringBankTimeoutException} when connecting to, or waiting on, the bank times out. Any other error talking to the
+   * bank still declines the payment.
+   */
+  public Mono<PaymentStatus> authorizePayment(Payment payment, CreditCard creditCard) {
+    AcquiringBankRequestDTO requestDTO = new AcquiringBankRequestDTO();
+    requestDTO.setCard_number(creditCard.cardNumber());
+    requestDTO.setCvv(creditCard.cvv());
+    requestDTO.setExpiry_date(String.format("%02d/%d", payment.getExpiryMonth(), payment.getExpiryYear()));
+    requestDTO.setCurrency(payment.getCurrency());
+    requestDTO.setAmount(payment.getAmount());
+
+    return Mono.defer(() -> {
+      if (!concurrencyLimiter.tryAcquire()) {
+        return Mono.error(new AcquiringBankUnavailableException("Acquiring bank is at capacity"));
+      }
+      if (!circuitBreaker.tryAcquirePermission()) {
+        concurrencyLimiter.onIgnored();
+        return Mono.error(new AcquiringBankUnavailableException("Acquiring bank is unavailable"));
+      }
+
+      long started = System.nanoTime();
+      AtomicBoolean responded = new AtomicBoolean();
+      AtomicBoolean released = new AtomicBoolean();
+      // Released in exactly one place, once: a cancel can follow the response, e.g. from a timeout or an adapter taking one value
+      return exchange(requestDTO)
+          .doOnNext(responseDTO -> responded.set(true))
+          .doFinally(signal -> {
+            if (!released.compareAndSet(false, true)) {
+              return;
+            }
+            if (signal == SignalType.ON_ERROR) {
+              concurrencyLimiter.onDropped();
+              circuitBreaker.onError();
+            } else if (signal == SignalType.ON_COMPLETE || responded.get()) {
+              concurrencyLimiter.onSuccess(System.nanoTime() - started);
+              circuitBreaker.onSuccess();
+            } else {
+              concurrencyLimiter.onIgnored();
+              circuitBreaker.onIgnored();
+            }
+          })
+          .map(responseDTO -> responseDTO.isAuthorized() ? PaymentStatus.AUTHORIZED : PaymentStatus.DECLINED)
+          .defaultIfEmpty(PaymentStatus.DECLINED)
+          // For simplicity, we'll return DECLINED on error, unless the bank never answered and the outcome is unknown
+          .onErrorResume(error -> {
+            if (isTimeout(error)) {
+              timeouts.increment();
+              return Mono.error(new AcquiringBankTimeoutException("Acquiring bank did not respond in time"));
+            }
+            errors.increment();
+            return Mono.just(PaymentStatus.DECLINED);
+          });
+    });
+  }
+
+  /**
+   * Calls that failed with anything other than a timeout, and so declined the payment.
+   */
+  public long getErrorCount() {
+    return errors.sum();
   }
 
-  public PaymentStatus authorizePayment(Payment payment, CreditCard creditCard) {
-    try {
-      AcquiringBankRequestDTO requestDTO = new AcquiringBankRequestDTO();
-      requestDTO.setCard_number(creditCard.cardNumber());
-      requestDTO.setCvv(creditCard.cvv());
-      requestDTO.setExpiry_date(String.format("%02d/%d", payment.getExpiryMonth(), payment.getExpiryYear()));
-      requestDTO.setCurrency(payment.getCurrency());
-      requestDTO.setAmount(payment.getAmount());
-
-      AcquiringBankResponseDTO responseDTO = webClient.post()
-          .uri("/payments")
-          .bodyValue(requestDTO)
-          .retrieve()
-          .bodyToMono(AcquiringBankResponseDTO.class)
-          .block();
-
-      if (responseDTO != null && responseDTO.isAuthorized()) {
-        return PaymentStatus.AUTHORIZED;
-      } else {
-        return PaymentStatus.DECLINED;
+  public long getTimeoutCount() {
+    return timeouts.sum();
+  }
+
+  private static boolean isTimeout(Throwable error) {
+    for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+      if (cause instanceof TimeoutException
+          || cause instanceof io.netty.handler.timeout.TimeoutException
+          || cause instanceof ConnectTimeoutException
+          || cause instanceof SocketTimeoutException) {
+        return true;
       }
-    } catch (Exception e) {
-      // Handle exceptions (e.g., log the error)
-      // For simplicity, we'll return DECLINED on error
-      return PaymentStatus.DECLINED;
     }
+    return false;
+  }
+
+  protected Mono<AcquiringBankResponseDTO> exchange(AcquiringBankRequestDTO requestDTO) {
+    return webClient.post()
+        .uri("/payments")
+        .bodyValue(requestDTO)
+        .retrieve()
+        .bodyToMono(AcquiringBankResponseDTO.class);
   }
 }
@@ -0,0 +1,113 @@
+package com.checkout.payment.gateway.client;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * AIMD concurrency limit for calls to the acquiring bank, driven by observed latency.
+ *
+ * <p>While calls come back faster than the latency threshold and the limit is actually being used, the limit grows by one per call.
+ * A call slower than the threshold, or one that fails, shrinks it by the backoff ratio. Calls over the limit are rejected straight
+ * away instead of queueing behind a slow bank.
+ */
+@Component
+public class AcquiringBankConcurrencyLimiter implements MeterBinder {
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final long latencyThresholdNanos;
+  private final double backoffRatio;
+
+  private final AtomicLong limitBits;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final LongAdder rejected = new LongAdder();
+
+  public AcquiringBankConcurrencyLimiter(@Value("${acquiring.bank.limiter.initial-limit:100}") int initialLimit,
+      @Value("${acquiring.bank.limiter.min-limit:10}") int minLimit,
+      @Value("${acquiring.bank.limiter.max-limit:500}") int maxLimit,
+      @Value("${acquiring.bank.limiter.latency-threshold:1s}") Duration latencyThreshold,
+      @Value("${acquiring.bank.limiter.backoff-ratio:0.9}") double backoffRatio) {
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.latencyThresholdNanos = latencyThreshold.toNanos();
+    this.backoffRatio = backoffRatio;
+    this.limitBits = new AtomicLong(Double.doubleToRawLongBits(initialLimit));
+  }
+
+  public boolean tryAcquire() {
+    int current;
+    do {
+      current = inFlight.get();
+      if (current >= getLimit()) {
+        rejected.increment();
+        return false;
+      }
+    } while (!inFlight.compareAndSet(current, current + 1));
+    return true;
+  }
+
+  public void onSuccess(long latencyNanos) {
+    int inFlightBeforeRelease = inFlight.getAndDecrement();
+    if (latencyNanos > latencyThresholdNanos) {
+      decrease();
+    } else if (inFlightBeforeRelease * 2 >= getLimit()) {
+      increase();
+    }
+  }
+
+  public void onDropped() {
+    inFlight.decrementAndGet();
+    decrease();
+  }
+
+  public void onIgnored() {
+    inFlight.decrementAndGet();
+  }
+
+  public int getLimit() {
+    return (int) Double.longBitsToDouble(limitBits.get());
+  }
+
+  public int getInFlight() {
+    return inFlight.get();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("acquiring.bank.concurrency.limit", this, AcquiringBankConcurrencyLimiter::getLimit)
+        .description("Current adaptive limit on concurrent acquiring bank calls")
+        .register(registry);
+    Gauge.builder("acquiring.bank.concurrency.active", this, AcquiringBankConcurrencyLimiter::getInFlight)
+        .description("Acquiring bank calls currently in flight")
+        .register(registry);
+    FunctionCounter.builder("acquiring.bank.concurrency.rejections", rejected, LongAdder::sum)
+        .description("Acquiring bank calls rejected because the concurrency limit was reached")
+        .register(registry);
+  }
+
+  private void increase() {
+    long current;
+    long next;
+    do {
+      current = limitBits.get();
+      next = Double.doubleToRawLongBits(Math.min(maxLimit, Double.longBitsToDouble(current) + 1));
+    } while (!limitBits.compareAndSet(current, next));
+  }
+
+  private void decrease() {
+    long current;
+    long next;
+    do {
+      current = limitBits.get();
+      next = Double.doubleToRawLongBits(Math.max(minLimit, Double.longBitsToDouble(current) * backoffRatio));
+    } while (!limitBits.compareAndSet(current, next));
+  }
+}
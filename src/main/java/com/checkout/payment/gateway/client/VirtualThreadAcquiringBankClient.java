@@ -0,0 +1,34 @@
+package com.checkout.payment.gateway.client;
+
+import com.checkout.payment.gateway.dto.AcquiringBankRequestDTO;
+import com.checkout.payment.gateway.dto.AcquiringBankResponseDTO;
+import java.util.concurrent.ExecutorService;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Authorizes payments with a plain blocking {@link RestTemplate} call, run on the supplied executor. Backed by a virtual-thread-per-task
+ * executor, a bank round trip only parks a virtual thread, so concurrency is no longer capped by the number of platform threads.
+ */
+public class VirtualThreadAcquiringBankClient extends AcquiringBankClient {
+
+  private final RestTemplate restTemplate;
+
+  private final Scheduler scheduler;
+
+  public VirtualThreadAcquiringBankClient(String acquiringBankBaseUrl, WebClient webClient, AcquiringBankConcurrencyLimiter concurrencyLimiter,
+      AcquiringBankCircuitBreaker circuitBreaker, RestTemplate restTemplate, ExecutorService executor) {
+    super(acquiringBankBaseUrl, webClient, concurrencyLimiter, circuitBreaker);
+    this.restTemplate = restTemplate;
+    this.scheduler = Schedulers.fromExecutorService(executor, "acquiring-bank");
+  }
+
+  @Override
+  protected Mono<AcquiringBankResponseDTO> exchange(AcquiringBankRequestDTO requestDTO) {
+    return Mono.fromCallable(() -> restTemplate.postForObject("/payments", requestDTO, AcquiringBankResponseDTO.class))
+        .subscribeOn(scheduler);
+  }
+}
@@ -0,0 +1,78 @@
+package com.checkout.payment.gateway.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Maps payment ids to the nodes that own them by consistent hashing.
+ *
+ * <p>Each node is placed at {@code virtualNodes} points on a 64-bit ring, and an id belongs to the first point at or after its own
+ * hash. Adding or removing a node only moves the ids between it and its neighbours, about {@code 1 / nodes} of them, and every
+ * node computes the same owner from the same node list without coordinating. The ring is immutable: points and owners are two
+ * sorted arrays, so a lookup is one binary search with no allocation.
+ */
+public final class ConsistentHashRing {
+
+  private final List<String> nodes;
+
+  private final long[] points;
+
+  private final int[] owners;
+
+  public ConsistentHashRing(List<String> nodes, int virtualNodes) {
+    if (nodes.isEmpty()) {
+      throw new IllegalArgumentException("A ring needs at least one node");
+    }
+    if (virtualNodes < 1) {
+      throw new IllegalArgumentException("Virtual nodes must be positive");
+    }
+    this.nodes = List.copyOf(nodes);
+
+    long[][] placed = new long[nodes.size() * virtualNodes][];
+    for (int node = 0; node < nodes.size(); node++) {
+      for (int i = 0; i < virtualNodes; i++) {
+        placed[node * virtualNodes + i] = new long[]{pointOf(nodes.get(node), i), node};
+      }
+    }
+    Arrays.sort(placed, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+
+    this.points = new long[placed.length];
+    this.owners = new int[placed.length];
+    for (int i = 0; i < placed.length; i++) {
+      points[i] = placed[i][0];
+      owners[i] = (int) placed[i][1];
+    }
+  }
+
+  public List<String> nodes() {
+    return nodes;
+  }
+
+  public String ownerOf(UUID id) {
+    int index = Arrays.binarySearch(points, hash(id));
+    if (index < 0) {
+      index = -index - 1;
+    }
+    return nodes.get(owners[index == points.length ? 0 : index]);
+  }
+
+  // Node points are placed once at startup, so an MD5 of the node name spreads them well at no cost to lookups
+  private static long pointOf(String node, int virtualNode) {
+    UUID digest = UUID.nameUUIDFromBytes((node + "#" + virtualNode).getBytes(StandardCharsets.UTF_8));
+    return digest.getMostSignificantBits() ^ digest.getLeastSignificantBits();
+  }
+
+  // Seeded differently from the id filter's hash, so that the ids a node owns do not all land on the same filter bits
+  private static long hash(UUID id) {
+    return mix(mix(id.getMostSignificantBits() ^ 0x2545F4914F6CDD1DL) ^ id.getLeastSignificantBits());
+  }
+
+  // SplitMix64 finalizer
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+}
@@ -0,0 +1,153 @@
+package com.checkout.payment.gateway.cluster;
+
+import com.checkout.payment.gateway.model.Payment;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Partitions payments across the gateway nodes in {@code payments.cluster.nodes}, of which this one is {@code payments.cluster.self}.
+ *
+ * <p>Every node is configured with the same node list, so every node agrees on the owner of an id through the
+ * {@link ConsistentHashRing} without talking to the others. {@link com.checkout.payment.gateway.repository.PaymentsRepository}
+ * keeps the payments this node owns and forwards reads and writes of the rest to their owner with a {@link PaymentNodeClient}.
+ *
+ * <p>Nodes prove they belong to the cluster with the shared {@code payments.cluster.secret}, sent in the {@link #SECRET_HEADER}
+ * of every node-to-node call, and must call from an address one of the configured nodes resolves to. Node addresses are
+ * resolved once at startup.
+ */
+@Component
+@ConditionalOnProperty(name = "payments.cluster.enabled", havingValue = "true")
+public class PaymentCluster implements MeterBinder, AutoCloseable {
+
+  public static final String SECRET_HEADER = "X-Payments-Cluster-Secret";
+
+  private final ConsistentHashRing ring;
+
+  private final byte[] secret;
+
+  private final Set<InetAddress> nodeAddresses;
+
+  private final String self;
+
+  private final PaymentNodeClient client;
+
+  private final LongAdder forwardedReads = new LongAdder();
+
+  private final LongAdder forwardedWrites = new LongAdder();
+
+  private final LongAdder refusedCalls = new LongAdder();
+
+  public PaymentCluster(@Value("${payments.cluster.nodes}") List<String> nodes, @Value("${payments.cluster.self}") String self,
+      @Value("${payments.cluster.secret:}") String secret, @Value("${payments.cluster.virtual-nodes:256}") int virtualNodes,
+      @Value("${payments.cluster.max-connections-per-node:64}") int maxConnectionsPerNode,
+      @Value("${payments.cluster.request-timeout:2s}") Duration requestTimeout) {
+    if (!nodes.contains(self)) {
+      throw new IllegalArgumentException("payments.cluster.self %s is not one of payments.cluster.nodes %s".formatted(self, nodes));
+    }
+    if (secret.isBlank()) {
+      throw new IllegalArgumentException("payments.cluster.secret must be set, so only cluster nodes can call the internal endpoints");
+    }
+    this.ring = new ConsistentHashRing(nodes, virtualNodes);
+    this.self = self;
+    this.secret = secret.getBytes(StandardCharsets.UTF_8);
+    this.nodeAddresses = resolve(nodes);
+    this.client = new PaymentNodeClient(secret, maxConnectionsPerNode, requestTimeout);
+  }
+
+  public boolean isLocal(UUID id) {
+    return self.equals(ring.ownerOf(id));
+  }
+
+  /**
+   * Whether a node-to-node call presenting {@code presentedSecret} from {@code remoteAddress} comes from a cluster node.
+   */
+  public boolean isClusterNode(String presentedSecret, String remoteAddress) {
+    InetAddress caller = parseAddress(remoteAddress);
+    boolean trusted = presentedSecret != null
+        && MessageDigest.isEqual(secret, presentedSecret.getBytes(StandardCharsets.UTF_8))
+        && caller != null && nodeAddresses.contains(caller);
+    if (!trusted) {
+      refusedCalls.increment();
+    }
+    return trusted;
+  }
+
+  /**
+   * Reads a payment owned by another node, blocking until it answers.
+   */
+  public Optional<Payment> get(UUID id) {
+    forwardedReads.increment();
+    return client.get(ring.ownerOf(id), id);
+  }
+
+  /**
+   * Stores a payment on the node that owns it. The future completes once the owner has made it durable.
+   */
+  public CompletableFuture<Void> put(Payment payment) {
+    forwardedWrites.increment();
+    return client.put(ring.ownerOf(payment.getId()), payment);
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("payments.cluster.forwarded", forwardedReads, LongAdder::sum)
+        .description("Payment reads and writes forwarded to the node that owns the payment")
+        .tag("operation", "read")
+        .register(registry);
+    FunctionCounter.builder("payments.cluster.forwarded", forwardedWrites, LongAdder::sum)
+        .description("Payment reads and writes forwarded to the node that owns the payment")
+        .tag("operation", "write")
+        .register(registry);
+    FunctionCounter.builder("payments.cluster.refused", refusedCalls, LongAdder::sum)
+        .description("Calls to the internal endpoints refused because they did not come from a cluster node")
+        .register(registry);
+  }
+
+  @Override
+  public void close() {
+    client.close();
+  }
+
+  private static Set<InetAddress> resolve(List<String> nodes) {
+    Set<InetAddress> addresses = new HashSet<>();
+    for (String node : nodes) {
+      String host = URI.create(node).getHost();
+      try {
+        addresses.addAll(Arrays.asList(InetAddress.getAllByName(host)));
+      } catch (UnknownHostException e) {
+        throw new IllegalArgumentException("Cannot resolve cluster node " + node, e);
+      }
+    }
+    return Set.copyOf(addresses);
+  }
+
+  // Remote addresses come from the connection as IP literals, so parsing them never does a DNS lookup
+  private static InetAddress parseAddress(String address) {
+    if (address == null || address.isEmpty()) {
+      return null;
+    }
+    try {
+      return InetAddress.getByName(address);
+    } catch (UnknownHostException e) {
+      return null;
+    }
+  }
+}
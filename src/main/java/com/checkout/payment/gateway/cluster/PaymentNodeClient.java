@@ -0,0 +1,99 @@
+package com.checkout.payment.gateway.cluster;
+
+import com.checkout.payment.gateway.exception.PaymentNodeUnavailableException;
+import com.checkout.payment.gateway.model.Payment;
+import com.checkout.payment.gateway.repository.PaymentRecordCodec;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelOption;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Reads and writes payments on other cluster nodes through their {@code /internal/v1/payments} endpoints.
+ *
+ * <p>A payment travels as one {@link PaymentRecordCodec} record, 36 bytes with its own checksum, rather than as JSON. Connections
+ * to every node are pooled and kept alive, every call carries the cluster secret, and every call is bounded by
+ * {@code requestTimeout}. A node that cannot be reached, times out or answers with anything but success fails the call with
+ * {@link PaymentNodeUnavailableException}.
+ */
+class PaymentNodeClient implements AutoCloseable {
+
+  static final String PATH = "/internal/v1/payments/";
+
+  private static final byte[] NO_BYTES = new byte[0];
+
+  private static final String UNAVAILABLE = "Payment node unavailable";
+
+  private final ConnectionProvider connectionProvider;
+
+  private final HttpClient httpClient;
+
+  private final Duration requestTimeout;
+
+  PaymentNodeClient(String secret, int maxConnectionsPerNode, Duration requestTimeout) {
+    this.connectionProvider = ConnectionProvider.builder("payment-nodes")
+        .maxConnections(maxConnectionsPerNode)
+        .pendingAcquireTimeout(requestTimeout)
+        .build();
+    this.httpClient = HttpClient.create(connectionProvider)
+        .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) requestTimeout.toMillis())
+        .option(ChannelOption.SO_KEEPALIVE, true)
+        .headers(headers -> headers.set(PaymentCluster.SECRET_HEADER, secret))
+        .responseTimeout(requestTimeout);
+    this.requestTimeout = requestTimeout;
+  }
+
+  /**
+   * Blocks until {@code node} answers, so it must not be called on an event-loop thread.
+   */
+  Optional<Payment> get(String node, UUID id) {
+    Response response;
+    try {
+      response = httpClient.get()
+          .uri(node + PATH + id)
+          .responseSingle((received, body) -> body.asByteArray().defaultIfEmpty(NO_BYTES).map(bytes -> new Response(received.status().code(), bytes)))
+          .block(requestTimeout.multipliedBy(2));
+    } catch (RuntimeException e) {
+      throw new PaymentNodeUnavailableException(UNAVAILABLE, e);
+    }
+    if (response != null && response.status() == 404) {
+      return Optional.empty();
+    }
+    Payment payment = response != null && response.status() == 200 ? PaymentRecordCodec.fromBytes(response.body()) : null;
+    if (payment == null) {
+      throw new PaymentNodeUnavailableException(UNAVAILABLE, null);
+    }
+    return Optional.of(payment);
+  }
+
+  /**
+   * Stores {@code payment} on {@code node}. The future completes once the node reports it durable.
+   */
+  CompletableFuture<Void> put(String node, Payment payment) {
+    byte[] record = PaymentRecordCodec.toBytes(payment);
+    return httpClient.headers(headers -> headers.set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_OCTET_STREAM))
+        .put()
+        .uri(node + PATH + payment.getId())
+        // A fresh buffer per subscription, since the client may resend on a connection the node had already closed
+        .send(Mono.fromCallable(() -> Unpooled.wrappedBuffer(record)))
+        .responseSingle((received, body) -> body.then(Mono.just(received.status().code())))
+        .flatMap(status -> status == 204 ? Mono.<Void>empty() : Mono.error(new PaymentNodeUnavailableException(UNAVAILABLE, null)))
+        .onErrorMap(e -> !(e instanceof PaymentNodeUnavailableException), e -> new PaymentNodeUnavailableException(UNAVAILABLE, e))
+        .toFuture();
+  }
+
+  @Override
+  public void close() {
+    connectionProvider.dispose();
+  }
+
+  private record Response(int status, byte[] body) {
+  }
+}
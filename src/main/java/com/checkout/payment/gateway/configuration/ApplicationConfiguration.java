@@ -1,12 +1,19 @@
 package com.checkout.payment.gateway.configuration;
 
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutHandler;
 import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 @Configuration
 public class ApplicationConfiguration {
@@ -14,18 +21,77 @@ public class ApplicationConfiguration {
   @Value("${acquiring.bank.base-url}")
   private String acquiringBankBaseUrl;
 
+  @Value("${acquiring.bank.max-connections:500}")
+  private int acquiringBankMaxConnections;
+
+  @Value("${acquiring.bank.max-pending-acquires:1000}")
+  private int acquiringBankMaxPendingAcquires;
+
+  @Value("${acquiring.bank.pending-acquire-timeout:5s}")
+  private Duration acquiringBankPendingAcquireTimeout;
+
+  @Value("${acquiring.bank.max-idle-time:30s}")
+  private Duration acquiringBankMaxIdleTime;
+
+  @Value("${acquiring.bank.max-life-time:5m}")
+  private Duration acquiringBankMaxLifeTime;
+
+  @Value("${acquiring.bank.eviction-interval:10s}")
+  private Duration acquiringBankEvictionInterval;
+
+  @Value("${acquiring.bank.connect-timeout:2s}")
+  private Duration acquiringBankConnectTimeout;
+
+  @Value("${acquiring.bank.read-timeout:5s}")
+  private Duration acquiringBankReadTimeout;
+
+  @Value("${acquiring.bank.response-timeout:5s}")
+  private Duration acquiringBankResponseTimeout;
+
+  @Value("${acquiring.bank.http2.enabled:false}")
+  private boolean acquiringBankHttp2Enabled;
+
+  /**
+   * Bank authorizations are non-blocking, so the number of in-flight calls is bounded by the connection pool rather than the servlet
+   * thread pool. The pool is sized explicitly because the Reactor Netty default only allows a handful of connections per core. Idle
+   * and long-lived connections are evicted in the background so that requests do not pick up connections the bank has already closed.
+   */
   @Bean
   public WebClient acquiringBankWebClient() {
+    ConnectionProvider connectionProvider = ConnectionProvider.builder("acquiring-bank")
+        .maxConnections(acquiringBankMaxConnections)
+        .pendingAcquireMaxCount(acquiringBankMaxPendingAcquires)
+        .pendingAcquireTimeout(acquiringBankPendingAcquireTimeout)
+        .maxIdleTime(acquiringBankMaxIdleTime)
+        .maxLifeTime(acquiringBankMaxLifeTime)
+        .evictInBackground(acquiringBankEvictionInterval)
+        .metrics(true)
+        .build();
+
+    HttpClient httpClient = HttpClient.create(connectionProvider)
+        .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) acquiringBankConnectTimeout.toMillis())
+        .option(ChannelOption.SO_KEEPALIVE, true)
+        .responseTimeout(acquiringBankResponseTimeout)
+        .doOnConnected(connection -> connection.addHandlerLast(
+            new ReadTimeoutHandler(acquiringBankReadTimeout.toMillis(), TimeUnit.MILLISECONDS)));
+    if (acquiringBankHttp2Enabled) {
+      httpClient = acquiringBankBaseUrl.startsWith("https")
+          ? httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11).secure()
+          : httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+    }
+
     return WebClient.builder()
         .baseUrl(acquiringBankBaseUrl)
+        .clientConnector(new ReactorClientHttpConnector(httpClient))
         .build();
   }
 
   @Bean
   public RestTemplate restTemplate(RestTemplateBuilder builder) {
     return builder
-        .setConnectTimeout(Duration.ofMillis(10000))
-        .setReadTimeout(Duration.ofMillis(10000))
+        .rootUri(acquiringBankBaseUrl)
+        .setConnectTimeout(acquiringBankConnectTimeout)
+        .setReadTimeout(acquiringBankResponseTimeout)
         .build();
   }
 }
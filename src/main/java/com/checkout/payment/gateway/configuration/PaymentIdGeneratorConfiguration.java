@@ -0,0 +1,31 @@
+package com.checkout.payment.gateway.configuration;
+
+import com.checkout.payment.gateway.id.PaymentIdGenerator;
+import com.checkout.payment.gateway.id.TimeOrderedPaymentIdGenerator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Selects the {@link PaymentIdGenerator} with {@code payments.id.generator}: {@code time-ordered} (default) issues UUIDv7 ids
+ * that sort by creation time.
+ *
+ * <p>{@code random} ({@link com.checkout.payment.gateway.id.RandomPaymentIdGenerator}) is refused at startup: the query indexes and age-based retention read a
+ * payment's creation time from its id, and a random id carries none, so time ranges and ages would silently come out wrong.
+ */
+@Configuration
+public class PaymentIdGeneratorConfiguration {
+
+  @Bean
+  @ConditionalOnProperty(name = "payments.id.generator", havingValue = "time-ordered", matchIfMissing = true)
+  public PaymentIdGenerator timeOrderedPaymentIdGenerator() {
+    return new TimeOrderedPaymentIdGenerator();
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "payments.id.generator", havingValue = "random")
+  public PaymentIdGenerator randomPaymentIdGenerator() {
+    throw new IllegalStateException(
+        "payments.id.generator=random is not supported: payment queries and retention read the creation time from the id, which random ids lack");
+  }
+}
@@ -0,0 +1,31 @@
+package com.checkout.payment.gateway.configuration;
+
+import com.checkout.payment.gateway.repository.writebehind.FilePaymentSink;
+import com.checkout.payment.gateway.repository.writebehind.PaymentSink;
+import java.io.IOException;
+import java.nio.file.Path;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Selects the {@link PaymentSink} behind the write-behind stage with {@code payments.write-behind.sink}. {@code file} (default)
+ * appends payment records to {@code payments.write-behind.file.path}. Another backend only needs a {@link PaymentSink} bean.
+ */
+@Configuration
+@ConditionalOnProperty(name = "payments.write-behind.enabled", havingValue = "true")
+public class PaymentSinkConfiguration {
+
+  @Value("${payments.write-behind.file.path:./data/payments.dat}")
+  private Path filePath;
+
+  @Value("${payments.write-behind.file.fsync:true}")
+  private boolean fileFsync;
+
+  @Bean
+  @ConditionalOnProperty(name = "payments.write-behind.sink", havingValue = "file", matchIfMissing = true)
+  public PaymentSink filePaymentSink() throws IOException {
+    return new FilePaymentSink(filePath, fileFsync);
+  }
+}
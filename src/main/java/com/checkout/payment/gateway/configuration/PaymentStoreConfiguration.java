@@ -0,0 +1,32 @@
+package com.checkout.payment.gateway.configuration;
+
+import com.checkout.payment.gateway.repository.HeapPaymentStore;
+import com.checkout.payment.gateway.repository.OffHeapPaymentStore;
+import com.checkout.payment.gateway.repository.PaymentStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Selects the {@link PaymentStore} backend with {@code payments.repository.store}: {@code heap} (default) keeps payment
+ * objects in a map, {@code off-heap} packs them into direct memory to keep large stores out of the garbage collector's way.
+ */
+@Configuration
+public class PaymentStoreConfiguration {
+
+  @Value("${payments.repository.initial-capacity:65536}")
+  private int initialCapacity;
+
+  @Bean
+  @ConditionalOnProperty(name = "payments.repository.store", havingValue = "heap", matchIfMissing = true)
+  public PaymentStore heapPaymentStore() {
+    return new HeapPaymentStore(initialCapacity);
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "payments.repository.store", havingValue = "off-heap")
+  public PaymentStore offHeapPaymentStore() {
+    return new OffHeapPaymentStore(initialCapacity);
+  }
+}
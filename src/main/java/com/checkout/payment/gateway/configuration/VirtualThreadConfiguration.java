@@ -0,0 +1,55 @@
+package com.checkout.payment.gateway.configuration;
+
+import com.checkout.payment.gateway.client.AcquiringBankCircuitBreaker;
+import com.checkout.payment.gateway.client.AcquiringBankClient;
+import com.checkout.payment.gateway.client.AcquiringBankConcurrencyLimiter;
+import com.checkout.payment.gateway.client.VirtualThreadAcquiringBankClient;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * Opt-in execution mode ({@code payments.virtual-threads.enabled=true}) that runs Tomcat request handling and blocking acquiring bank
+ * calls on virtual threads instead of the reactive WebClient pipeline.
+ */
+@Configuration
+@ConditionalOnProperty(name = "payments.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfiguration {
+
+  /**
+   * Tomcat does not shut down an executor it is handed, so it is a bean and shut down with the context, after the web server
+   * has stopped.
+   */
+  @Bean(destroyMethod = "shutdown")
+  public ExecutorService tomcatRequestExecutor() {
+    return Executors.newVirtualThreadPerTaskExecutor();
+  }
+
+  @Bean
+  public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(
+      @Qualifier("tomcatRequestExecutor") ExecutorService tomcatRequestExecutor) {
+    return protocolHandler -> protocolHandler.setExecutor(tomcatRequestExecutor);
+  }
+
+  @Bean(destroyMethod = "shutdown")
+  public ExecutorService acquiringBankExecutor() {
+    return Executors.newVirtualThreadPerTaskExecutor();
+  }
+
+  @Bean
+  @Primary
+  public AcquiringBankClient virtualThreadAcquiringBankClient(@Value("${acquiring.bank.base-url}") String acquiringBankBaseUrl,
+      @Qualifier("acquiringBankWebClient") WebClient webClient, AcquiringBankConcurrencyLimiter concurrencyLimiter,
+      AcquiringBankCircuitBreaker circuitBreaker, RestTemplate restTemplate, @Qualifier("acquiringBankExecutor") ExecutorService acquiringBankExecutor) {
+    return new VirtualThreadAcquiringBankClient(acquiringBankBaseUrl, webClient, concurrencyLimiter, circuitBreaker, restTemplate,
+        acquiringBankExecutor);
+  }
+}
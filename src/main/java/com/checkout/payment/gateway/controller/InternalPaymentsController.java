@@ -0,0 +1,73 @@
+package com.checkout.payment.gateway.controller;
+
+import com.checkout.payment.gateway.cluster.PaymentCluster;
+import com.checkout.payment.gateway.exception.InvalidPaymentException;
+import com.checkout.payment.gateway.model.Payment;
+import com.checkout.payment.gateway.repository.PaymentRecordCodec;
+import com.checkout.payment.gateway.repository.PaymentsRepository;
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Node-to-node endpoints of a partitioned cluster, through which other nodes read and write the payments this node owns. Bodies
+ * are single {@link PaymentRecordCodec} records. A request for a payment this node does not own is answered with
+ * {@code 421 Misdirected Request}, so nodes configured with different node lists fail loudly instead of scattering payments.
+ * A call without the cluster secret, or from an address that is not a cluster node, is refused with {@code 403 Forbidden}
+ * before anything is read or stored.
+ */
+@RestController
+@RequestMapping("/internal/v1/payments")
+@ConditionalOnProperty(name = "payments.cluster.enabled", havingValue = "true")
+public class InternalPaymentsController {
+
+  private static final int MISDIRECTED_REQUEST = 421;
+
+  @Autowired
+  private PaymentsRepository paymentsRepository;
+
+  @Autowired
+  private PaymentCluster paymentCluster;
+
+  @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+  public ResponseEntity<byte[]> getPayment(@PathVariable UUID id,
+      @RequestHeader(name = PaymentCluster.SECRET_HEADER, required = false) String secret, HttpServletRequest request) {
+    if (!paymentCluster.isClusterNode(secret, request.getRemoteAddr())) {
+      return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+    }
+    if (!paymentCluster.isLocal(id)) {
+      return ResponseEntity.status(MISDIRECTED_REQUEST).build();
+    }
+    return paymentsRepository.getLocal(id)
+        .map(payment -> ResponseEntity.ok(PaymentRecordCodec.toBytes(payment)))
+        .orElseGet(() -> ResponseEntity.notFound().build());
+  }
+
+  @PutMapping(value = "/{id}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+  public CompletableFuture<ResponseEntity<Void>> putPayment(@PathVariable UUID id, @RequestBody byte[] body,
+      @RequestHeader(name = PaymentCluster.SECRET_HEADER, required = false) String secret, HttpServletRequest request) {
+    if (!paymentCluster.isClusterNode(secret, request.getRemoteAddr())) {
+      return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.FORBIDDEN).build());
+    }
+    Payment payment = PaymentRecordCodec.fromBytes(body);
+    if (payment == null || !payment.getId().equals(id)) {
+      throw new InvalidPaymentException("Invalid payment record", new String[]{"Body must be one payment record for the payment in the path"});
+    }
+    if (!paymentCluster.isLocal(id)) {
+      return CompletableFuture.completedFuture(ResponseEntity.status(MISDIRECTED_REQUEST).build());
+    }
+    return paymentsRepository.addLocal(payment).thenApply(durable -> ResponseEntity.noContent().build());
+  }
+}
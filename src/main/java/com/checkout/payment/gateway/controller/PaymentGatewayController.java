@@ -1,32 +1,98 @@
 package com.checkout.payment.gateway.controller;
 
+import com.checkout.payment.gateway.dto.BatchPaymentResultDTO;
 import com.checkout.payment.gateway.dto.GetPaymentResponseDTO;
+import com.checkout.payment.gateway.dto.PaymentAggregatesDTO;
 import com.checkout.payment.gateway.dto.PostPaymentRequestDTO;
 import com.checkout.payment.gateway.dto.PostPaymentResponseDTO;
 import com.checkout.payment.gateway.dto.mappers.CreditCardMapper;
 import com.checkout.payment.gateway.dto.mappers.PaymentMapper;
+import com.checkout.payment.gateway.enums.Currency;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.exception.AcquiringBankTimeoutException;
+import com.checkout.payment.gateway.exception.AcquiringBankUnavailableException;
+import com.checkout.payment.gateway.exception.EventProcessingException;
+import com.checkout.payment.gateway.exception.InvalidPaymentException;
+import com.checkout.payment.gateway.exception.InvalidPaymentQueryException;
+import com.checkout.payment.gateway.exception.PaymentQueueFullException;
+import com.checkout.payment.gateway.exception.PaymentStorageOverloadedException;
+import com.checkout.payment.gateway.factories.BatchPaymentResultFactory;
+import com.checkout.payment.gateway.factories.PaymentAggregatesFactory;
+import com.checkout.payment.gateway.metrics.PaymentMetrics;
+import com.checkout.payment.gateway.metrics.PaymentMetrics.Stage;
 import com.checkout.payment.gateway.model.CreditCard;
 import com.checkout.payment.gateway.model.Payment;
+import com.checkout.payment.gateway.repository.IdempotencyKeysRepository;
+import com.checkout.payment.gateway.repository.PaymentQuery;
+import com.checkout.payment.gateway.service.AsyncPaymentProcessor;
 import com.checkout.payment.gateway.service.PaymentGatewayService;
+import com.checkout.payment.gateway.validation.PaymentRequestValidator;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.UUID;
-import jakarta.validation.Valid;
+import java.util.stream.Stream;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @RestController
 @RequestMapping("/api/v1/payments")
 public class PaymentGatewayController {
 
+  static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
   @Autowired
   private PaymentGatewayService paymentGatewayService;
 
+  @Autowired
+  private IdempotencyKeysRepository idempotencyKeysRepository;
+
+  @Autowired
+  private PaymentRequestValidator paymentRequestValidator;
+
+  @Autowired
+  private PaymentMetrics paymentMetrics;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  // Present only in accept-then-poll mode (payments.async.enabled=true)
+  @Autowired(required = false)
+  private AsyncPaymentProcessor asyncPaymentProcessor;
+
+  @Value("${payments.batch.max-size:500}")
+  private int maxBatchSize;
+
+  @Value("${payments.batch.concurrency:32}")
+  private int batchConcurrency;
+
+  @Value("${payments.query.default-page-size:1000}")
+  private int defaultPageSize;
+
+  @Value("${payments.query.max-page-size:100000}")
+  private int maxPageSize;
+
   private final PaymentMapper paymentMapper = PaymentMapper.INSTANCE;
   private final CreditCardMapper creditCardMapper = CreditCardMapper.INSTANCE;
 
@@ -37,12 +103,195 @@ public class PaymentGatewayController {
     return new ResponseEntity<>(paymentMapper.toGetPaymentResponseDto(payment), HttpStatus.OK);
   }
 
+  /**
+   * Streams the payment as Server-Sent Events: its current state first, then every status change until it reaches a final status.
+   */
+  @GetMapping(path = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public Flux<ServerSentEvent<Object>> streamPaymentEvents(@PathVariable UUID id) {
+    return toServerSentEvents(paymentGatewayService.streamPayment(id));
+  }
+
+  /**
+   * Streams every payment as Server-Sent Events each time its status changes, starting from now.
+   */
+  @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public Flux<ServerSentEvent<Object>> streamPaymentsEvents() {
+    return toServerSentEvents(paymentGatewayService.streamPayments());
+  }
+
+  /**
+   * Returns live totals by status and currency and the authorization rate of each of the last minutes. These are maintained as
+   * payments are stored, so the cost of this call does not grow with the number of payments.
+   */
+  @GetMapping("/aggregates")
+  public ResponseEntity<PaymentAggregatesDTO> getAggregates() {
+    return new ResponseEntity<>(PaymentAggregatesFactory.create(paymentGatewayService.getAggregates()), HttpStatus.OK);
+  }
+
+  /**
+   * Streams the payments matching the filters as NDJSON, one {@link GetPaymentResponseDTO} per line, oldest first. Lines are written
+   * as payments are read from the repository, so a page is never held in memory. A page holds at most {@code limit} payments; pass
+   * the id of the last one as {@code after} to fetch the next.
+   */
+  @GetMapping
+  public ResponseEntity<StreamingResponseBody> queryPayments(@RequestParam(required = false) String status,
+      @RequestParam(required = false) String currency, @RequestParam(required = false) String from,
+      @RequestParam(required = false) String to, @RequestParam(required = false) String after,
+      @RequestParam(required = false) Integer limit) {
+    List<String> errors = new ArrayList<>();
+    PaymentStatus paymentStatus = status == null ? null : PaymentStatus.fromName(status);
+    if (status != null && paymentStatus == null) {
+      errors.add("Status must be one of Authorized, Declined, Rejected, or Pending");
+    }
+    Currency paymentCurrency = currency == null ? null : Currency.fromCode(currency);
+    if (currency != null && paymentCurrency == null) {
+      errors.add("Currency must be one of USD, EUR, or GBP");
+    }
+    Instant createdFrom = parseInstant(from, "From", errors);
+    Instant createdTo = parseInstant(to, "To", errors);
+    if (createdFrom != null && createdTo != null && !createdFrom.isBefore(createdTo)) {
+      errors.add("From must be before to");
+    }
+    UUID afterId = parseId(after, errors);
+    int pageSize = limit == null ? defaultPageSize : limit;
+    if (pageSize < 1 || pageSize > maxPageSize) {
+      errors.add("Limit must be between 1 and %d".formatted(maxPageSize));
+    }
+    if (!errors.isEmpty()) {
+      throw new InvalidPaymentQueryException("Invalid payment query", errors.toArray(String[]::new));
+    }
+
+    Stream<Payment> payments = paymentGatewayService.queryPayments(new PaymentQuery(paymentStatus, paymentCurrency, createdFrom, createdTo, afterId))
+        .limit(pageSize);
+    ObjectWriter writer = objectMapper.writerFor(GetPaymentResponseDTO.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    StreamingResponseBody body = out -> {
+      try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+        Iterator<Payment> iterator = payments.iterator();
+        while (iterator.hasNext()) {
+          writer.writeValue(generator, paymentMapper.toGetPaymentResponseDto(iterator.next()));
+          generator.writeRaw('\n');
+        }
+      }
+    };
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+  }
+
   @PostMapping
-  public ResponseEntity<PostPaymentResponseDTO> processPayment(@Valid @RequestBody PostPaymentRequestDTO body) {
+  public Mono<ResponseEntity<PostPaymentResponseDTO>> processPayment(@RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+      @RequestBody PostPaymentRequestDTO body) {
+    String[] errors = validate(body);
+    if (errors.length > 0) {
+      throw new InvalidPaymentException("Invalid payment", errors);
+    }
+
+    Mono<PostPaymentResponseDTO> response = idempotencyKey == null
+        ? submitPayment(body)
+        : idempotencyKeysRepository.getOrProcess(idempotencyKey, body.fingerprint(), () -> submitPayment(body));
+
+    HttpStatus status = asyncPaymentProcessor == null ? HttpStatus.CREATED : HttpStatus.ACCEPTED;
+    return response.map(processed -> new ResponseEntity<>(processed, status));
+  }
+
+  /**
+   * Processes every payment in the batch, sending at most {@code payments.batch.concurrency} of them to the bank at once. Each payment
+   * is validated on its own, so invalid items are reported in their result without failing the rest of the batch.
+   */
+  @PostMapping("/batch")
+  public Mono<ResponseEntity<List<BatchPaymentResultDTO>>> processPayments(@RequestBody List<PostPaymentRequestDTO> body) {
+    if (body.isEmpty() || body.size() > maxBatchSize) {
+      throw new InvalidPaymentException("Invalid batch size",
+          new String[]{"Batch must contain between 1 and %d payments".formatted(maxBatchSize)});
+    }
+
+    return Flux.range(0, body.size())
+        .flatMapSequential(index -> processBatchItem(index, body.get(index)), batchConcurrency)
+        .collectList()
+        .map(results -> new ResponseEntity<>(results, HttpStatus.OK));
+  }
+
+  private Mono<BatchPaymentResultDTO> processBatchItem(int index, PostPaymentRequestDTO item) {
+    if (item == null) {
+      return Mono.just(BatchPaymentResultFactory.rejected(index, new String[]{"Payment must be provided"}));
+    }
+
+    String[] errors = validate(item);
+    if (errors.length > 0) {
+      return Mono.just(BatchPaymentResultFactory.rejected(index, errors));
+    }
+
+    return submitPayment(item)
+        .map(payment -> asyncPaymentProcessor == null
+            ? BatchPaymentResultFactory.created(index, payment)
+            : BatchPaymentResultFactory.accepted(index, payment))
+        .onErrorResume(PaymentQueueFullException.class, ex -> Mono.just(BatchPaymentResultFactory.queueFull(index, ex.getMessage())))
+        .onErrorResume(AcquiringBankUnavailableException.class, ex -> Mono.just(BatchPaymentResultFactory.unavailable(index, ex.getMessage())))
+        .onErrorResume(PaymentStorageOverloadedException.class, ex -> Mono.just(BatchPaymentResultFactory.unavailable(index, ex.getMessage())))
+        .onErrorResume(AcquiringBankTimeoutException.class, ex -> Mono.just(BatchPaymentResultFactory.timedOut(index, ex.getMessage())));
+  }
+
+  /**
+   * Validates the payment and returns its constraint violation messages, counting it as rejected if there are any.
+   */
+  private String[] validate(PostPaymentRequestDTO body) {
+    long started = System.nanoTime();
+    String[] errors = paymentRequestValidator.validate(body);
+    paymentMetrics.recordStage(Stage.VALIDATION, started);
+    if (errors.length > 0) {
+      paymentMetrics.paymentProcessed(PaymentStatus.REJECTED);
+    }
+    return errors;
+  }
+
+  /**
+   * One {@code payment} event per payment. A subscriber that fell behind gets a final {@code overflow} event instead of a broken
+   * connection, telling it to reconnect and re-read the payments it cares about.
+   */
+  private Flux<ServerSentEvent<Object>> toServerSentEvents(Flux<Payment> payments) {
+    return payments
+        .map(payment -> ServerSentEvent.<Object>builder(paymentMapper.toGetPaymentResponseDto(payment))
+            .id(payment.getId().toString())
+            .event("payment")
+            .build())
+        .onErrorResume(EventProcessingException.class, ex -> Mono.just(ServerSentEvent.<Object>builder(ex.getMessage())
+            .event("overflow")
+            .build()));
+  }
+
+  private static Instant parseInstant(String value, String name, List<String> errors) {
+    if (value == null) {
+      return null;
+    }
+    try {
+      return Instant.parse(value);
+    } catch (DateTimeParseException e) {
+      errors.add(name + " must be an ISO-8601 instant");
+      return null;
+    }
+  }
+
+  private static UUID parseId(String value, List<String> errors) {
+    if (value == null) {
+      return null;
+    }
+    try {
+      return UUID.fromString(value);
+    } catch (IllegalArgumentException e) {
+      errors.add("After must be a payment id");
+      return null;
+    }
+  }
+
+  private Mono<PostPaymentResponseDTO> submitPayment(PostPaymentRequestDTO body) {
+    long started = System.nanoTime();
     Payment payment = paymentMapper.toPayment(body);
     CreditCard creditCard = creditCardMapper.toCreditCard(body);
-    paymentGatewayService.processPayment(payment, creditCard);
+    paymentMetrics.recordStage(Stage.MAPPING, started);
 
-    return new ResponseEntity<>(paymentMapper.toPostPaymentResponseDto(payment), HttpStatus.CREATED);
+    Mono<Payment> processed = asyncPaymentProcessor == null
+        ? paymentGatewayService.processPayment(payment, creditCard)
+        : asyncPaymentProcessor.submit(payment, creditCard);
+    return processed.map(paymentMapper::toPostPaymentResponseDto);
   }
 }
@@ -1,12 +1,13 @@
 package com.checkout.payment.gateway.dto;
 
+import com.checkout.payment.gateway.enums.Currency;
 import lombok.Data;
 
 @Data
 public class AcquiringBankRequestDTO {
   private String card_number;
   private String expiry_date;
-  private String currency;
+  private Currency currency;
   private int amount;
   private String cvv;
 }
\ No newline at end of file
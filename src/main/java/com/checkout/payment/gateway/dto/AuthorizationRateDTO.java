@@ -0,0 +1,12 @@
+package com.checkout.payment.gateway.dto;
+
+import java.time.Instant;
+import lombok.Data;
+
+@Data
+public class AuthorizationRateDTO {
+  private Instant minute;
+  private long authorized;
+  private long declined;
+  private Double rate;
+}
@@ -0,0 +1,14 @@
+package com.checkout.payment.gateway.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import org.springframework.http.HttpStatus;
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchPaymentResultDTO {
+  private int index;
+  private HttpStatus status;
+  private PostPaymentResponseDTO payment;
+  private String[] messages;
+}
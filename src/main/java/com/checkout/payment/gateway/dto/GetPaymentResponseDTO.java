@@ -1,5 +1,6 @@
 package com.checkout.payment.gateway.dto;
 
+import com.checkout.payment.gateway.enums.Currency;
 import com.checkout.payment.gateway.enums.PaymentStatus;
 import lombok.Data;
 import java.util.UUID;
@@ -11,6 +12,6 @@ public class GetPaymentResponseDTO {
   private int cardNumberLastFour;
   private int expiryMonth;
   private int expiryYear;
-  private String currency;
+  private Currency currency;
   private int amount;
 }
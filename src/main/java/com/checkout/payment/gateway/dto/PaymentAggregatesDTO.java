@@ -0,0 +1,10 @@
+package com.checkout.payment.gateway.dto;
+
+import java.util.List;
+import lombok.Data;
+
+@Data
+public class PaymentAggregatesDTO {
+  private List<PaymentTotalDTO> totals;
+  private List<AuthorizationRateDTO> authorizationRate;
+}
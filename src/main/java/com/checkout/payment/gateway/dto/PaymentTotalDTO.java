@@ -0,0 +1,13 @@
+package com.checkout.payment.gateway.dto;
+
+import com.checkout.payment.gateway.enums.Currency;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import lombok.Data;
+
+@Data
+public class PaymentTotalDTO {
+  private PaymentStatus status;
+  private Currency currency;
+  private long count;
+  private long amount;
+}
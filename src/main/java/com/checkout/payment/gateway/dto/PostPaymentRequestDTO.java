@@ -2,6 +2,9 @@ package com.checkout.payment.gateway.dto;
 
 import jakarta.validation.constraints.*;
 import lombok.Data;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.YearMonth;
 
 @Data
@@ -41,4 +44,18 @@ public class PostPaymentRequestDTO {
     YearMonth now = YearMonth.now();
     return expiry.isAfter(now);
   }
+
+  /**
+   * SHA-256 of every field, so two requests have the same fingerprint only if they are equal, and whoever keeps it does not hold
+   * the card details in plain text.
+   */
+  public byte[] fingerprint() {
+    // Fields are separated by a character none of them can contain, so values cannot shift from one field into the next
+    String canonical = cardNumber + '\0' + cvv + '\0' + expiryMonth + '\0' + expiryYear + '\0' + currency + '\0' + amount;
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
 }
@@ -0,0 +1,44 @@
+package com.checkout.payment.gateway.enums;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * ISO 4217 currencies the gateway accepts. Amounts are always held in the currency's minor unit, e.g. cents for USD.
+ */
+public enum Currency {
+  USD(2),
+  EUR(2),
+  GBP(2);
+
+  private static final Currency[] VALUES = values();
+
+  private final int minorUnits;
+
+  Currency(int minorUnits) {
+    this.minorUnits = minorUnits;
+  }
+
+  @JsonValue
+  public String getCode() {
+    return name();
+  }
+
+  /**
+   * Number of decimal places between the minor and the major unit, e.g. 2 for USD.
+   */
+  public int getMinorUnits() {
+    return minorUnits;
+  }
+
+  /**
+   * Returns the currency with ISO code {@code code}, or {@code null} if it is not supported.
+   */
+  public static Currency fromCode(String code) {
+    for (Currency currency : VALUES) {
+      if (currency.name().equals(code)) {
+        return currency;
+      }
+    }
+    return null;
+  }
+}
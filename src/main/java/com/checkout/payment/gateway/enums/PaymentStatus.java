@@ -5,7 +5,11 @@ import com.fasterxml.jackson.annotation.JsonValue;
 public enum PaymentStatus {
   AUTHORIZED("Authorized"),
   DECLINED("Declined"),
-  REJECTED("Rejected");
+  REJECTED("Rejected"),
+  // Appended last: ordinals are persisted by the journal and the off-heap store
+  PENDING("Pending");
+
+  private static final PaymentStatus[] VALUES = values();
 
   private final String name;
 
@@ -17,4 +21,16 @@ public enum PaymentStatus {
   public String getName() {
     return this.name;
   }
+
+  /**
+   * Returns the status called {@code name}, ignoring case, or {@code null} if there is none.
+   */
+  public static PaymentStatus fromName(String name) {
+    for (PaymentStatus status : VALUES) {
+      if (status.name.equalsIgnoreCase(name)) {
+        return status;
+      }
+    }
+    return null;
+  }
 }
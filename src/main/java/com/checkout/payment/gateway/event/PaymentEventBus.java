@@ -0,0 +1,145 @@
+package com.checkout.payment.gateway.event;
+
+import com.checkout.payment.gateway.exception.EventProcessingException;
+import com.checkout.payment.gateway.model.Payment;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.publisher.Sinks.EmitResult;
+
+/**
+ * Fans out every stored payment to the subscribers interested in it.
+ *
+ * <p>Subscribers to a single payment are indexed by its id, so publishing costs one lookup plus the subscribers that actually receive
+ * the payment, however many other payment streams are open.
+ *
+ * <p>Each subscriber has its own buffer of {@code payments.events.subscriber-buffer} payments, so publishing never waits for a
+ * subscriber to consume. A subscriber whose buffer is full has fallen behind for good: its stream ends with an
+ * {@link EventProcessingException} after the payments already buffered, and the client is expected to reconnect and re-read the
+ * current state.
+ */
+@Component
+public class PaymentEventBus implements MeterBinder {
+
+  private final Set<Subscriber> allPaymentsSubscribers = ConcurrentHashMap.newKeySet();
+
+  private final ConcurrentHashMap<UUID, Set<Subscriber>> paymentSubscribers = new ConcurrentHashMap<>();
+
+  private final AtomicInteger subscriberCount = new AtomicInteger();
+
+  private final int bufferSize;
+
+  private final LongAdder overflows = new LongAdder();
+
+  public PaymentEventBus(@Value("${payments.events.subscriber-buffer:256}") int bufferSize) {
+    this.bufferSize = bufferSize;
+  }
+
+  public void publish(Payment payment) {
+    for (Subscriber subscriber : allPaymentsSubscribers) {
+      offer(subscriber, payment);
+    }
+    Set<Subscriber> subscribers = paymentSubscribers.get(payment.getId());
+    if (subscribers != null) {
+      for (Subscriber subscriber : subscribers) {
+        offer(subscriber, payment);
+      }
+    }
+  }
+
+  /**
+   * Streams the payments stored from now on, only those with {@code paymentId} unless it is {@code null}. The stream starts with
+   * {@code current}, read after the subscriber is registered so that no change can fall between the two.
+   */
+  public Flux<Payment> subscribe(UUID paymentId, Supplier<Payment> current) {
+    return Flux.defer(() -> {
+      Subscriber subscriber = new Subscriber(paymentId, bufferSize);
+      register(subscriber);
+      Payment initial = current.get();
+      Flux<Payment> events = subscriber.sink.asFlux();
+      return (initial == null ? events : events.startWith(initial))
+          .doFinally(signal -> unregister(subscriber));
+    });
+  }
+
+  public int getSubscriberCount() {
+    return subscriberCount.get();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("payments.events.subscribers", this, PaymentEventBus::getSubscriberCount)
+        .description("Open payment event streams")
+        .register(registry);
+    FunctionCounter.builder("payments.events.overflows", overflows, LongAdder::sum)
+        .description("Payment event streams ended because the subscriber fell behind")
+        .register(registry);
+  }
+
+  private void offer(Subscriber subscriber, Payment payment) {
+    // Sinks need serialized emission; publishers only contend here for the same subscriber, and only for an enqueue
+    synchronized (subscriber) {
+      if (subscriber.sink.tryEmitNext(payment) == EmitResult.FAIL_OVERFLOW) {
+        unregister(subscriber);
+        overflows.increment();
+        subscriber.sink.tryEmitError(new EventProcessingException("Subscriber fell behind by more than %d events".formatted(bufferSize)));
+      }
+    }
+  }
+
+  private void register(Subscriber subscriber) {
+    if (subscriber.paymentId == null) {
+      allPaymentsSubscribers.add(subscriber);
+    } else {
+      // Added inside compute so that a concurrent unregister cannot drop the set this subscriber was just added to
+      paymentSubscribers.compute(subscriber.paymentId, (paymentId, subscribers) -> {
+        Set<Subscriber> updated = subscribers == null ? ConcurrentHashMap.newKeySet() : subscribers;
+        updated.add(subscriber);
+        return updated;
+      });
+    }
+    subscriberCount.incrementAndGet();
+  }
+
+  private void unregister(Subscriber subscriber) {
+    boolean removed;
+    if (subscriber.paymentId == null) {
+      removed = allPaymentsSubscribers.remove(subscriber);
+    } else {
+      boolean[] found = new boolean[1];
+      paymentSubscribers.computeIfPresent(subscriber.paymentId, (paymentId, subscribers) -> {
+        found[0] = subscribers.remove(subscriber);
+        return subscribers.isEmpty() ? null : subscribers;
+      });
+      removed = found[0];
+    }
+    // A subscriber that overflowed is unregistered again when its stream ends
+    if (removed) {
+      subscriberCount.decrementAndGet();
+    }
+  }
+
+  private static final class Subscriber {
+
+    private final UUID paymentId;
+
+    private final Sinks.Many<Payment> sink;
+
+    Subscriber(UUID paymentId, int bufferSize) {
+      this.paymentId = paymentId;
+      this.sink = Sinks.many().unicast().onBackpressureBuffer(new ArrayBlockingQueue<>(bufferSize));
+    }
+  }
+}
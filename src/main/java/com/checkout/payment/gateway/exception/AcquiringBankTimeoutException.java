@@ -0,0 +1,12 @@
+package com.checkout.payment.gateway.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.GATEWAY_TIMEOUT)
+public class AcquiringBankTimeoutException extends RuntimeException {
+
+  public AcquiringBankTimeoutException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,12 @@
+package com.checkout.payment.gateway.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class AcquiringBankUnavailableException extends RuntimeException {
+
+  public AcquiringBankUnavailableException(String message) {
+    super(message);
+  }
+}
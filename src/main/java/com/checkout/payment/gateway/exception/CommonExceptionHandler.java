@@ -1,15 +1,16 @@
 package com.checkout.payment.gateway.exception;
 
 import com.checkout.payment.gateway.model.ErrorResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
-import java.util.ArrayList;
 import java.util.List;
 
 @ControllerAdvice
@@ -17,6 +18,15 @@ public class CommonExceptionHandler {
 
   private static final Logger LOG = LoggerFactory.getLogger(CommonExceptionHandler.class);
 
+  private final ErrorResponseBodies errorResponseBodies;
+
+  private final ResponseEntity<Object> paymentNotFound;
+
+  public CommonExceptionHandler(ObjectMapper objectMapper, @Value("${payments.errors.max-cached-bodies:1024}") int maxCachedBodies) {
+    this.errorResponseBodies = new ErrorResponseBodies(objectMapper, maxCachedBodies);
+    this.paymentNotFound = errorResponseBodies.get(HttpStatus.NOT_FOUND, PaymentNotFoundException.INSTANCE.getMessage());
+  }
+
   @ExceptionHandler(MethodArgumentNotValidException.class)
   public ResponseEntity<Object> handleInvalidPaymentException(MethodArgumentNotValidException ex) {
     List<String> errors = ex.getBindingResult().getAllErrors().stream().map(DefaultMessageSourceResolvable::getDefaultMessage).toList();
@@ -25,10 +35,52 @@ public class CommonExceptionHandler {
     return new ResponseEntity<>(errorResponse, errorResponse.status());
   }
 
+  @ExceptionHandler(InvalidPaymentException.class)
+  public ResponseEntity<Object> handleInvalidPayment(InvalidPaymentException ex) {
+    return errorResponseBodies.get(HttpStatus.BAD_REQUEST, ex.getErrors());
+  }
+
+  @ExceptionHandler(InvalidPaymentQueryException.class)
+  public ResponseEntity<Object> handleInvalidPaymentQuery(InvalidPaymentQueryException ex) {
+    return errorResponseBodies.get(HttpStatus.BAD_REQUEST, ex.getErrors());
+  }
+
   @ExceptionHandler(PaymentNotFoundException.class)
   public ResponseEntity<Object> handlePaymentNotFoundException(PaymentNotFoundException ex) {
-    ErrorResponse errorResponse = new ErrorResponse(HttpStatus.NOT_FOUND,
-        new String[]{ex.getMessage()});
-    return new ResponseEntity<>(errorResponse, errorResponse.status());
+    if (ex == PaymentNotFoundException.INSTANCE) {
+      return paymentNotFound;
+    }
+    return errorResponseBodies.get(HttpStatus.NOT_FOUND, ex.getMessage());
+  }
+
+  @ExceptionHandler(IdempotencyKeyConflictException.class)
+  public ResponseEntity<Object> handleIdempotencyKeyConflictException(IdempotencyKeyConflictException ex) {
+    return errorResponseBodies.get(HttpStatus.UNPROCESSABLE_ENTITY, ex.getMessage());
+  }
+
+  @ExceptionHandler(PaymentQueueFullException.class)
+  public ResponseEntity<Object> handlePaymentQueueFullException(PaymentQueueFullException ex) {
+    return errorResponseBodies.get(HttpStatus.TOO_MANY_REQUESTS, ex.getMessage());
+  }
+
+  @ExceptionHandler(AcquiringBankUnavailableException.class)
+  public ResponseEntity<Object> handleAcquiringBankUnavailableException(AcquiringBankUnavailableException ex) {
+    return errorResponseBodies.get(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+  }
+
+  @ExceptionHandler(PaymentStorageOverloadedException.class)
+  public ResponseEntity<Object> handlePaymentStorageOverloadedException(PaymentStorageOverloadedException ex) {
+    return errorResponseBodies.get(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+  }
+
+  @ExceptionHandler(PaymentNodeUnavailableException.class)
+  public ResponseEntity<Object> handlePaymentNodeUnavailableException(PaymentNodeUnavailableException ex) {
+    LOG.warn("Payment node unavailable", ex);
+    return errorResponseBodies.get(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+  }
+
+  @ExceptionHandler(AcquiringBankTimeoutException.class)
+  public ResponseEntity<Object> handleAcquiringBankTimeoutException(AcquiringBankTimeoutException ex) {
+    return errorResponseBodies.get(HttpStatus.GATEWAY_TIMEOUT, ex.getMessage());
   }
 }
@@ -0,0 +1,63 @@
+package com.checkout.payment.gateway.exception;
+
+import com.checkout.payment.gateway.model.ErrorResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Error responses serialized once and reused for every request that fails the same way.
+ *
+ * <p>Error messages come from a small set of constants, so a miss or a validation failure usually repeats a body that has already
+ * been sent. The cached response holds the JSON bytes and read-only headers, so it can be shared between requests. At most
+ * {@code maxEntries} distinct bodies are cached; past that, responses are serialized per request as before.
+ */
+final class ErrorResponseBodies {
+
+  private final ObjectMapper objectMapper;
+
+  private final int maxEntries;
+
+  private final ConcurrentMap<Key, ResponseEntity<Object>> responses = new ConcurrentHashMap<>();
+
+  ErrorResponseBodies(ObjectMapper objectMapper, int maxEntries) {
+    this.objectMapper = objectMapper;
+    this.maxEntries = maxEntries;
+  }
+
+  ResponseEntity<Object> get(HttpStatus status, String... messages) {
+    Key key = new Key(status, Arrays.asList(messages));
+    ResponseEntity<Object> response = responses.get(key);
+    if (response != null) {
+      return response;
+    }
+    response = serialize(status, messages);
+    if (responses.size() < maxEntries) {
+      // The messages array belongs to the caller, so the cached key gets its own copy
+      responses.putIfAbsent(new Key(status, List.of(messages)), response);
+    }
+    return response;
+  }
+
+  int size() {
+    return responses.size();
+  }
+
+  private ResponseEntity<Object> serialize(HttpStatus status, String[] messages) {
+    try {
+      byte[] body = objectMapper.writeValueAsBytes(new ErrorResponse(status, messages));
+      return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON).body(body);
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private record Key(HttpStatus status, List<String> messages) { }
+}
@@ -4,6 +4,10 @@ import lombok.Getter;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+/**
+ * Carries the messages of a rejected request to the client. It has no stack trace: it reports bad input, not a fault, and is
+ * thrown for every invalid request.
+ */
 @ResponseStatus(HttpStatus.BAD_REQUEST)
 public class InvalidPaymentException extends RuntimeException {
 
@@ -11,7 +15,7 @@ public class InvalidPaymentException extends RuntimeException {
   private final String[] errors;
 
   public InvalidPaymentException(String message, String[] errors) {
-    super(message);
+    super(message, null, false, false);
     this.errors = errors;
   }
 }
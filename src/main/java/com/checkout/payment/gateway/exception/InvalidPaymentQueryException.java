@@ -0,0 +1,20 @@
+package com.checkout.payment.gateway.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Like {@link InvalidPaymentException}, it reports bad input and carries no stack trace.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidPaymentQueryException extends RuntimeException {
+
+  @Getter
+  private final String[] errors;
+
+  public InvalidPaymentQueryException(String message, String[] errors) {
+    super(message, null, false, false);
+    this.errors = errors;
+  }
+}
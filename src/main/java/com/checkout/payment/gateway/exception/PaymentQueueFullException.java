@@ -0,0 +1,12 @@
+package com.checkout.payment.gateway.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class PaymentQueueFullException extends RuntimeException {
+
+  public PaymentQueueFullException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,16 @@
+package com.checkout.payment.gateway.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when storage is too far behind to accept another payment. It is raised for every payment while storage is overloaded,
+ * so it carries no stack trace.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class PaymentStorageOverloadedException extends RuntimeException {
+
+  public PaymentStorageOverloadedException(String message) {
+    super(message, null, false, false);
+  }
+}
@@ -0,0 +1,55 @@
+package com.checkout.payment.gateway.factories;
+
+import com.checkout.payment.gateway.dto.BatchPaymentResultDTO;
+import com.checkout.payment.gateway.dto.PostPaymentResponseDTO;
+import org.springframework.http.HttpStatus;
+
+public class BatchPaymentResultFactory {
+
+  private BatchPaymentResultFactory() {
+  }
+
+  public static BatchPaymentResultDTO created(int index, PostPaymentResponseDTO payment) {
+    BatchPaymentResultDTO result = new BatchPaymentResultDTO();
+    result.setIndex(index);
+    result.setStatus(HttpStatus.CREATED);
+    result.setPayment(payment);
+    return result;
+  }
+
+  public static BatchPaymentResultDTO accepted(int index, PostPaymentResponseDTO payment) {
+    BatchPaymentResultDTO result = new BatchPaymentResultDTO();
+    result.setIndex(index);
+    result.setStatus(HttpStatus.ACCEPTED);
+    result.setPayment(payment);
+    return result;
+  }
+
+  public static BatchPaymentResultDTO rejected(int index, String[] messages) {
+    BatchPaymentResultDTO result = new BatchPaymentResultDTO();
+    result.setIndex(index);
+    result.setStatus(HttpStatus.BAD_REQUEST);
+    result.setMessages(messages);
+    return result;
+  }
+
+  public static BatchPaymentResultDTO unavailable(int index, String message) {
+    return failed(index, HttpStatus.SERVICE_UNAVAILABLE, message);
+  }
+
+  public static BatchPaymentResultDTO timedOut(int index, String message) {
+    return failed(index, HttpStatus.GATEWAY_TIMEOUT, message);
+  }
+
+  public static BatchPaymentResultDTO queueFull(int index, String message) {
+    return failed(index, HttpStatus.TOO_MANY_REQUESTS, message);
+  }
+
+  private static BatchPaymentResultDTO failed(int index, HttpStatus status, String message) {
+    BatchPaymentResultDTO result = new BatchPaymentResultDTO();
+    result.setIndex(index);
+    result.setStatus(status);
+    result.setMessages(new String[]{message});
+    return result;
+  }
+}
@@ -0,0 +1,51 @@
+package com.checkout.payment.gateway.factories;
+
+import com.checkout.payment.gateway.dto.AuthorizationRateDTO;
+import com.checkout.payment.gateway.dto.PaymentAggregatesDTO;
+import com.checkout.payment.gateway.dto.PaymentTotalDTO;
+import com.checkout.payment.gateway.enums.Currency;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.repository.PaymentAggregates;
+import com.checkout.payment.gateway.repository.PaymentAggregates.MinuteOutcomes;
+import java.util.ArrayList;
+import java.util.List;
+
+public class PaymentAggregatesFactory {
+
+  private PaymentAggregatesFactory() {
+  }
+
+  /**
+   * Reads every total and minute of {@code aggregates}. The rate is the share of bank outcomes in that minute that were
+   * authorizations, or {@code null} for a minute without any.
+   */
+  public static PaymentAggregatesDTO create(PaymentAggregates aggregates) {
+    List<PaymentTotalDTO> totals = new ArrayList<>();
+    for (PaymentStatus status : PaymentStatus.values()) {
+      for (Currency currency : Currency.values()) {
+        PaymentTotalDTO total = new PaymentTotalDTO();
+        total.setStatus(status);
+        total.setCurrency(currency);
+        total.setCount(aggregates.count(status, currency));
+        total.setAmount(aggregates.amount(status, currency));
+        totals.add(total);
+      }
+    }
+
+    List<AuthorizationRateDTO> authorizationRate = new ArrayList<>();
+    for (MinuteOutcomes outcomes : aggregates.lastMinutes()) {
+      AuthorizationRateDTO minute = new AuthorizationRateDTO();
+      minute.setMinute(outcomes.start());
+      minute.setAuthorized(outcomes.count(PaymentStatus.AUTHORIZED));
+      minute.setDeclined(outcomes.count(PaymentStatus.DECLINED));
+      long decided = minute.getAuthorized() + minute.getDeclined();
+      minute.setRate(decided == 0 ? null : (double) minute.getAuthorized() / decided);
+      authorizationRate.add(minute);
+    }
+
+    PaymentAggregatesDTO result = new PaymentAggregatesDTO();
+    result.setTotals(totals);
+    result.setAuthorizationRate(authorizationRate);
+    return result;
+  }
+}
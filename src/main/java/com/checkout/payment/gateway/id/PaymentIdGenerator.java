@@ -0,0 +1,12 @@
+package com.checkout.payment.gateway.id;
+
+import java.util.UUID;
+
+/**
+ * Source of ids for newly processed payments. Ids are returned by the POST endpoint and are the only thing needed to read a
+ * payment back, so implementations must not be guessable from previously issued ids.
+ */
+public interface PaymentIdGenerator {
+
+  UUID nextId();
+}
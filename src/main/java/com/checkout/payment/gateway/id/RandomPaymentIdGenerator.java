@@ -0,0 +1,16 @@
+package com.checkout.payment.gateway.id;
+
+import java.util.UUID;
+
+/**
+ * Version 4 ids from {@link UUID#randomUUID()}. Every call draws from the JDK's shared {@code SecureRandom}, so generation
+ * serializes under contention and consecutive ids have no locality. They carry no creation time either, so the gateway only uses
+ * them as a benchmark baseline.
+ */
+public class RandomPaymentIdGenerator implements PaymentIdGenerator {
+
+  @Override
+  public UUID nextId() {
+    return UUID.randomUUID();
+  }
+}
@@ -0,0 +1,121 @@
+package com.checkout.payment.gateway.id;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Version 7 (RFC 9562) ids: a 48-bit Unix millisecond timestamp followed by 74 random bits. Ids issued in different milliseconds
+ * sort by creation time, so recent payments cluster together in any ordered index.
+ *
+ * <p>The random bits come from DRBG {@link SecureRandom} instances, so an id cannot be derived from ids issued before it. Instead of
+ * one shared generator there is a stripe of them, each refilling a buffer in bulk. A thread starts at the stripe picked by its id
+ * and moves on to the next one if that stripe is busy, so with up to {@link #stripes()} threads each one effectively owns its
+ * entropy source. Stripes rather than thread locals keep this cheap on virtual threads, which would each seed a new generator.
+ */
+public class TimeOrderedPaymentIdGenerator implements PaymentIdGenerator {
+
+  private static final int BUFFER_SIZE = 1024;
+  private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+  private static final long VERSION = 0x7000L;
+  private static final long VARIANT = 0x8000000000000000L;
+
+  private final Clock clock;
+
+  private final EntropyStripe[] stripes;
+
+  public TimeOrderedPaymentIdGenerator() {
+    this(Clock.systemUTC());
+  }
+
+  TimeOrderedPaymentIdGenerator(Clock clock) {
+    this.clock = clock;
+    int stripeCount = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)) << 1;
+    this.stripes = new EntropyStripe[stripeCount];
+    for (int i = 0; i < stripeCount; i++) {
+      stripes[i] = new EntropyStripe();
+    }
+  }
+
+  @Override
+  public UUID nextId() {
+    long timestamp = clock.millis();
+    EntropyStripe stripe = acquireStripe();
+    long randomA;
+    long randomB;
+    try {
+      randomA = stripe.nextLong();
+      randomB = stripe.nextLong();
+    } finally {
+      stripe.lock.unlock();
+    }
+    long mostSignificantBits = (timestamp << 16) | VERSION | (randomA & 0xfffL);
+    long leastSignificantBits = VARIANT | (randomB & 0x3fffffffffffffffL);
+    return new UUID(mostSignificantBits, leastSignificantBits);
+  }
+
+  /**
+   * Returns the creation time in epoch milliseconds carried by a version 7 id, or 0 for ids that carry none.
+   */
+  public static long timestampOf(UUID id) {
+    return id.version() == 7 ? id.getMostSignificantBits() >>> 16 : 0;
+  }
+
+  int stripes() {
+    return stripes.length;
+  }
+
+  private EntropyStripe acquireStripe() {
+    int mask = stripes.length - 1;
+    int start = (int) mix(Thread.currentThread().threadId()) & mask;
+    for (int i = 0; i <= mask; i++) {
+      EntropyStripe stripe = stripes[(start + i) & mask];
+      if (stripe.lock.tryLock()) {
+        return stripe;
+      }
+    }
+    EntropyStripe stripe = stripes[start];
+    stripe.lock.lock();
+    return stripe;
+  }
+
+  private static long mix(long value) {
+    value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+    return value ^ (value >>> 33);
+  }
+
+  private static final class EntropyStripe {
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final SecureRandom random;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    private int position = BUFFER_SIZE;
+
+    EntropyStripe() {
+      try {
+        random = SecureRandom.getInstance("DRBG");
+      } catch (NoSuchAlgorithmException e) {
+        throw new IllegalStateException("DRBG SecureRandom is not available", e);
+      }
+    }
+
+    long nextLong() {
+      if (position == BUFFER_SIZE) {
+        random.nextBytes(buffer);
+        position = 0;
+      }
+      long value = (long) LONGS.get(buffer, position);
+      position += Long.BYTES;
+      return value;
+    }
+  }
+}
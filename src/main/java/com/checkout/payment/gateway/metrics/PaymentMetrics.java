@@ -0,0 +1,113 @@
+package com.checkout.payment.gateway.metrics;
+
+import com.checkout.payment.gateway.client.AcquiringBankClient;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.exception.AcquiringBankTimeoutException;
+import com.checkout.payment.gateway.exception.AcquiringBankUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-stage timings and outcome counts for payment processing.
+ *
+ * <p>Every meter is registered up front and looked up by array index, so recording is a plain {@link Timer#record} or
+ * {@link Counter#increment} with no tag lookup or allocation. Callers timing a reactive stage still pay for the callback that
+ * captures its start time; see {@code PaymentGatewayService}.
+ */
+@Component
+public class PaymentMetrics {
+
+  public enum Stage {
+    VALIDATION,
+    MAPPING,
+    AUTHORIZATION,
+    STORAGE
+  }
+
+  private static final Duration MAX_EXPECTED_DURATION = Duration.ofSeconds(30);
+
+  private final Timer[] stageTimers = new Timer[Stage.values().length];
+
+  private final Counter[] processed = new Counter[PaymentStatus.values().length];
+
+  private final Counter unavailable;
+
+  private final Counter timedOut;
+
+  private final Counter failed;
+
+  private final AtomicInteger inFlight = new AtomicInteger();
+
+  public PaymentMetrics(MeterRegistry registry, AcquiringBankClient acquiringBankClient) {
+    for (Stage stage : Stage.values()) {
+      stageTimers[stage.ordinal()] = Timer.builder("payments.stage.duration")
+          .description("Time spent in each stage of processing a payment")
+          .tag("stage", stage.name().toLowerCase(Locale.ROOT))
+          .publishPercentileHistogram()
+          .maximumExpectedValue(MAX_EXPECTED_DURATION)
+          .register(registry);
+    }
+    for (PaymentStatus status : PaymentStatus.values()) {
+      processed[status.ordinal()] = Counter.builder("payments.processed")
+          .description("Payments processed, by resulting status")
+          .tag("status", status.name().toLowerCase(Locale.ROOT))
+          .register(registry);
+    }
+    unavailable = failedCounter(registry, "unavailable");
+    timedOut = failedCounter(registry, "timeout");
+    failed = failedCounter(registry, "error");
+
+    Gauge.builder("payments.in.flight", inFlight, AtomicInteger::get)
+        .description("Payments accepted and not yet completed")
+        .register(registry);
+    FunctionCounter.builder("acquiring.bank.errors", acquiringBankClient, AcquiringBankClient::getErrorCount)
+        .description("Acquiring bank calls that failed, by cause")
+        .tag("cause", "error")
+        .register(registry);
+    FunctionCounter.builder("acquiring.bank.errors", acquiringBankClient, AcquiringBankClient::getTimeoutCount)
+        .description("Acquiring bank calls that failed, by cause")
+        .tag("cause", "timeout")
+        .register(registry);
+  }
+
+  public void recordStage(Stage stage, long startedNanos) {
+    stageTimers[stage.ordinal()].record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+  }
+
+  public void paymentStarted() {
+    inFlight.incrementAndGet();
+  }
+
+  public void paymentFinished() {
+    inFlight.decrementAndGet();
+  }
+
+  public void paymentProcessed(PaymentStatus status) {
+    processed[status.ordinal()].increment();
+  }
+
+  public void paymentFailed(Throwable error) {
+    if (error instanceof AcquiringBankUnavailableException) {
+      unavailable.increment();
+    } else if (error instanceof AcquiringBankTimeoutException) {
+      timedOut.increment();
+    } else {
+      failed.increment();
+    }
+  }
+
+  private static Counter failedCounter(MeterRegistry registry, String cause) {
+    return Counter.builder("payments.failed")
+        .description("Payments that could not be processed, by cause")
+        .tag("cause", cause)
+        .register(registry);
+  }
+}
@@ -2,6 +2,7 @@ package com.checkout.payment.gateway.model;
 
 import lombok.Data;
 
+import com.checkout.payment.gateway.enums.Currency;
 import com.checkout.payment.gateway.enums.PaymentStatus;
 import java.util.UUID;
 
@@ -13,6 +14,6 @@ public class Payment {
   private int cardNumberLastFour;
   private int expiryMonth;
   private int expiryYear;
-  private String currency;
+  private Currency currency;
   private int amount;
 }
@@ -0,0 +1,43 @@
+package com.checkout.payment.gateway.repository;
+
+import com.checkout.payment.gateway.model.Payment;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps payments as objects in a pre-sized {@link ConcurrentHashMap}. Reads are lock-free and writes only contend on the bin
+ * they hash to.
+ */
+public class HeapPaymentStore implements PaymentStore {
+
+  private final ConcurrentHashMap<UUID, Payment> payments;
+
+  public HeapPaymentStore(int initialCapacity) {
+    this.payments = new ConcurrentHashMap<>(initialCapacity);
+  }
+
+  @Override
+  public Payment put(Payment payment) {
+    Payment previous = payments.put(payment.getId(), payment);
+    // Putting the same instance back leaves the map as it was, so rejecting it here changes nothing
+    if (previous == payment) {
+      throw new IllegalArgumentException("Payment " + payment.getId() + " was changed in place; store a copy instead");
+    }
+    return previous;
+  }
+
+  @Override
+  public Payment get(UUID id) {
+    return payments.get(id);
+  }
+
+  @Override
+  public boolean remove(UUID id) {
+    return payments.remove(id) != null;
+  }
+
+  @Override
+  public int size() {
+    return payments.size();
+  }
+}
@@ -0,0 +1,106 @@
+package com.checkout.payment.gateway.repository;
+
+import com.checkout.payment.gateway.dto.PostPaymentResponseDTO;
+import com.checkout.payment.gateway.exception.IdempotencyKeyConflictException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Bounded, time-expiring index of idempotency keys to the response of the payment they created.
+ *
+ * <p>Keys expire a fixed time after they are first seen, so insertion order is also expiry order and eviction only ever looks at the
+ * oldest keys. A request whose key is still being processed joins the pending result instead of reaching the bank a second time.
+ */
+@Repository
+public class IdempotencyKeysRepository {
+
+  private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+  private final ConcurrentLinkedQueue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+
+  private final int maxKeys;
+
+  private final long ttlNanos;
+
+  public IdempotencyKeysRepository(@Value("${payments.idempotency.max-keys:100000}") int maxKeys,
+      @Value("${payments.idempotency.ttl:24h}") Duration ttl) {
+    this.maxKeys = maxKeys;
+    this.ttlNanos = ttl.toNanos();
+  }
+
+  /**
+   * Returns the response already recorded for {@code key}, or subscribes to {@code processor} and records its result. Processing is
+   * not cancelled when the caller goes away, so a retry can still pick the result up. Failed attempts are forgotten so they can be
+   * retried, including a {@code processor} that throws instead of returning a failed {@link Mono}.
+   *
+   * <p>{@code requestFingerprint} identifies the request body, for example {@link
+   * com.checkout.payment.gateway.dto.PostPaymentRequestDTO#fingerprint()}; a key reused with a different fingerprint is a conflict.
+   * It is compared in full, so it must be collision-resistant.
+   */
+  public Mono<PostPaymentResponseDTO> getOrProcess(String key, byte[] requestFingerprint,
+      Supplier<Mono<PostPaymentResponseDTO>> processor) {
+    evictExpired();
+
+    Entry entry = new Entry(key, requestFingerprint, System.nanoTime() + ttlNanos);
+    Entry existing = entries.putIfAbsent(key, entry);
+    if (existing != null) {
+      if (!MessageDigest.isEqual(existing.requestFingerprint, requestFingerprint)) {
+        return Mono.error(new IdempotencyKeyConflictException("Idempotency key was already used for a different payment"));
+      }
+      return Mono.fromFuture(existing.response.copy());
+    }
+
+    insertionOrder.add(entry);
+    Mono.defer(processor).subscribe(
+        entry.response::complete,
+        error -> {
+          // Failed entries no longer count towards the capacity, so they must leave the eviction queue as well
+          entries.remove(key, entry);
+          insertionOrder.remove(entry);
+          entry.response.completeExceptionally(error);
+        });
+    return Mono.fromFuture(entry.response.copy());
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Number of keys waiting in the eviction queue, which is at least {@link #size()}. Walks the whole queue.
+   */
+  int queuedKeys() {
+    return insertionOrder.size();
+  }
+
+  private void evictExpired() {
+    long now = System.nanoTime();
+    Entry oldest;
+    while ((oldest = insertionOrder.peek()) != null && (oldest.expiresAt - now <= 0 || entries.size() > maxKeys)) {
+      if (insertionOrder.remove(oldest)) {
+        entries.remove(oldest.key, oldest);
+      }
+    }
+  }
+
+  private static final class Entry {
+
+    private final String key;
+    private final byte[] requestFingerprint;
+    private final long expiresAt;
+    private final CompletableFuture<PostPaymentResponseDTO> response = new CompletableFuture<>();
+
+    private Entry(String key, byte[] requestFingerprint, long expiresAt) {
+      this.key = key;
+      this.requestFingerprint = requestFingerprint;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
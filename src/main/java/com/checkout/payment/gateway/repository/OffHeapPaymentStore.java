@@ -0,0 +1,330 @@
+package com.checkout.payment.gateway.repository;
+
+import com.checkout.payment.gateway.enums.Currency;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.Payment;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Packs payments into fixed-size slots in direct memory so that a large store adds almost nothing for the garbage collector to
+ * trace. {@link Payment} objects are only materialised by {@link #get}.
+ *
+ * <pre>
+ *  0  id (most significant bits)    long
+ *  8  id (least significant bits)   long
+ * 16  amount                        int
+ * 20  card number last four         int
+ * 24  expiry year                   short
+ * 26  expiry month                  short
+ * 28  status ordinal                byte
+ * 29  currency ordinal              byte
+ * </pre>
+ *
+ * <p>The store is split into segments by id hash. Each segment has its own open-addressing (linear probing) index from id to
+ * slot number, guarded by a {@link StampedLock}: writers take the write lock, readers use an optimistic read and only fall back
+ * to the read lock if a writer got in the way.
+ */
+public class OffHeapPaymentStore implements PaymentStore {
+
+  static final int SLOT_SIZE = 32;
+
+  private static final int ID_MOST_SIGNIFICANT_BITS = 0;
+  private static final int ID_LEAST_SIGNIFICANT_BITS = 8;
+  private static final int AMOUNT = 16;
+  private static final int CARD_NUMBER_LAST_FOUR = 20;
+  private static final int EXPIRY_YEAR = 24;
+  private static final int EXPIRY_MONTH = 26;
+  private static final int STATUS = 28;
+  private static final int CURRENCY = 29;
+
+  private static final int SEGMENT_SHIFT = 4;
+  private static final int SEGMENTS = 1 << SEGMENT_SHIFT;
+  private static final int CHUNK_SHIFT = 14;
+  private static final int CHUNK_SLOTS = 1 << CHUNK_SHIFT;
+  private static final int MIN_INDEX_CAPACITY = 16;
+
+  private static final PaymentStatus[] STATUSES = PaymentStatus.values();
+  private static final Currency[] CURRENCIES = Currency.values();
+
+  private final Segment[] segments = new Segment[SEGMENTS];
+
+  public OffHeapPaymentStore(int initialCapacity) {
+    int indexCapacity = Math.max(MIN_INDEX_CAPACITY, Integer.highestOneBit(Math.max(1, initialCapacity / SEGMENTS)) << 2);
+    for (int i = 0; i < SEGMENTS; i++) {
+      segments[i] = new Segment(indexCapacity);
+    }
+  }
+
+  @Override
+  public Payment put(Payment payment) {
+    long mostSignificantBits = payment.getId().getMostSignificantBits();
+    long leastSignificantBits = payment.getId().getLeastSignificantBits();
+    int hash = hash(mostSignificantBits, leastSignificantBits);
+    return segmentFor(hash).put(mostSignificantBits, leastSignificantBits, hash, payment);
+  }
+
+  @Override
+  public Payment get(UUID id) {
+    long mostSignificantBits = id.getMostSignificantBits();
+    long leastSignificantBits = id.getLeastSignificantBits();
+    int hash = hash(mostSignificantBits, leastSignificantBits);
+    return segmentFor(hash).get(mostSignificantBits, leastSignificantBits, hash);
+  }
+
+  @Override
+  public boolean remove(UUID id) {
+    long mostSignificantBits = id.getMostSignificantBits();
+    long leastSignificantBits = id.getLeastSignificantBits();
+    int hash = hash(mostSignificantBits, leastSignificantBits);
+    return segmentFor(hash).remove(mostSignificantBits, leastSignificantBits, hash);
+  }
+
+  @Override
+  public int size() {
+    int size = 0;
+    for (Segment segment : segments) {
+      size += segment.size();
+    }
+    return size;
+  }
+
+  /**
+   * Direct memory reserved for slots, whether in use or free.
+   */
+  public long offHeapBytes() {
+    long bytes = 0;
+    for (Segment segment : segments) {
+      bytes += segment.offHeapBytes();
+    }
+    return bytes;
+  }
+
+  private Segment segmentFor(int hash) {
+    return segments[hash >>> (Integer.SIZE - SEGMENT_SHIFT)];
+  }
+
+  private static int hash(long mostSignificantBits, long leastSignificantBits) {
+    long hash = mostSignificantBits ^ leastSignificantBits;
+    hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+    hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+    return (int) (hash ^ (hash >>> 33));
+  }
+
+  private static final class Segment {
+
+    private final StampedLock lock = new StampedLock();
+
+    // Slot number + 1 per index position, 0 marks an empty position
+    private int[] index;
+    private ByteBuffer[] chunks = new ByteBuffer[1];
+    private int allocatedSlots;
+    private int[] freeSlots = new int[MIN_INDEX_CAPACITY];
+    private int freeSlotCount;
+    private int size;
+
+    Segment(int indexCapacity) {
+      this.index = new int[indexCapacity];
+    }
+
+    Payment get(long mostSignificantBits, long leastSignificantBits, int hash) {
+      long stamp = lock.tryOptimisticRead();
+      Payment payment = null;
+      try {
+        payment = find(mostSignificantBits, leastSignificantBits, hash);
+      } catch (RuntimeException e) {
+        // A read racing a writer can see a half-updated index or slot and fail in arbitrary ways; validation below fails
+        // and we retry under the read lock
+      }
+      if (lock.validate(stamp)) {
+        return payment;
+      }
+
+      stamp = lock.readLock();
+      try {
+        return find(mostSignificantBits, leastSignificantBits, hash);
+      } finally {
+        lock.unlockRead(stamp);
+      }
+    }
+
+    Payment put(long mostSignificantBits, long leastSignificantBits, int hash, Payment payment) {
+      long stamp = lock.writeLock();
+      try {
+        int position = position(mostSignificantBits, leastSignificantBits, hash);
+        Payment previous = position >= 0 ? read(index[position] - 1, mostSignificantBits, leastSignificantBits) : null;
+        int slot = position >= 0 ? index[position] - 1 : allocateSlot();
+        ByteBuffer chunk = chunks[slot >>> CHUNK_SHIFT];
+        int offset = (slot & (CHUNK_SLOTS - 1)) * SLOT_SIZE;
+        chunk.putLong(offset + ID_MOST_SIGNIFICANT_BITS, mostSignificantBits);
+        chunk.putLong(offset + ID_LEAST_SIGNIFICANT_BITS, leastSignificantBits);
+        chunk.putInt(offset + AMOUNT, payment.getAmount());
+        chunk.putInt(offset + CARD_NUMBER_LAST_FOUR, payment.getCardNumberLastFour());
+        chunk.putShort(offset + EXPIRY_YEAR, (short) payment.getExpiryYear());
+        chunk.putShort(offset + EXPIRY_MONTH, (short) payment.getExpiryMonth());
+        chunk.put(offset + STATUS, (byte) payment.getStatus().ordinal());
+        chunk.put(offset + CURRENCY, (byte) payment.getCurrency().ordinal());
+
+        if (position < 0) {
+          index[-position - 1] = slot + 1;
+          if (++size * 2 > index.length) {
+            resize();
+          }
+        }
+        return previous;
+      } finally {
+        lock.unlockWrite(stamp);
+      }
+    }
+
+    boolean remove(long mostSignificantBits, long leastSignificantBits, int hash) {
+      long stamp = lock.writeLock();
+      try {
+        int position = position(mostSignificantBits, leastSignificantBits, hash);
+        if (position < 0) {
+          return false;
+        }
+        freeSlot(index[position] - 1);
+        shiftBackFrom(position);
+        size--;
+        return true;
+      } finally {
+        lock.unlockWrite(stamp);
+      }
+    }
+
+    int size() {
+      long stamp = lock.readLock();
+      try {
+        return size;
+      } finally {
+        lock.unlockRead(stamp);
+      }
+    }
+
+    long offHeapBytes() {
+      long stamp = lock.readLock();
+      try {
+        return (long) Math.ceilDiv(allocatedSlots, CHUNK_SLOTS) * CHUNK_SLOTS * SLOT_SIZE;
+      } finally {
+        lock.unlockRead(stamp);
+      }
+    }
+
+    private Payment find(long mostSignificantBits, long leastSignificantBits, int hash) {
+      int position = position(mostSignificantBits, leastSignificantBits, hash);
+      if (position < 0) {
+        return null;
+      }
+      return read(index[position] - 1, mostSignificantBits, leastSignificantBits);
+    }
+
+    private Payment read(int slot, long mostSignificantBits, long leastSignificantBits) {
+      ByteBuffer chunk = chunks[slot >>> CHUNK_SHIFT];
+      int offset = (slot & (CHUNK_SLOTS - 1)) * SLOT_SIZE;
+
+      Payment payment = new Payment();
+      payment.setId(new UUID(mostSignificantBits, leastSignificantBits));
+      payment.setAmount(chunk.getInt(offset + AMOUNT));
+      payment.setCardNumberLastFour(chunk.getInt(offset + CARD_NUMBER_LAST_FOUR));
+      payment.setExpiryYear(chunk.getShort(offset + EXPIRY_YEAR));
+      payment.setExpiryMonth(chunk.getShort(offset + EXPIRY_MONTH));
+      payment.setStatus(STATUSES[chunk.get(offset + STATUS)]);
+      payment.setCurrency(CURRENCIES[chunk.get(offset + CURRENCY)]);
+      return payment;
+    }
+
+    /**
+     * Returns the index position holding the id, or {@code -(insertion position) - 1} if it is absent. The probe is bounded so
+     * that an optimistic reader looking at a half-updated index cannot spin forever.
+     */
+    private int position(long mostSignificantBits, long leastSignificantBits, int hash) {
+      int[] table = index;
+      int mask = table.length - 1;
+      int position = hash & mask;
+      for (int probes = 0; probes < table.length; probes++) {
+        int entry = table[position];
+        if (entry == 0) {
+          return -position - 1;
+        }
+        int slot = entry - 1;
+        ByteBuffer chunk = chunks[slot >>> CHUNK_SHIFT];
+        int offset = (slot & (CHUNK_SLOTS - 1)) * SLOT_SIZE;
+        if (chunk.getLong(offset + ID_MOST_SIGNIFICANT_BITS) == mostSignificantBits
+            && chunk.getLong(offset + ID_LEAST_SIGNIFICANT_BITS) == leastSignificantBits) {
+          return position;
+        }
+        position = (position + 1) & mask;
+      }
+      throw new IndexOutOfBoundsException("Index is full");
+    }
+
+    private int hashAt(int slot) {
+      ByteBuffer chunk = chunks[slot >>> CHUNK_SHIFT];
+      int offset = (slot & (CHUNK_SLOTS - 1)) * SLOT_SIZE;
+      return hash(chunk.getLong(offset + ID_MOST_SIGNIFICANT_BITS), chunk.getLong(offset + ID_LEAST_SIGNIFICANT_BITS));
+    }
+
+    private int allocateSlot() {
+      if (freeSlotCount > 0) {
+        return freeSlots[--freeSlotCount];
+      }
+      int slot = allocatedSlots++;
+      int chunk = slot >>> CHUNK_SHIFT;
+      if (chunk == chunks.length) {
+        chunks = Arrays.copyOf(chunks, chunks.length * 2);
+      }
+      if (chunks[chunk] == null) {
+        chunks[chunk] = ByteBuffer.allocateDirect(CHUNK_SLOTS * SLOT_SIZE).order(ByteOrder.nativeOrder());
+      }
+      return slot;
+    }
+
+    private void freeSlot(int slot) {
+      if (freeSlotCount == freeSlots.length) {
+        freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+      }
+      freeSlots[freeSlotCount++] = slot;
+    }
+
+    /**
+     * Backward-shift deletion: moves later entries of the probe run into the hole so that lookups never need tombstones.
+     */
+    private void shiftBackFrom(int hole) {
+      int mask = index.length - 1;
+      int position = hole;
+      while (true) {
+        position = (position + 1) & mask;
+        int entry = index[position];
+        if (entry == 0) {
+          break;
+        }
+        int home = hashAt(entry - 1) & mask;
+        boolean reachable = hole <= position ? hole < home && home <= position : hole < home || home <= position;
+        if (!reachable) {
+          index[hole] = entry;
+          hole = position;
+        }
+      }
+      index[hole] = 0;
+    }
+
+    private void resize() {
+      int[] resized = new int[index.length * 2];
+      int mask = resized.length - 1;
+      for (int entry : index) {
+        if (entry != 0) {
+          int position = hashAt(entry - 1) & mask;
+          while (resized[position] != 0) {
+            position = (position + 1) & mask;
+          }
+          resized[position] = entry;
+        }
+      }
+      index = resized;
+    }
+  }
+}
@@ -0,0 +1,155 @@
+package com.checkout.payment.gateway.repository;
+
+import com.checkout.payment.gateway.enums.Currency;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.Payment;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Totals over the payments in {@link PaymentsRepository}, kept up to date as payments are stored so that reading them costs the
+ * same however many payments are held.
+ *
+ * <p>Count and amount totals are kept per status and currency in {@link LongAdder}s indexed by ordinal. They cover every payment
+ * stored since startup, including payments replayed from the journal and payments later retired by the retention policy. A
+ * payment stored again with a new status moves from its old total to its new one.
+ *
+ * <p>Per-minute outcome counts are kept in a ring of one-minute buckets covering the last {@code windowMinutes} minutes. A bucket is
+ * replaced, not cleared, when its minute comes round again, so writers never have to reset counters that others are adding to.
+ */
+@Component
+public class PaymentAggregates {
+
+  private static final long MINUTE_MILLIS = 60_000;
+
+  private static final PaymentStatus[] STATUSES = PaymentStatus.values();
+  private static final Currency[] CURRENCIES = Currency.values();
+
+  private final LongAdder[] counts = newAdders(STATUSES.length * CURRENCIES.length);
+
+  private final LongAdder[] amounts = newAdders(STATUSES.length * CURRENCIES.length);
+
+  private final int windowMinutes;
+
+  private final AtomicReferenceArray<MinuteBucket> minutes;
+
+  private final LongSupplier currentMillis;
+
+  @Autowired
+  public PaymentAggregates(@Value("${payments.aggregates.window:60m}") Duration window) {
+    this((int) Math.max(1, window.toMinutes()), System::currentTimeMillis);
+  }
+
+  PaymentAggregates(int windowMinutes, LongSupplier currentMillis) {
+    this.windowMinutes = windowMinutes;
+    this.minutes = new AtomicReferenceArray<>(windowMinutes);
+    this.currentMillis = currentMillis;
+  }
+
+  public long count(PaymentStatus status, Currency currency) {
+    return counts[slot(status, currency)].sum();
+  }
+
+  public long amount(PaymentStatus status, Currency currency) {
+    return amounts[slot(status, currency)].sum();
+  }
+
+  /**
+   * Returns the outcome counts of the last {@code windowMinutes} minutes, oldest first, ending with the current partial minute.
+   */
+  public List<MinuteOutcomes> lastMinutes() {
+    long currentMinute = currentMillis.getAsLong() / MINUTE_MILLIS;
+    List<MinuteOutcomes> outcomes = new ArrayList<>(windowMinutes);
+    for (long minute = currentMinute - windowMinutes + 1; minute <= currentMinute; minute++) {
+      MinuteBucket bucket = minutes.get(bucketIndex(minute));
+      long[] byStatus = new long[STATUSES.length];
+      if (bucket != null && bucket.minute == minute) {
+        for (int i = 0; i < byStatus.length; i++) {
+          byStatus[i] = bucket.byStatus[i].sum();
+        }
+      }
+      outcomes.add(new MinuteOutcomes(Instant.ofEpochMilli(minute * MINUTE_MILLIS), byStatus));
+    }
+    return outcomes;
+  }
+
+  /**
+   * Moves {@code payment} into its status and currency totals, and out of those of the payment it replaced, if any.
+   */
+  void record(Payment payment, Payment previous) {
+    if (previous != null) {
+      int previousSlot = slot(previous.getStatus(), previous.getCurrency());
+      counts[previousSlot].decrement();
+      amounts[previousSlot].add(-previous.getAmount());
+    }
+    int slot = slot(payment.getStatus(), payment.getCurrency());
+    counts[slot].increment();
+    amounts[slot].add(payment.getAmount());
+  }
+
+  /**
+   * Counts an outcome reached just now towards the current minute.
+   */
+  void recordOutcome(PaymentStatus status) {
+    long minute = currentMillis.getAsLong() / MINUTE_MILLIS;
+    int index = bucketIndex(minute);
+    MinuteBucket bucket = minutes.get(index);
+    while (bucket == null || bucket.minute < minute) {
+      MinuteBucket fresh = new MinuteBucket(minute);
+      if (minutes.compareAndSet(index, bucket, fresh)) {
+        bucket = fresh;
+      } else {
+        bucket = minutes.get(index);
+      }
+    }
+    // A bucket from a later minute means this writer was descheduled across a minute boundary; its minute is already reported
+    if (bucket.minute == minute) {
+      bucket.byStatus[status.ordinal()].increment();
+    }
+  }
+
+  private int bucketIndex(long minute) {
+    return (int) Math.floorMod(minute, (long) windowMinutes);
+  }
+
+  private static int slot(PaymentStatus status, Currency currency) {
+    return status.ordinal() * CURRENCIES.length + currency.ordinal();
+  }
+
+  private static LongAdder[] newAdders(int count) {
+    LongAdder[] adders = new LongAdder[count];
+    for (int i = 0; i < count; i++) {
+      adders[i] = new LongAdder();
+    }
+    return adders;
+  }
+
+  /**
+   * Number of payments that reached each status during the minute starting at {@code start}, indexed by status ordinal.
+   */
+  public record MinuteOutcomes(Instant start, long[] byStatus) {
+
+    public long count(PaymentStatus status) {
+      return byStatus[status.ordinal()];
+    }
+  }
+
+  private static final class MinuteBucket {
+
+    private final long minute;
+
+    private final LongAdder[] byStatus = newAdders(STATUSES.length);
+
+    MinuteBucket(long minute) {
+      this.minute = minute;
+    }
+  }
+}
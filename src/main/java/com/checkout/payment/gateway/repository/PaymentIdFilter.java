@@ -0,0 +1,193 @@
+package com.checkout.payment.gateway.repository;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * A Bloom filter over the ids in {@link PaymentsRepository}, answering "definitely absent" for most unknown ids without reading
+ * the {@link PaymentStore}.
+ *
+ * <p>It is sized for {@code expectedPayments} ids at {@code falsePositiveRate}. Bits are only ever set, with an atomic OR, so adds
+ * and lookups run concurrently without locks. An id is added before its payment is stored, so a lookup that races with an add
+ * can only see the payment as absent if it would have missed it in the store too.
+ *
+ * <p>Ids cannot be removed, so payments retired by the retention policy keep their bits, and holding more than
+ * {@code expectedPayments} ids raises the false-positive rate. Both show up in the estimated rate published as a metric.
+ * {@link #rebuild} starts over from the payments actually held, sized for at least that many.
+ */
+@Component
+public class PaymentIdFilter implements MeterBinder {
+
+  private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+  private static final double LN2 = Math.log(2);
+
+  private final int expectedPayments;
+
+  private final double falsePositiveRate;
+
+  private final LongAdder absent = new LongAdder();
+
+  private final LongAdder falsePositives = new LongAdder();
+
+  private volatile Bits bits;
+
+  @Autowired
+  public PaymentIdFilter(@Value("${payments.repository.id-filter.expected-payments:1000000}") int expectedPayments,
+      @Value("${payments.repository.id-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+    if (expectedPayments < 1) {
+      throw new IllegalArgumentException("Expected payments must be positive");
+    }
+    if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+      throw new IllegalArgumentException("False-positive rate must be between 0 and 1");
+    }
+    this.expectedPayments = expectedPayments;
+    this.falsePositiveRate = falsePositiveRate;
+    this.bits = Bits.sizedFor(expectedPayments, falsePositiveRate);
+  }
+
+  public void add(UUID id) {
+    bits.add(id);
+  }
+
+  /**
+   * Returns false only if {@code id} was never added since the last {@link #rebuild}.
+   */
+  public boolean mightContain(UUID id) {
+    if (bits.mightContain(id)) {
+      return true;
+    }
+    absent.increment();
+    return false;
+  }
+
+  /**
+   * Records that an id {@link #mightContain} passed turned out not to be stored.
+   */
+  public void falsePositive() {
+    falsePositives.increment();
+  }
+
+  /**
+   * Replaces the filter with one holding only {@code ids}. It must not run concurrently with {@link #add}, since ids added meanwhile
+   * could be lost.
+   */
+  public void rebuild(int count, Stream<UUID> ids) {
+    Bits rebuilt = Bits.sizedFor(Math.max(expectedPayments, count), falsePositiveRate);
+    ids.forEach(rebuilt::add);
+    bits = rebuilt;
+  }
+
+  /**
+   * The false-positive rate expected from the bits set so far: the chance that every bit an unknown id maps to is set.
+   */
+  public double estimatedFalsePositiveRate() {
+    Bits current = bits;
+    return Math.pow((double) current.setBits.sum() / current.bitCount, current.hashes);
+  }
+
+  long bitCount() {
+    return bits.bitCount;
+  }
+
+  int hashes() {
+    return bits.hashes;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("payments.repository.id-filter.false-positive-rate", this, PaymentIdFilter::estimatedFalsePositiveRate)
+        .description("Estimated chance that the id filter passes an unknown payment id through to the store")
+        .register(registry);
+    FunctionCounter.builder("payments.repository.id-filter.lookups", absent, LongAdder::sum)
+        .description("Payment lookups answered by the id filter")
+        .tag("result", "absent")
+        .register(registry);
+    FunctionCounter.builder("payments.repository.id-filter.lookups", falsePositives, LongAdder::sum)
+        .description("Payment lookups answered by the id filter")
+        .tag("result", "false-positive")
+        .register(registry);
+  }
+
+  private static final class Bits {
+
+    private final long[] words;
+
+    private final long bitCount;
+
+    private final int hashes;
+
+    private final LongAdder setBits = new LongAdder();
+
+    private Bits(long bitCount, int hashes) {
+      long wordCount = (bitCount + Long.SIZE - 1) / Long.SIZE;
+      if (wordCount > Integer.MAX_VALUE - 8) {
+        throw new IllegalArgumentException("Id filter would need %d bits".formatted(bitCount));
+      }
+      this.words = new long[(int) wordCount];
+      this.bitCount = wordCount * Long.SIZE;
+      this.hashes = hashes;
+    }
+
+    /**
+     * The standard optimum: {@code -n ln p / (ln 2)^2} bits and {@code (m / n) ln 2} hash functions.
+     */
+    static Bits sizedFor(int expected, double falsePositiveRate) {
+      long bitCount = (long) Math.ceil(-expected * Math.log(falsePositiveRate) / (LN2 * LN2));
+      int hashes = Math.max(1, (int) Math.round((double) bitCount / expected * LN2));
+      return new Bits(Math.max(Long.SIZE, bitCount), hashes);
+    }
+
+    void add(UUID id) {
+      long h1 = hash1(id);
+      long h2 = hash2(h1);
+      for (int i = 0; i < hashes; i++) {
+        long bit = Math.unsignedMultiplyHigh(h1 + i * h2, bitCount);
+        int word = (int) (bit >>> 6);
+        long mask = 1L << bit;
+        // Reading first keeps ids whose bits are already set from contending on the cache line
+        if (((long) WORDS.getAcquire(words, word) & mask) == 0 && ((long) WORDS.getAndBitwiseOr(words, word, mask) & mask) == 0) {
+          setBits.increment();
+        }
+      }
+    }
+
+    boolean mightContain(UUID id) {
+      long h1 = hash1(id);
+      long h2 = hash2(h1);
+      for (int i = 0; i < hashes; i++) {
+        long bit = Math.unsignedMultiplyHigh(h1 + i * h2, bitCount);
+        if (((long) WORDS.getAcquire(words, (int) (bit >>> 6)) & (1L << bit)) == 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    // Time-ordered ids share their leading bits, so both halves are mixed before the bit positions are derived
+    private static long hash1(UUID id) {
+      return mix(id.getMostSignificantBits() ^ mix(id.getLeastSignificantBits()));
+    }
+
+    private static long hash2(long h1) {
+      return mix(h1 + 0x9E3779B97F4A7C15L) | 1;
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+      z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+      z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+      return z ^ (z >>> 31);
+    }
+  }
+}
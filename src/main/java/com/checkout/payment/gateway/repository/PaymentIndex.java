@@ -0,0 +1,138 @@
+package com.checkout.payment.gateway.repository;
+
+import com.checkout.payment.gateway.enums.Currency;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.id.TimeOrderedPaymentIdGenerator;
+import com.checkout.payment.gateway.model.Payment;
+import java.util.NavigableSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
+
+/**
+ * Secondary indexes over the payments in a {@link PaymentStore}: one over every payment and one per status and per currency.
+ *
+ * <p>Every index is a skip list ordered by creation time and then id, so any of them answers a creation-time range or resumes
+ * from a cursor with a seek instead of a scan. Creation time is read from the id, which makes an entry's position depend on
+ * nothing but the id: a payment can be moved between indexes without knowing how it was indexed before. This relies on every id
+ * being a UUIDv7, which is why the {@code random} id generator is refused at startup.
+ *
+ * <p>Each payment costs three skip-list entries, one in {@code all} and one each in its status and currency index, sharing one
+ * {@code Key} and its {@link UUID}: about 160 bytes of heap per payment with compressed oops, whichever {@link PaymentStore}
+ * holds the payment itself. {@code PaymentStoreFootprintLoadTest} measures it.
+ */
+final class PaymentIndex {
+
+  private static final UUID LOWEST_ID = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
+
+  private final NavigableSet<Key> all = new ConcurrentSkipListSet<>();
+
+  private final NavigableSet<Key>[] byStatus = newIndexes(PaymentStatus.values().length);
+
+  private final NavigableSet<Key>[] byCurrency = newIndexes(Currency.values().length);
+
+  void add(Payment payment) {
+    Key key = Key.of(payment.getId());
+    all.add(key);
+    byStatus[payment.getStatus().ordinal()].add(key);
+    byCurrency[payment.getCurrency().ordinal()].add(key);
+  }
+
+  /**
+   * Re-indexes a payment that was stored again, possibly with a different status or currency. The payment is added under its new
+   * status and currency before it is removed from the others, so a concurrent query may briefly see it under both but never
+   * under neither.
+   */
+  void update(Payment payment) {
+    add(payment);
+    Key key = Key.of(payment.getId());
+    removeFromAllBut(byStatus, payment.getStatus().ordinal(), key);
+    removeFromAllBut(byCurrency, payment.getCurrency().ordinal(), key);
+  }
+
+  void remove(UUID id) {
+    Key key = Key.of(id);
+    all.remove(key);
+    removeFrom(byStatus, key);
+    removeFrom(byCurrency, key);
+  }
+
+  /**
+   * Returns the ids of the candidates for {@code query} in creation order. Only the creation-time range and cursor are guaranteed to
+   * hold; the status and currency must be checked against the stored payment, since a payment can change while it is streamed.
+   */
+  Stream<UUID> candidates(PaymentQuery query) {
+    NavigableSet<Key> index = query.status() != null ? byStatus[query.status().ordinal()]
+        : query.currency() != null ? byCurrency[query.currency().ordinal()]
+        : all;
+
+    Key lower = null;
+    boolean lowerInclusive = true;
+    if (query.from() != null) {
+      lower = new Key(query.from().toEpochMilli(), LOWEST_ID);
+    }
+    if (query.after() != null) {
+      Key after = Key.of(query.after());
+      if (lower == null || after.compareTo(lower) >= 0) {
+        lower = after;
+        lowerInclusive = false;
+      }
+    }
+    Key upper = query.to() != null ? new Key(query.to().toEpochMilli(), LOWEST_ID) : null;
+
+    if (lower != null && upper != null) {
+      if (upper.compareTo(lower) <= 0) {
+        return Stream.empty();
+      }
+      index = index.subSet(lower, lowerInclusive, upper, false);
+    } else if (lower != null) {
+      index = index.tailSet(lower, lowerInclusive);
+    } else if (upper != null) {
+      index = index.headSet(upper, false);
+    }
+    return index.stream().map(Key::id);
+  }
+
+  /**
+   * Returns the id of every indexed payment.
+   */
+  Stream<UUID> ids() {
+    return all.stream().map(Key::id);
+  }
+
+  private static void removeFrom(NavigableSet<Key>[] indexes, Key key) {
+    for (NavigableSet<Key> index : indexes) {
+      index.remove(key);
+    }
+  }
+
+  private static void removeFromAllBut(NavigableSet<Key>[] indexes, int kept, Key key) {
+    for (int i = 0; i < indexes.length; i++) {
+      if (i != kept) {
+        indexes[i].remove(key);
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static NavigableSet<Key>[] newIndexes(int count) {
+    NavigableSet<Key>[] indexes = new NavigableSet[count];
+    for (int i = 0; i < count; i++) {
+      indexes[i] = new ConcurrentSkipListSet<>();
+    }
+    return indexes;
+  }
+
+  private record Key(long createdAt, UUID id) implements Comparable<Key> {
+
+    static Key of(UUID id) {
+      return new Key(TimeOrderedPaymentIdGenerator.timestampOf(id), id);
+    }
+
+    @Override
+    public int compareTo(Key other) {
+      int byTime = Long.compare(createdAt, other.createdAt);
+      return byTime != 0 ? byTime : id.compareTo(other.id);
+    }
+  }
+}
@@ -0,0 +1,16 @@
+package com.checkout.payment.gateway.repository;
+
+import com.checkout.payment.gateway.enums.Currency;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Filter for {@link PaymentsRepository#query}. Every field is optional; {@code null} matches everything.
+ *
+ * @param from  earliest creation time, inclusive
+ * @param to    latest creation time, exclusive
+ * @param after cursor: only payments ordered after the payment with this id are returned
+ */
+public record PaymentQuery(PaymentStatus status, Currency currency, Instant from, Instant to, UUID after) {
+}
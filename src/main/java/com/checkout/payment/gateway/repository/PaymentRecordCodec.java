@@ -0,0 +1,124 @@
+package com.checkout.payment.gateway.repository;
+
+import com.checkout.payment.gateway.enums.Currency;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.Payment;
+import java.nio.ByteBuffer;
+import java.util.UUID;
+import java.util.zip.CRC32C;
+
+/**
+ * Fixed-width binary layout of a {@link Payment}.
+ *
+ * <pre>
+ *  0  id (most significant bits)    long
+ *  8  id (least significant bits)   long
+ * 16  amount                        int
+ * 20  card number last four         short
+ * 22  expiry year                   short
+ * 24  expiry month                  byte
+ * 25  status ordinal + 1            byte, 0 marks an empty slot
+ * 26  currency ISO code             3 ASCII bytes
+ * 29  reserved                      3 bytes
+ * 32  CRC32C of bytes 0..31         int
+ * </pre>
+ */
+public final class PaymentRecordCodec {
+
+  public static final int RECORD_SIZE = 36;
+
+  private static final int ID_MOST_SIGNIFICANT_BITS = 0;
+  private static final int ID_LEAST_SIGNIFICANT_BITS = 8;
+  private static final int AMOUNT = 16;
+  private static final int CARD_NUMBER_LAST_FOUR = 20;
+  private static final int EXPIRY_YEAR = 22;
+  private static final int EXPIRY_MONTH = 24;
+  private static final int STATUS = 25;
+  private static final int CURRENCY = 26;
+  private static final int CURRENCY_LENGTH = 3;
+  private static final int CHECKSUM = 32;
+
+  private static final PaymentStatus[] STATUSES = PaymentStatus.values();
+  private static final Currency[] CURRENCIES = Currency.values();
+
+  private PaymentRecordCodec() {
+  }
+
+  public static void encode(Payment payment, ByteBuffer buffer, int offset) {
+    buffer.putLong(offset + ID_MOST_SIGNIFICANT_BITS, payment.getId().getMostSignificantBits());
+    buffer.putLong(offset + ID_LEAST_SIGNIFICANT_BITS, payment.getId().getLeastSignificantBits());
+    buffer.putInt(offset + AMOUNT, payment.getAmount());
+    buffer.putShort(offset + CARD_NUMBER_LAST_FOUR, (short) payment.getCardNumberLastFour());
+    buffer.putShort(offset + EXPIRY_YEAR, (short) payment.getExpiryYear());
+    buffer.put(offset + EXPIRY_MONTH, (byte) payment.getExpiryMonth());
+    buffer.put(offset + STATUS, (byte) (payment.getStatus().ordinal() + 1));
+    String currency = payment.getCurrency().getCode();
+    for (int i = 0; i < CURRENCY_LENGTH; i++) {
+      buffer.put(offset + CURRENCY + i, (byte) currency.charAt(i));
+    }
+    buffer.putInt(offset + CHECKSUM, checksum(buffer, offset));
+  }
+
+  /**
+   * Encodes {@code payment} as a standalone record, the form in which it is sent between cluster nodes.
+   */
+  public static byte[] toBytes(Payment payment) {
+    byte[] record = new byte[RECORD_SIZE];
+    encode(payment, ByteBuffer.wrap(record), 0);
+    return record;
+  }
+
+  /**
+   * Decodes a record produced by {@link #toBytes}, or returns {@code null} if {@code record} is not exactly one valid record.
+   */
+  public static Payment fromBytes(byte[] record) {
+    if (record.length != RECORD_SIZE) {
+      return null;
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(record);
+    return isValid(buffer, 0) ? decode(buffer, 0) : null;
+  }
+
+  /**
+   * Returns {@code true} if the slot at {@code offset} was never written.
+   */
+  public static boolean isEmpty(ByteBuffer buffer, int offset) {
+    return buffer.get(offset + STATUS) == 0 && buffer.getInt(offset + CHECKSUM) == 0;
+  }
+
+  /**
+   * Returns {@code true} if the record at {@code offset} was completely written, i.e. its checksum matches.
+   */
+  public static boolean isValid(ByteBuffer buffer, int offset) {
+    return buffer.get(offset + STATUS) != 0 && buffer.getInt(offset + CHECKSUM) == checksum(buffer, offset);
+  }
+
+  public static Payment decode(ByteBuffer buffer, int offset) {
+    Payment payment = new Payment();
+    payment.setId(new UUID(buffer.getLong(offset + ID_MOST_SIGNIFICANT_BITS), buffer.getLong(offset + ID_LEAST_SIGNIFICANT_BITS)));
+    payment.setAmount(buffer.getInt(offset + AMOUNT));
+    payment.setCardNumberLastFour(buffer.getShort(offset + CARD_NUMBER_LAST_FOUR));
+    payment.setExpiryYear(buffer.getShort(offset + EXPIRY_YEAR));
+    payment.setExpiryMonth(buffer.get(offset + EXPIRY_MONTH));
+    payment.setStatus(STATUSES[buffer.get(offset + STATUS) - 1]);
+    payment.setCurrency(decodeCurrency(buffer, offset + CURRENCY));
+    return payment;
+  }
+
+  // The ISO code rather than the ordinal is stored so reordering the enum cannot reinterpret existing journals
+  private static Currency decodeCurrency(ByteBuffer buffer, int offset) {
+    for (Currency currency : CURRENCIES) {
+      String code = currency.getCode();
+      if (buffer.get(offset) == code.charAt(0) && buffer.get(offset + 1) == code.charAt(1) && buffer.get(offset + 2) == code.charAt(2)) {
+        return currency;
+      }
+    }
+    throw new IllegalStateException("Unknown currency in record at offset " + offset);
+  }
+
+  private static int checksum(ByteBuffer buffer, int offset) {
+    CRC32C crc = new CRC32C();
+    crc.update(buffer.slice(offset, CHECKSUM));
+    return (int) crc.getValue();
+  }
+}
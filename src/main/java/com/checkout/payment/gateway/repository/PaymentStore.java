@@ -0,0 +1,33 @@
+package com.checkout.payment.gateway.repository;
+
+import com.checkout.payment.gateway.model.Payment;
+import java.util.UUID;
+
+/**
+ * Storage backend behind {@link PaymentsRepository}. Implementations must be safe for concurrent use.
+ */
+public interface PaymentStore {
+
+  /**
+   * Stores {@code payment}, replacing any payment with the same id. A stored payment must not be changed in place: the payment
+   * returned here is all {@link PaymentsRepository} has to tell what it indexed and counted the old one as.
+   *
+   * @return the payment it replaced, or {@code null} if there was no payment with that id yet
+   * @throws IllegalArgumentException if {@code payment} is the instance already stored under its id
+   */
+  Payment put(Payment payment);
+
+  /**
+   * Returns the payment with {@code id}, or {@code null} if there is none.
+   */
+  Payment get(UUID id);
+
+  /**
+   * Removes the payment with {@code id}.
+   *
+   * @return {@code true} if a payment was removed
+   */
+  boolean remove(UUID id);
+
+  int size();
+}
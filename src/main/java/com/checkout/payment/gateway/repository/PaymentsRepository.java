@@ -1,21 +1,310 @@
 package com.checkout.payment.gateway.repository;
 
+import com.checkout.payment.gateway.cluster.PaymentCluster;
+import com.checkout.payment.gateway.id.TimeOrderedPaymentIdGenerator;
 import com.checkout.payment.gateway.model.Payment;
-import java.util.HashMap;
+import com.checkout.payment.gateway.repository.journal.JournalPosition;
+import com.checkout.payment.gateway.repository.journal.PaymentJournal;
+import com.checkout.payment.gateway.repository.snapshot.PaymentSnapshots;
+import com.checkout.payment.gateway.repository.writebehind.PaymentWriteBehind;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public class PaymentsRepository {
+public class PaymentsRepository implements MeterBinder, AutoCloseable {
 
-  private final HashMap<UUID, Payment> payments = new HashMap<>();
+  private static final CompletableFuture<Void> DURABLE = CompletableFuture.completedFuture(null);
 
-  public void add(Payment payment) {
-    payments.put(payment.getId(), payment);
+  private final PaymentStore store;
+
+  private final PaymentJournal journal;
+
+  private final PaymentIndex index = new PaymentIndex();
+
+  private final PaymentAggregates aggregates;
+
+  private final PaymentIdFilter idFilter;
+
+  private final PaymentCluster cluster;
+
+  private final PaymentWriteBehind writeBehind;
+
+  private final PaymentSnapshots snapshots;
+
+  private final int maxEntries;
+
+  private final long maxAgeMillis;
+
+  private final ScheduledExecutorService expirySweeper;
+
+  private final ConcurrentLinkedQueue<Retained> insertionOrder = new ConcurrentLinkedQueue<>();
+
+  private final AtomicInteger resident = new AtomicInteger();
+
+  private final LongAdder expired = new LongAdder();
+
+  private final LongAdder evicted = new LongAdder();
+
+  /**
+   * The {@link PaymentStore} must be safe for concurrent use, so Tomcat threads can call {@link #add} and {@link #getById}
+   * concurrently.
+   *
+   * <p>Retention is bounded by {@code maxEntries} and {@code maxAge}; zero disables either bound. Payments are retired in the
+   * order they were first stored, so eviction only ever looks at the oldest payments and never touches the read path. Payments
+   * are mostly read shortly after they are created, which makes oldest-first a close approximation of least-recently-used.
+   * A payment's age counts from the creation time in its UUIDv7 id, so it survives a restart. With either bound set, a payment whose
+   * id carries no creation time is refused with an {@link IllegalArgumentException}, during replay as well, rather than aged from
+   * whenever this node happened to store it. Expired payments are removed as new payments arrive, and by a background sweep at least once a second
+   * so an idle node expires them too. Replayed payments go through the same policy, so payments retired before a restart are
+   * retired again during replay rather than coming back.
+   *
+   * <p>Every stored payment is also kept in a {@link PaymentIndex} by status, currency and creation time for {@link #query}, and
+   * counted into the {@link PaymentAggregates}. Its id is added to a {@link PaymentIdFilter}, so {@link #getById} answers most
+   * unknown ids without reading the store.
+   *
+   * <p>When {@link PaymentSnapshots} are enabled the store is first loaded from the latest snapshot, in parallel, and snapshots
+   * are then taken in the background. Since the snapshot loads in no particular order, the retention order is sorted by creation
+   * time once it has loaded, and only then are payments over the bounds retired. When the {@link PaymentJournal} is enabled the
+   * store is rebuilt from it here, before the application accepts traffic, replaying only the records after the snapshot;
+   * otherwise it is rebuilt from the {@link PaymentWriteBehind} sink, if there is one. Replayed payments count as stored at
+   * startup. The id filter is then rebuilt from the payments still held, dropping those the retention policy retired during
+   * replay. The expiry sweep only starts once all of this is done.
+   *
+   * <p>When a {@link PaymentCluster} is configured, this node only holds the payments it owns. {@link #add} and {@link #getById}
+   * forward any other payment to its owner, and everything else here, from retention to queries and aggregates, covers the local
+   * payments only.
+   */
+  public PaymentsRepository(PaymentStore store, Optional<PaymentJournal> journal,
+      @Value("${payments.repository.retention.max-entries:0}") int maxEntries,
+      @Value("${payments.repository.retention.max-age:0s}") Duration maxAge, PaymentAggregates aggregates, PaymentIdFilter idFilter,
+      Optional<PaymentCluster> cluster, Optional<PaymentWriteBehind> writeBehind, Optional<PaymentSnapshots> snapshots) {
+    this.store = store;
+    this.aggregates = aggregates;
+    this.idFilter = idFilter;
+    this.cluster = cluster.orElse(null);
+    this.writeBehind = writeBehind.orElse(null);
+    this.snapshots = snapshots.orElse(null);
+    this.journal = journal.orElse(null);
+    this.maxEntries = maxEntries;
+    this.maxAgeMillis = maxAge.toMillis();
+    JournalPosition replayFrom = JournalPosition.START;
+    if (this.snapshots != null) {
+      // Loaded in parallel and in no particular order, so nothing is retired until the retention order is rebuilt
+      replayFrom = this.snapshots.load(this::put);
+      if (isBounded()) {
+        restoreInsertionOrder();
+        evict();
+      }
+    }
+    if (this.journal != null) {
+      this.journal.recover(replayFrom, this::store);
+    } else if (this.writeBehind != null) {
+      this.writeBehind.recover(this::store);
+    }
+    if (this.snapshots != null || this.journal != null || this.writeBehind != null) {
+      idFilter.rebuild(store.size(), index.ids());
+    }
+    if (this.snapshots != null) {
+      this.snapshots.start(() -> index.ids().map(store::get).filter(Objects::nonNull));
+    }
+    if (maxAgeMillis > 0) {
+      long sweepMillis = Math.min(maxAgeMillis, 1_000);
+      this.expirySweeper = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "payment-expiry-sweeper");
+        thread.setDaemon(true);
+        return thread;
+      });
+      expirySweeper.scheduleWithFixedDelay(this::evict, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+    } else {
+      this.expirySweeper = null;
+    }
+  }
+
+  /**
+   * Stores {@code payment}. It is visible to {@link #getById} immediately; the returned future completes once it is durable,
+   * which without a journal is straight away. With write-behind it also waits for the payment to be queued for the sink, which
+   * only takes time when the write-behind buffer is full; when too many payments are already waiting for room it throws
+   * {@link com.checkout.payment.gateway.exception.PaymentStorageOverloadedException} without storing anything. A payment stored
+   * for the first time or with a new status counts towards the current minute of {@link PaymentAggregates#lastMinutes()};
+   * payments replayed from the journal do not. A payment owned by another cluster node is sent to it instead, and the future
+   * completes once that node has made it durable.
+   *
+   * @throws IllegalArgumentException if retention is bounded and the payment's id carries no creation time
+   */
+  public CompletableFuture<Void> add(Payment payment) {
+    if (cluster != null && !cluster.isLocal(payment.getId())) {
+      return cluster.put(payment);
+    }
+    return addLocal(payment);
+  }
+
+  /**
+   * Stores {@code payment} on this node whichever node owns it. Used for payments forwarded by other nodes.
+   */
+  public CompletableFuture<Void> addLocal(Payment payment) {
+    if (isBounded()) {
+      createdAt(payment.getId());
+    }
+    // Offered first, so a payment the overloaded write-behind refuses is not stored either
+    CompletableFuture<Void> queued = writeBehind == null ? null : writeBehind.offer(payment);
+    Payment previous = store(payment);
+    if (previous == null || previous.getStatus() != payment.getStatus()) {
+      aggregates.recordOutcome(payment.getStatus());
+    }
+    CompletableFuture<Void> durable = journal == null ? DURABLE : journal.append(payment);
+    if (queued == null) {
+      return durable;
+    }
+    return journal == null ? queued : CompletableFuture.allOf(durable, queued);
   }
 
   public Optional<Payment> getById(UUID id) {
-    return Optional.ofNullable(payments.get(id));
+    if (cluster != null && !cluster.isLocal(id)) {
+      return cluster.get(id);
+    }
+    return getLocal(id);
+  }
+
+  /**
+   * Reads {@code id} from this node only. Used for reads forwarded by other nodes.
+   */
+  public Optional<Payment> getLocal(UUID id) {
+    if (!idFilter.mightContain(id)) {
+      return Optional.empty();
+    }
+    Payment payment = store.get(id);
+    if (payment == null) {
+      idFilter.falsePositive();
+    }
+    return Optional.ofNullable(payment);
+  }
+
+  /**
+   * Streams the payments matching {@code query}, oldest first and ordered by id within the same millisecond. The stream is lazy
+   * and reads each payment from the store as it is consumed, so it reflects payments added or retired while it is open.
+   */
+  public Stream<Payment> query(PaymentQuery query) {
+    return index.candidates(query)
+        .map(store::get)
+        .filter(payment -> payment != null
+            && (query.status() == null || payment.getStatus() == query.status())
+            && (query.currency() == null || payment.getCurrency() == query.currency()));
+  }
+
+  public PaymentAggregates aggregates() {
+    return aggregates;
+  }
+
+  public int size() {
+    return store.size();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("payments.repository.size", this, PaymentsRepository::size)
+        .description("Payments currently retained by the repository")
+        .register(registry);
+    FunctionCounter.builder("payments.repository.evictions", expired, LongAdder::sum)
+        .description("Payments removed by the retention policy")
+        .tag("cause", "expired")
+        .register(registry);
+    FunctionCounter.builder("payments.repository.evictions", evicted, LongAdder::sum)
+        .description("Payments removed by the retention policy")
+        .tag("cause", "size")
+        .register(registry);
+  }
+
+  @Override
+  public void close() {
+    if (expirySweeper != null) {
+      expirySweeper.shutdownNow();
+    }
+  }
+
+  private Payment store(Payment payment) {
+    Payment previous = put(payment);
+    if (previous == null && isBounded()) {
+      evict();
+    }
+    return previous;
+  }
+
+  private Payment put(Payment payment) {
+    long createdAt = isBounded() ? createdAt(payment.getId()) : 0;
+    // Added before the payment is visible, so a getById that races with this and misses in the filter would miss in the store too
+    idFilter.add(payment.getId());
+    Payment previous = store.put(payment);
+    aggregates.record(payment, previous);
+    if (previous == null) {
+      index.add(payment);
+    } else {
+      index.update(payment);
+    }
+    if (previous == null && isBounded()) {
+      resident.incrementAndGet();
+      insertionOrder.add(new Retained(payment.getId(), createdAt));
+    }
+    return previous;
+  }
+
+  private static long createdAt(UUID id) {
+    long createdAt = TimeOrderedPaymentIdGenerator.timestampOf(id);
+    if (createdAt == 0) {
+      throw new IllegalArgumentException("Payment id %s carries no creation time, which bounded retention needs".formatted(id));
+    }
+    return createdAt;
+  }
+
+  /**
+   * Puts the retention order back into creation order, oldest first, after payments were stored out of order.
+   */
+  private void restoreInsertionOrder() {
+    Retained[] retained = insertionOrder.toArray(Retained[]::new);
+    Arrays.sort(retained, Comparator.comparingLong(Retained::createdAt).thenComparing(Retained::id));
+    insertionOrder.clear();
+    insertionOrder.addAll(Arrays.asList(retained));
+  }
+
+  private boolean isBounded() {
+    return maxEntries > 0 || maxAgeMillis > 0;
+  }
+
+  private void evict() {
+    long now = System.currentTimeMillis();
+    Retained oldest;
+    while ((oldest = insertionOrder.peek()) != null) {
+      boolean isExpired = maxAgeMillis > 0 && now - oldest.createdAt() >= maxAgeMillis;
+      boolean isOverCapacity = maxEntries > 0 && resident.get() > maxEntries;
+      if (!isExpired && !isOverCapacity) {
+        return;
+      }
+      if (insertionOrder.remove(oldest)) {
+        store.remove(oldest.id());
+        index.remove(oldest.id());
+        resident.decrementAndGet();
+        (isExpired ? expired : evicted).increment();
+      }
+    }
+  }
+
+  private record Retained(UUID id, long createdAt) {
   }
 }
@@ -0,0 +1,10 @@
+package com.checkout.payment.gateway.repository.journal;
+
+/**
+ * A point in the {@link PaymentJournal}: the {@code record}-th record of segment {@code segment}. Positions stay valid when
+ * older segments are deleted, since segments keep their index.
+ */
+public record JournalPosition(int segment, int record) {
+
+  public static final JournalPosition START = new JournalPosition(0, 0);
+}
@@ -0,0 +1,139 @@
+package com.checkout.payment.gateway.repository.journal;
+
+import static com.checkout.payment.gateway.repository.PaymentRecordCodec.RECORD_SIZE;
+
+import com.checkout.payment.gateway.model.Payment;
+import com.checkout.payment.gateway.repository.PaymentRecordCodec;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * A single pre-allocated, memory-mapped journal file holding a fixed number of {@link PaymentRecordCodec} records after a
+ * small header. Not thread-safe; {@link PaymentJournal} serialises appends.
+ */
+final class JournalSegment implements Closeable {
+
+  static final int HEADER_SIZE = 16;
+  private static final int MAGIC = 0x504A4E4C; // "PJNL"
+  private static final int VERSION = 1;
+
+  private final int index;
+  private final int capacity;
+  private final FileChannel channel;
+  private final MappedByteBuffer buffer;
+  private int size;
+
+  private JournalSegment(int index, int capacity, FileChannel channel, MappedByteBuffer buffer) {
+    this.index = index;
+    this.capacity = capacity;
+    this.channel = channel;
+    this.buffer = buffer;
+  }
+
+  static Path fileName(Path directory, int index) {
+    return directory.resolve(String.format("%08d.journal", index));
+  }
+
+  static long fileSize(int capacity) {
+    return HEADER_SIZE + (long) capacity * RECORD_SIZE;
+  }
+
+  /**
+   * Creates and maps a new segment. If that fails part-way the file is removed again, so creating it can be retried.
+   */
+  static JournalSegment create(Path directory, int index, int capacity) throws IOException {
+    Path file = fileName(directory, index);
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize(capacity));
+      buffer.putInt(0, MAGIC);
+      buffer.putInt(4, VERSION);
+      buffer.putInt(8, capacity);
+      buffer.force(0, HEADER_SIZE);
+      return new JournalSegment(index, capacity, channel, buffer);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      Files.deleteIfExists(file);
+      throw e;
+    }
+  }
+
+  /**
+   * Maps an existing segment and feeds every complete record from the {@code from}-th on to {@code consumer} in append order.
+   * Scanning stops at the first empty slot; a torn record left behind by a crash also stops the scan, and the rest of the segment
+   * is zeroed so that stale records beyond the new tail can never be replayed later.
+   */
+  static JournalSegment recover(Path directory, int index, int from, Consumer<Payment> consumer) throws IOException {
+    Path file = fileName(directory, index);
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+    if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+      channel.close();
+      throw new IOException("Not a payment journal segment: " + file);
+    }
+    int capacity = buffer.getInt(8);
+    if (buffer.capacity() != fileSize(capacity)) {
+      channel.close();
+      throw new IOException("Truncated payment journal segment: " + file);
+    }
+
+    JournalSegment segment = new JournalSegment(index, capacity, channel, buffer);
+    segment.size = Math.min(from, capacity);
+    while (segment.size < capacity) {
+      int offset = segment.offset(segment.size);
+      if (PaymentRecordCodec.isEmpty(buffer, offset)) {
+        break;
+      }
+      if (!PaymentRecordCodec.isValid(buffer, offset)) {
+        segment.truncate();
+        break;
+      }
+      consumer.accept(PaymentRecordCodec.decode(buffer, offset));
+      segment.size++;
+    }
+    return segment;
+  }
+
+  int index() {
+    return index;
+  }
+
+  int size() {
+    return size;
+  }
+
+  boolean isFull() {
+    return size == capacity;
+  }
+
+  void append(Payment payment) {
+    PaymentRecordCodec.encode(payment, buffer, offset(size));
+    size++;
+  }
+
+  void force() {
+    buffer.force();
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  private int offset(int record) {
+    return HEADER_SIZE + record * RECORD_SIZE;
+  }
+
+  private void truncate() {
+    for (int offset = offset(size); offset < buffer.capacity(); offset++) {
+      buffer.put(offset, (byte) 0);
+    }
+    buffer.force();
+  }
+}
@@ -0,0 +1,291 @@
+package com.checkout.payment.gateway.repository.journal;
+
+import com.checkout.payment.gateway.model.Payment;
+import com.checkout.payment.gateway.repository.PaymentRecordCodec;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Append-only payment journal made of memory-mapped {@link JournalSegment segments}.
+ *
+ * <p>Appends copy a fixed-width record into the active segment and return a future that completes once the record is on
+ * disk. A single flusher thread group-commits: it forces the mapping every {@code flush-interval}, or sooner once
+ * {@code flush-batch-size} records are waiting, and completes every future covered by that one fsync.
+ *
+ * <p>{@link #recover} must be called once before the first append; it replays all segments in order so the caller can
+ * rebuild its index, then positions the journal at the tail of the last segment. A caller that keeps its own snapshot of the
+ * replayed state takes a {@link #checkpoint}, recovers from that position instead, and can {@link #deleteSegmentsBefore delete}
+ * the segments the snapshot covers.
+ */
+@Component
+@ConditionalOnProperty(name = "payments.journal.enabled", havingValue = "true")
+public class PaymentJournal implements AutoCloseable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(PaymentJournal.class);
+
+  private final Path directory;
+  private final int recordsPerSegment;
+  private final long flushIntervalNanos;
+  private final int flushBatchSize;
+
+  private final ReentrantLock appendLock = new ReentrantLock();
+  private final ConcurrentLinkedQueue<PendingFlush> pendingFlushes = new ConcurrentLinkedQueue<>();
+  private final Thread flusher;
+  private volatile boolean running;
+
+  // Guarded by appendLock
+  private JournalSegment active;
+  private long appendedRecords;
+
+  private volatile long flushedRecords;
+
+  public PaymentJournal(@Value("${payments.journal.directory:./data/journal}") Path directory,
+      @Value("${payments.journal.segment-size:64MB}") DataSize segmentSize,
+      @Value("${payments.journal.flush-interval:5ms}") Duration flushInterval,
+      @Value("${payments.journal.flush-batch-size:256}") int flushBatchSize) {
+    this.directory = directory;
+    this.recordsPerSegment = (int) Math.min(Integer.MAX_VALUE / PaymentRecordCodec.RECORD_SIZE,
+        (segmentSize.toBytes() - JournalSegment.HEADER_SIZE) / PaymentRecordCodec.RECORD_SIZE);
+    if (recordsPerSegment < 1) {
+      throw new IllegalArgumentException("Journal segment size " + segmentSize + " cannot hold a single record");
+    }
+    this.flushIntervalNanos = flushInterval.toNanos();
+    this.flushBatchSize = flushBatchSize;
+    this.flusher = new Thread(this::flushLoop, "payment-journal-flusher");
+    this.flusher.setDaemon(true);
+  }
+
+  /**
+   * Replays every record in the journal, oldest first, and opens the journal for appends. Later records for the same payment
+   * id supersede earlier ones.
+   *
+   * @return the number of records replayed
+   */
+  public long recover(Consumer<Payment> consumer) {
+    return recover(JournalPosition.START, consumer);
+  }
+
+  /**
+   * Like {@link #recover(Consumer)}, but skips the records before {@code from} without reading them.
+   */
+  public long recover(JournalPosition from, Consumer<Payment> consumer) {
+    appendLock.lock();
+    try {
+      if (active != null) {
+        throw new IllegalStateException("Payment journal has already been recovered");
+      }
+      long started = System.nanoTime();
+      Files.createDirectories(directory);
+      List<Integer> indexes = segmentIndexes().stream().filter(index -> index >= from.segment()).toList();
+      long records = 0;
+      for (int i = 0; i < indexes.size(); i++) {
+        int skipped = indexes.get(i) == from.segment() ? from.record() : 0;
+        JournalSegment segment = JournalSegment.recover(directory, indexes.get(i), skipped, consumer);
+        records += Math.max(0, segment.size() - skipped);
+        if (i < indexes.size() - 1) {
+          segment.close();
+        } else {
+          active = segment;
+        }
+      }
+      if (active == null) {
+        // Start numbering after the position, so the new segments are not skipped by the next recovery from it
+        active = JournalSegment.create(directory, from.segment(), recordsPerSegment);
+      }
+      appendedRecords = records;
+      flushedRecords = records;
+      running = true;
+      flusher.start();
+      LOG.info("Recovered {} payment records from {} journal segments in {} ms", records, indexes.size(),
+          Duration.ofNanos(System.nanoTime() - started).toMillis());
+      return records;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not recover payment journal from " + directory, e);
+    } finally {
+      appendLock.unlock();
+    }
+  }
+
+  /**
+   * Appends {@code payment} to the journal.
+   *
+   * @return a future completed once the record has been fsynced, or completed exceptionally if the fsync failed
+   */
+  public CompletableFuture<Void> append(Payment payment) {
+    CompletableFuture<Void> durable = new CompletableFuture<>();
+    long sequence;
+    appendLock.lock();
+    try {
+      if (!running) {
+        throw new IllegalStateException("Payment journal is not open");
+      }
+      if (active.isFull()) {
+        roll();
+      }
+      active.append(payment);
+      sequence = ++appendedRecords;
+      pendingFlushes.add(new PendingFlush(sequence, durable));
+    } finally {
+      appendLock.unlock();
+    }
+    if (sequence - flushedRecords >= flushBatchSize) {
+      LockSupport.unpark(flusher);
+    }
+    return durable;
+  }
+
+  /**
+   * Returns the position after the last record appended so far, once every record before it is durable. State captured
+   * after this call reflects at least those records, so recovering that state and replaying from the position loses nothing.
+   */
+  public CompletableFuture<JournalPosition> checkpoint() {
+    CompletableFuture<Void> durable = new CompletableFuture<>();
+    JournalPosition position;
+    appendLock.lock();
+    try {
+      if (!running) {
+        throw new IllegalStateException("Payment journal is not open");
+      }
+      position = new JournalPosition(active.index(), active.size());
+      pendingFlushes.add(new PendingFlush(appendedRecords, durable));
+    } finally {
+      appendLock.unlock();
+    }
+    LockSupport.unpark(flusher);
+    return durable.thenApply(flushed -> position);
+  }
+
+  /**
+   * Deletes the segments wholly before segment {@code segment}. The active segment is never deleted.
+   *
+   * @return the number of segments deleted
+   */
+  public int deleteSegmentsBefore(int segment) throws IOException {
+    int activeIndex;
+    appendLock.lock();
+    try {
+      activeIndex = active == null ? 0 : active.index();
+    } finally {
+      appendLock.unlock();
+    }
+    int deleted = 0;
+    for (int index : segmentIndexes()) {
+      if (index < segment && index < activeIndex && Files.deleteIfExists(JournalSegment.fileName(directory, index))) {
+        deleted++;
+      }
+    }
+    if (deleted > 0) {
+      LOG.info("Deleted {} payment journal segments before segment {}", deleted, segment);
+    }
+    return deleted;
+  }
+
+  @Override
+  public void close() throws IOException {
+    appendLock.lock();
+    try {
+      if (!running) {
+        return;
+      }
+      running = false;
+    } finally {
+      appendLock.unlock();
+    }
+    LockSupport.unpark(flusher);
+    try {
+      flusher.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    flush();
+    active.close();
+  }
+
+  /**
+   * Swaps in the next segment before closing the full one, so a segment that cannot be created leaves the journal on the still
+   * open full segment: the append fails, and the next one tries to roll again.
+   */
+  private void roll() {
+    try {
+      JournalSegment full = active;
+      full.force();
+      JournalSegment next = JournalSegment.create(directory, full.index() + 1, recordsPerSegment);
+      active = next;
+      full.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not roll payment journal segment", e);
+    }
+  }
+
+  private void flushLoop() {
+    while (running) {
+      LockSupport.parkNanos(this, flushIntervalNanos);
+      flush();
+    }
+  }
+
+  /**
+   * Forces the active segment and completes every pending append it covers. Segments that have been rolled were forced
+   * before they were closed, so forcing the active one is enough to make everything up to {@code target} durable.
+   */
+  private void flush() {
+    JournalSegment segment;
+    long target;
+    appendLock.lock();
+    try {
+      segment = active;
+      target = appendedRecords;
+    } finally {
+      appendLock.unlock();
+    }
+    RuntimeException failure = null;
+    // Nothing new to force, but a checkpoint may still be waiting on records that are already durable
+    if (target != flushedRecords) {
+      try {
+        segment.force();
+        flushedRecords = target;
+      } catch (RuntimeException e) {
+        LOG.error("Failed to flush payment journal", e);
+        failure = e;
+      }
+    }
+    PendingFlush pending;
+    while ((pending = pendingFlushes.peek()) != null && pending.sequence() <= target) {
+      pendingFlushes.poll();
+      if (failure == null) {
+        pending.future().complete(null);
+      } else {
+        pending.future().completeExceptionally(failure);
+      }
+    }
+  }
+
+  private List<Integer> segmentIndexes() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.map(file -> file.getFileName().toString())
+          .filter(name -> name.matches("\\d{8}\\.journal"))
+          .map(name -> Integer.parseInt(name.substring(0, 8)))
+          .sorted()
+          .toList();
+    }
+  }
+
+  private record PendingFlush(long sequence, CompletableFuture<Void> future) {
+  }
+}
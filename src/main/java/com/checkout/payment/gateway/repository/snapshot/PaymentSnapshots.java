@@ -0,0 +1,377 @@
+package com.checkout.payment.gateway.repository.snapshot;
+
+import static com.checkout.payment.gateway.repository.PaymentRecordCodec.RECORD_SIZE;
+
+import com.checkout.payment.gateway.model.Payment;
+import com.checkout.payment.gateway.repository.PaymentRecordCodec;
+import com.checkout.payment.gateway.repository.journal.JournalPosition;
+import com.checkout.payment.gateway.repository.journal.PaymentJournal;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodic binary snapshots of the payments held by {@link com.checkout.payment.gateway.repository.PaymentsRepository}, so a
+ * restart loads the latest snapshot and replays only the journal written since, instead of the whole journal.
+ *
+ * <p>A snapshot is a header followed by one {@link PaymentRecordCodec} record per payment. It is written every {@code interval}
+ * on a background thread while writers carry on: the payments are read one by one as they are at that moment, so a snapshot is
+ * not a single point in time. It is made consistent by the {@link PaymentJournal}: the journal is {@link PaymentJournal#checkpoint
+ * checkpointed} before the payments are read, and recovery replays the journal from that position over the snapshot. Every change
+ * the snapshot may have missed is after the position, and replaying a change the snapshot already holds stores the same payment
+ * again. Without a journal, a restart loses the changes made since the last snapshot.
+ *
+ * <p>Snapshots are written to a temporary file, fsynced and then renamed, so a crash never leaves a partial snapshot behind.
+ * The latest {@code retain} snapshots are kept, and the journal segments older than all of them are deleted. A snapshot that
+ * fails to load can be deleted by hand to fall back to the one before it.
+ *
+ * <p>{@link #load} memory-maps the latest snapshot and decodes it in chunks on {@code load-threads} threads, all processors by
+ * default, so the consumer must be safe for concurrent use.
+ */
+@Component
+@ConditionalOnProperty(name = "payments.snapshot.enabled", havingValue = "true")
+public class PaymentSnapshots implements MeterBinder, AutoCloseable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(PaymentSnapshots.class);
+
+  static final int HEADER_SIZE = 32;
+  private static final int MAGIC = 0x50534E50; // "PSNP"
+  private static final int VERSION = 1;
+  private static final int HEADER_CHECKSUM = 28;
+
+  private static final int WRITE_BUFFER_RECORDS = 32 * 1024;
+  private static final long MAX_CHUNK_RECORDS = Integer.MAX_VALUE / RECORD_SIZE;
+  private static final int CHUNKS_PER_THREAD = 4;
+
+  private final PaymentJournal journal;
+  private final Path directory;
+  private final int retain;
+  private final int loadThreads;
+  private final boolean snapshotOnShutdown;
+  private final ScheduledExecutorService scheduler;
+  private final long intervalNanos;
+
+  private final LongAdder written = new LongAdder();
+  private final LongAdder failures = new LongAdder();
+  private volatile long lastRecords;
+
+  private volatile Supplier<Stream<Payment>> source;
+
+  // Guarded by this
+  private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_RECORDS * RECORD_SIZE);
+
+  public PaymentSnapshots(Optional<PaymentJournal> journal,
+      @Value("${payments.snapshot.directory:./data/snapshots}") Path directory,
+      @Value("${payments.snapshot.interval:5m}") Duration interval,
+      @Value("${payments.snapshot.retain:2}") int retain,
+      @Value("${payments.snapshot.load-threads:0}") int loadThreads,
+      @Value("${payments.snapshot.on-shutdown:true}") boolean snapshotOnShutdown) {
+    if (retain < 1) {
+      throw new IllegalArgumentException("At least one payment snapshot must be retained, was " + retain);
+    }
+    this.journal = journal.orElse(null);
+    this.directory = directory;
+    this.retain = retain;
+    this.loadThreads = loadThreads > 0 ? loadThreads : Runtime.getRuntime().availableProcessors();
+    this.snapshotOnShutdown = snapshotOnShutdown;
+    this.intervalNanos = interval.toNanos();
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+      Thread thread = new Thread(task, "payment-snapshot");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Feeds every payment in the latest snapshot to {@code consumer}, from several threads at once, in no particular order.
+   *
+   * @return the journal position to replay from on top of the snapshot, {@link JournalPosition#START} if there is no snapshot
+   */
+  public JournalPosition load(Consumer<Payment> consumer) {
+    try {
+      Files.createDirectories(directory);
+      deleteTemporaryFiles();
+      List<Path> snapshots = snapshotFiles();
+      if (snapshots.isEmpty()) {
+        LOG.info("No payment snapshot found in {}", directory);
+        return JournalPosition.START;
+      }
+      Path latest = snapshots.get(snapshots.size() - 1);
+      long started = System.nanoTime();
+      try (FileChannel channel = FileChannel.open(latest, StandardOpenOption.READ)) {
+        Header header = readHeader(channel, latest);
+        loadRecords(channel, latest, header.records(), consumer);
+        lastRecords = header.records();
+        LOG.info("Loaded {} payments from snapshot {} on {} threads in {} ms", header.records(), latest.getFileName(), loadThreads,
+            Duration.ofNanos(System.nanoTime() - started).toMillis());
+        return header.position();
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not load payment snapshot from " + directory, e);
+    }
+  }
+
+  /**
+   * Starts taking a snapshot of {@code payments} every {@code interval}. Each call to the supplier must stream the payments held
+   * at that moment.
+   */
+  public void start(Supplier<Stream<Payment>> payments) {
+    if (source != null) {
+      throw new IllegalStateException("Payment snapshots have already been started");
+    }
+    source = payments;
+    scheduler.scheduleWithFixedDelay(this::scheduledSnapshot, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Writes a snapshot now and deletes the snapshots and journal segments it makes obsolete.
+   *
+   * @return the number of payments in the snapshot
+   */
+  public synchronized long snapshot() throws IOException {
+    Supplier<Stream<Payment>> payments = source;
+    if (payments == null) {
+      throw new IllegalStateException("Payment snapshots have not been started");
+    }
+    long started = System.nanoTime();
+    CompletableFuture<JournalPosition> checkpoint = journal == null
+        ? CompletableFuture.completedFuture(JournalPosition.START) : journal.checkpoint();
+    Files.createDirectories(directory);
+    List<Path> snapshots = snapshotFiles();
+    long generation = snapshots.isEmpty() ? 0 : generation(snapshots.get(snapshots.size() - 1)) + 1;
+    Path file = directory.resolve(String.format("%016d.snapshot", generation));
+    Path temporary = directory.resolve(file.getFileName() + ".tmp");
+
+    long records = 0;
+    try (FileChannel channel = FileChannel.open(temporary,
+        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        Stream<Payment> stream = payments.get()) {
+      // The header is written last, once the record count is known
+      writeBuffer.clear();
+      writeBuffer.position(HEADER_SIZE);
+      Iterator<Payment> iterator = stream.iterator();
+      while (iterator.hasNext()) {
+        if (writeBuffer.remaining() < RECORD_SIZE) {
+          writeBuffer.flip();
+          writeFully(channel, writeBuffer);
+          writeBuffer.clear();
+        }
+        PaymentRecordCodec.encode(iterator.next(), writeBuffer, writeBuffer.position());
+        writeBuffer.position(writeBuffer.position() + RECORD_SIZE);
+        records++;
+      }
+      writeBuffer.flip();
+      writeFully(channel, writeBuffer);
+
+      ByteBuffer header = encodeHeader(records, awaitCheckpoint(checkpoint));
+      while (header.hasRemaining()) {
+        channel.write(header, header.position());
+      }
+      channel.force(true);
+    } catch (IOException | RuntimeException e) {
+      failures.increment();
+      Files.deleteIfExists(temporary);
+      throw e;
+    }
+    Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+    written.increment();
+    lastRecords = records;
+    LOG.info("Wrote {} payments to snapshot {} in {} ms", records, file.getFileName(),
+        Duration.ofNanos(System.nanoTime() - started).toMillis());
+    prune();
+    return records;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("payments.snapshot.written", written, LongAdder::sum)
+        .description("Payment snapshots written")
+        .register(registry);
+    FunctionCounter.builder("payments.snapshot.failures", failures, LongAdder::sum)
+        .description("Payment snapshots that failed to be written")
+        .register(registry);
+    Gauge.builder("payments.snapshot.records", this, snapshots -> snapshots.lastRecords)
+        .description("Payments in the latest snapshot written or loaded")
+        .register(registry);
+  }
+
+  @Override
+  public void close() throws IOException {
+    // A snapshot in progress finishes first, since snapshot() is synchronized
+    scheduler.shutdown();
+    if (snapshotOnShutdown && source != null) {
+      snapshot();
+    }
+  }
+
+  private void scheduledSnapshot() {
+    try {
+      snapshot();
+    } catch (IOException | RuntimeException e) {
+      LOG.error("Failed to write payment snapshot", e);
+    }
+  }
+
+  private void loadRecords(FileChannel channel, Path file, long records, Consumer<Payment> consumer) throws IOException {
+    long chunkRecords = Math.max(1, Math.min(MAX_CHUNK_RECORDS, Math.ceilDiv(records, (long) loadThreads * CHUNKS_PER_THREAD)));
+    List<Callable<Void>> chunks = new ArrayList<>();
+    for (long first = 0; first < records; first += chunkRecords) {
+      long start = first;
+      int count = (int) Math.min(chunkRecords, records - first);
+      chunks.add(() -> {
+        loadChunk(channel, file, start, count, consumer);
+        return null;
+      });
+    }
+    try (ExecutorService loaders = Executors.newFixedThreadPool(loadThreads,
+        Thread.ofPlatform().name("payment-snapshot-loader-", 0).daemon().factory())) {
+      for (Future<Void> chunk : loaders.invokeAll(chunks)) {
+        chunk.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while loading payment snapshot " + file);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException cause) {
+        throw cause;
+      }
+      throw new IOException("Could not load payment snapshot " + file, e.getCause());
+    }
+  }
+
+  private static void loadChunk(FileChannel channel, Path file, long first, int count, Consumer<Payment> consumer)
+      throws IOException {
+    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + first * RECORD_SIZE, (long) count * RECORD_SIZE);
+    for (int i = 0; i < count; i++) {
+      int offset = i * RECORD_SIZE;
+      if (!PaymentRecordCodec.isValid(buffer, offset)) {
+        throw new IOException("Corrupt payment record " + (first + i) + " in snapshot " + file);
+      }
+      consumer.accept(PaymentRecordCodec.decode(buffer, offset));
+    }
+  }
+
+  /**
+   * Deletes all but the latest {@code retain} snapshots, then the journal segments that none of the remaining ones need.
+   */
+  private void prune() throws IOException {
+    List<Path> snapshots = snapshotFiles();
+    int obsolete = Math.max(0, snapshots.size() - retain);
+    for (Path snapshot : snapshots.subList(0, obsolete)) {
+      Files.deleteIfExists(snapshot);
+    }
+    if (journal != null && obsolete < snapshots.size()) {
+      Path oldest = snapshots.get(obsolete);
+      try (FileChannel channel = FileChannel.open(oldest, StandardOpenOption.READ)) {
+        journal.deleteSegmentsBefore(readHeader(channel, oldest).position().segment());
+      }
+    }
+  }
+
+  private static ByteBuffer encodeHeader(long records, JournalPosition position) {
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    header.putInt(0, MAGIC);
+    header.putInt(4, VERSION);
+    header.putLong(8, records);
+    header.putInt(16, position.segment());
+    header.putInt(20, position.record());
+    header.putInt(HEADER_CHECKSUM, headerChecksum(header));
+    return header;
+  }
+
+  private static Header readHeader(FileChannel channel, Path file) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    while (header.hasRemaining()) {
+      if (channel.read(header, header.position()) < 0) {
+        break;
+      }
+    }
+    if (header.hasRemaining() || header.getInt(0) != MAGIC || header.getInt(4) != VERSION
+        || header.getInt(HEADER_CHECKSUM) != headerChecksum(header)) {
+      throw new IOException("Not a payment snapshot: " + file);
+    }
+    long records = header.getLong(8);
+    if (channel.size() != HEADER_SIZE + records * RECORD_SIZE) {
+      throw new IOException("Truncated payment snapshot: " + file);
+    }
+    return new Header(records, new JournalPosition(header.getInt(16), header.getInt(20)));
+  }
+
+  private static int headerChecksum(ByteBuffer header) {
+    CRC32C checksum = new CRC32C();
+    checksum.update(header.slice(0, HEADER_CHECKSUM));
+    return (int) checksum.getValue();
+  }
+
+  private static JournalPosition awaitCheckpoint(CompletableFuture<JournalPosition> checkpoint) throws IOException {
+    try {
+      return checkpoint.join();
+    } catch (CompletionException e) {
+      throw new IOException("Payment journal checkpoint failed", e.getCause());
+    }
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  private static long generation(Path snapshot) {
+    return Long.parseLong(snapshot.getFileName().toString().substring(0, 16));
+  }
+
+  private List<Path> snapshotFiles() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.filter(file -> file.getFileName().toString().matches("\\d{16}\\.snapshot"))
+          .sorted()
+          .toList();
+    }
+  }
+
+  private void deleteTemporaryFiles() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      for (Path file : files.filter(path -> path.getFileName().toString().endsWith(".snapshot.tmp")).toList()) {
+        Files.delete(file);
+      }
+    }
+  }
+
+  private record Header(long records, JournalPosition position) {
+  }
+}
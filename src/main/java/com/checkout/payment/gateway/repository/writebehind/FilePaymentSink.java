@@ -0,0 +1,127 @@
+package com.checkout.payment.gateway.repository.writebehind;
+
+import static com.checkout.payment.gateway.repository.PaymentRecordCodec.RECORD_SIZE;
+
+import com.checkout.payment.gateway.model.Payment;
+import com.checkout.payment.gateway.repository.PaymentRecordCodec;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Appends payments to a single local file as back-to-back {@link PaymentRecordCodec} records, one {@code write} per batch.
+ *
+ * <p>With {@code fsync} every batch is forced to disk before {@link #write} returns; without it a batch is in the page cache and
+ * survives a process crash but not a power loss. A batch that fails part-way is cut off again, and on {@link #recover} torn
+ * records at the tail are discarded, so the file only ever holds whole records. An invalid record followed by valid ones cannot
+ * come from a torn write, so recovery fails instead of discarding the payments after it.
+ */
+public class FilePaymentSink implements PaymentSink {
+
+  private static final Logger LOG = LoggerFactory.getLogger(FilePaymentSink.class);
+
+  private static final int RECOVERY_CHUNK_RECORDS = 4096;
+
+  private final Path file;
+
+  private final boolean fsync;
+
+  private final FileChannel channel;
+
+  private ByteBuffer buffer = ByteBuffer.allocateDirect(RECORD_SIZE * 256);
+
+  public FilePaymentSink(Path file, boolean fsync) throws IOException {
+    Path directory = file.toAbsolutePath().getParent();
+    if (directory != null) {
+      Files.createDirectories(directory);
+    }
+    this.file = file;
+    this.fsync = fsync;
+    this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    channel.position(channel.size());
+  }
+
+  @Override
+  public long recover(Consumer<Payment> consumer) throws IOException {
+    ByteBuffer chunk = ByteBuffer.allocateDirect(RECORD_SIZE * RECOVERY_CHUNK_RECORDS);
+    byte[] record = new byte[RECORD_SIZE];
+    long position = 0;
+    long records = 0;
+    long firstInvalid = -1;
+    while (true) {
+      chunk.clear();
+      // Less than a whole record is either the end of the file or a record torn by a crash
+      if (channel.read(chunk, position) < RECORD_SIZE) {
+        break;
+      }
+      chunk.flip();
+      while (chunk.remaining() >= RECORD_SIZE) {
+        chunk.get(record);
+        Payment payment = PaymentRecordCodec.fromBytes(record);
+        if (payment == null) {
+          if (firstInvalid < 0) {
+            firstInvalid = position;
+          }
+        } else if (firstInvalid >= 0) {
+          // Only the last write can be torn, so a valid record after an invalid one means the file itself is damaged
+          throw new IOException("Corrupt payment record at offset %d in %s, followed by valid records".formatted(firstInvalid, file));
+        } else {
+          consumer.accept(payment);
+          records++;
+        }
+        position += RECORD_SIZE;
+      }
+    }
+    long end = firstInvalid < 0 ? position : firstInvalid;
+    if (channel.size() > end) {
+      LOG.warn("Discarding {} bytes after the last complete payment record in {}", channel.size() - end, file);
+      channel.truncate(end);
+    }
+    channel.position(end);
+    return records;
+  }
+
+  @Override
+  public void write(List<Payment> batch) throws IOException {
+    int bytes = batch.size() * RECORD_SIZE;
+    if (buffer.capacity() < bytes) {
+      buffer = ByteBuffer.allocateDirect(Integer.highestOneBit(bytes - 1) << 1);
+    }
+    buffer.clear();
+    for (Payment payment : batch) {
+      PaymentRecordCodec.encode(payment, buffer, buffer.position());
+      buffer.position(buffer.position() + RECORD_SIZE);
+    }
+    buffer.flip();
+
+    long start = channel.position();
+    try {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      if (fsync) {
+        channel.force(false);
+      }
+    } catch (IOException e) {
+      channel.truncate(start);
+      channel.position(start);
+      throw e;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (!channel.isOpen()) {
+      return;
+    }
+    channel.force(false);
+    channel.close();
+  }
+}
@@ -0,0 +1,28 @@
+package com.checkout.payment.gateway.repository.writebehind;
+
+import com.checkout.payment.gateway.model.Payment;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Durable storage behind {@link PaymentWriteBehind}. Only the write-behind writer thread calls {@link #write}, so implementations
+ * need not be thread-safe.
+ */
+public interface PaymentSink extends Closeable {
+
+  /**
+   * Feeds every stored payment to {@code consumer}, oldest write first, before the first {@link #write}. Later writes of the same
+   * payment supersede earlier ones.
+   *
+   * @return the number of payments replayed
+   */
+  long recover(Consumer<Payment> consumer) throws IOException;
+
+  /**
+   * Stores {@code batch} in order. When this returns normally the whole batch is durable; when it throws, none of it may be
+   * assumed stored and the batch is written again.
+   */
+  void write(List<Payment> batch) throws IOException;
+}
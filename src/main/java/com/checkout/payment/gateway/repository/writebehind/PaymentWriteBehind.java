@@ -0,0 +1,239 @@
+package com.checkout.payment.gateway.repository.writebehind;
+
+import com.checkout.payment.gateway.exception.PaymentStorageOverloadedException;
+import com.checkout.payment.gateway.model.Payment;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Write-behind stage between {@link com.checkout.payment.gateway.repository.PaymentsRepository} and a {@link PaymentSink}.
+ *
+ * <p>{@link #offer} puts the payment on a {@link WriteBehindRingBuffer} and returns at once, so storing a payment costs the
+ * request a few atomic operations rather than a storage round trip. A single writer thread drains the ring in batches of up to
+ * {@code flush-size} payments and writes each batch to the sink. It wakes every {@code flush-interval}, or sooner once a full batch
+ * is waiting. A batch the sink fails to write is retried every {@code flush-interval} until it succeeds, in order, so payments are
+ * never skipped.
+ *
+ * <p>When the ring is full the payment waits in an overflow queue and {@link #offer} returns a future that completes once the
+ * writer has made room for it. The caller's response is held back until then, which slows clients down to the rate the sink can
+ * absorb without blocking any thread. Later offers queue behind waiting ones, so payments reach the sink in the order they were
+ * offered. At most {@code max-waiting} payments wait there; beyond that {@link #offer} fails fast with
+ * {@link PaymentStorageOverloadedException} rather than let a stalled sink fill the heap.
+ *
+ * <p>{@link #close} stops accepting payments, writes everything already accepted, and closes the sink, giving up after
+ * {@code shutdown-timeout}.
+ */
+@Component
+@ConditionalOnProperty(name = "payments.write-behind.enabled", havingValue = "true")
+public class PaymentWriteBehind implements MeterBinder, AutoCloseable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(PaymentWriteBehind.class);
+
+  private static final CompletableFuture<Void> ACCEPTED = CompletableFuture.completedFuture(null);
+
+  private final PaymentSink sink;
+
+  private final WriteBehindRingBuffer ring;
+
+  private final ConcurrentLinkedQueue<Waiting> overflow = new ConcurrentLinkedQueue<>();
+
+  // Counted separately, since ConcurrentLinkedQueue.size() walks the whole queue
+  private final AtomicInteger waiting = new AtomicInteger();
+
+  private final int maxWaiting;
+
+  private final int flushSize;
+
+  private final long flushIntervalNanos;
+
+  private final Duration shutdownTimeout;
+
+  private final Thread writer;
+
+  private final AtomicInteger offering = new AtomicInteger();
+
+  private final LongAdder backpressured = new LongAdder();
+
+  private final LongAdder refused = new LongAdder();
+
+  private final LongAdder written = new LongAdder();
+
+  private final LongAdder failures = new LongAdder();
+
+  private volatile boolean running = true;
+
+  public PaymentWriteBehind(PaymentSink sink, @Value("${payments.write-behind.buffer-size:65536}") int bufferSize,
+      @Value("${payments.write-behind.flush-size:512}") int flushSize,
+      @Value("${payments.write-behind.flush-interval:10ms}") Duration flushInterval,
+      @Value("${payments.write-behind.max-waiting:65536}") int maxWaiting,
+      @Value("${payments.write-behind.shutdown-timeout:30s}") Duration shutdownTimeout) {
+    this.sink = sink;
+    this.ring = new WriteBehindRingBuffer(bufferSize);
+    this.maxWaiting = maxWaiting;
+    this.flushSize = flushSize;
+    this.flushIntervalNanos = flushInterval.toNanos();
+    this.shutdownTimeout = shutdownTimeout;
+    this.writer = new Thread(this::writeLoop, "payment-write-behind");
+    this.writer.setDaemon(true);
+    this.writer.start();
+  }
+
+  /**
+   * Replays the payments held by the sink. Must be called before the first {@link #offer}.
+   */
+  public long recover(Consumer<Payment> consumer) {
+    try {
+      return sink.recover(consumer);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not recover payments from the write-behind sink", e);
+    }
+  }
+
+  /**
+   * Queues {@code payment} for the sink.
+   *
+   * @return a future that is already complete unless the buffer was full, in which case it completes once the payment is queued
+   * @throws PaymentStorageOverloadedException if the buffer is full and {@code max-waiting} payments are already waiting for room
+   */
+  public CompletableFuture<Void> offer(Payment payment) {
+    offering.incrementAndGet();
+    try {
+      if (!running) {
+        throw new IllegalStateException("Payment write-behind is closed");
+      }
+      if (overflow.isEmpty() && ring.offer(payment)) {
+        if (ring.size() >= flushSize) {
+          LockSupport.unpark(writer);
+        }
+        return ACCEPTED;
+      }
+      if (waiting.incrementAndGet() > maxWaiting) {
+        waiting.decrementAndGet();
+        refused.increment();
+        throw new PaymentStorageOverloadedException("Payment storage is overloaded");
+      }
+      CompletableFuture<Void> queued = new CompletableFuture<>();
+      overflow.add(new Waiting(payment, queued));
+      backpressured.increment();
+      LockSupport.unpark(writer);
+      return queued;
+    } finally {
+      offering.decrementAndGet();
+    }
+  }
+
+  /**
+   * Payments accepted and not yet written, including those waiting for room in the buffer.
+   */
+  public int getQueueDepth() {
+    return ring.size() + waiting.get();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("payments.write-behind.queue.depth", this, PaymentWriteBehind::getQueueDepth)
+        .description("Payments accepted and not yet written, including those waiting for room in the buffer")
+        .register(registry);
+    FunctionCounter.builder("payments.write-behind.backpressure", backpressured, LongAdder::sum)
+        .description("Payments that waited for room in a full write-behind buffer")
+        .register(registry);
+    FunctionCounter.builder("payments.write-behind.refused", refused, LongAdder::sum)
+        .description("Payments refused because too many were already waiting for room in the write-behind buffer")
+        .register(registry);
+    FunctionCounter.builder("payments.write-behind.written", written, LongAdder::sum)
+        .description("Payments written to the write-behind sink")
+        .register(registry);
+    FunctionCounter.builder("payments.write-behind.failures", failures, LongAdder::sum)
+        .description("Write-behind batches the sink failed to write")
+        .register(registry);
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (!running) {
+      return;
+    }
+    running = false;
+    LockSupport.unpark(writer);
+    try {
+      writer.join(shutdownTimeout.toMillis());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (writer.isAlive()) {
+      LOG.error("Gave up after {} with {} payments not written to the write-behind sink", shutdownTimeout, getQueueDepth());
+      writer.interrupt();
+    }
+    sink.close();
+  }
+
+  private void writeLoop() {
+    List<Payment> batch = new ArrayList<>(flushSize);
+    while (!Thread.currentThread().isInterrupted()) {
+      boolean stopping = !running;
+      if (stopping) {
+        // Offers that saw the stage open finish before the final drain, so none of them can be left behind
+        while (offering.get() > 0) {
+          Thread.onSpinWait();
+        }
+      }
+      admitOverflow();
+      while (ring.drainTo(batch, flushSize) > 0) {
+        write(batch);
+        batch.clear();
+        admitOverflow();
+      }
+      if (stopping && overflow.isEmpty()) {
+        return;
+      }
+      LockSupport.parkNanos(this, stopping ? 0 : flushIntervalNanos);
+    }
+  }
+
+  private void admitOverflow() {
+    Waiting next;
+    while ((next = overflow.peek()) != null && ring.offer(next.payment())) {
+      overflow.poll();
+      waiting.decrementAndGet();
+      next.queued().complete(null);
+    }
+  }
+
+  private void write(List<Payment> batch) {
+    while (true) {
+      try {
+        sink.write(batch);
+        written.add(batch.size());
+        return;
+      } catch (IOException | RuntimeException e) {
+        failures.increment();
+        LOG.error("Failed to write {} payments to the write-behind sink, retrying", batch.size(), e);
+        LockSupport.parkNanos(this, flushIntervalNanos);
+        if (Thread.currentThread().isInterrupted()) {
+          return;
+        }
+      }
+    }
+  }
+
+  private record Waiting(Payment payment, CompletableFuture<Void> queued) {
+  }
+}
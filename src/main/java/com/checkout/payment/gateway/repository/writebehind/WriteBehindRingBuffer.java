@@ -0,0 +1,101 @@
+package com.checkout.payment.gateway.repository.writebehind;
+
+import com.checkout.payment.gateway.model.Payment;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded lock-free ring of payments with many producers and a single consumer.
+ *
+ * <p>Every slot carries a sequence number saying whose turn it is: a producer may claim position {@code p} when its slot reads
+ * {@code p}, and publishes the payment by setting it to {@code p + 1}, which is what the consumer waits for. The consumer
+ * hands the slot back for the next lap by setting it to {@code p + capacity}. Producers only contend on the claim cursor, and
+ * nothing is allocated per payment.
+ */
+final class WriteBehindRingBuffer {
+
+  private static final VarHandle SEQUENCES = MethodHandles.arrayElementVarHandle(long[].class);
+
+  private final int mask;
+
+  private final long[] sequences;
+
+  private final Payment[] payments;
+
+  private final AtomicLong tail = new AtomicLong();
+
+  // Written by the consumer only
+  private volatile long head;
+
+  WriteBehindRingBuffer(int capacity) {
+    if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("Ring buffer capacity must be a power of two, was " + capacity);
+    }
+    this.mask = capacity - 1;
+    this.sequences = new long[capacity];
+    this.payments = new Payment[capacity];
+    for (int i = 0; i < capacity; i++) {
+      sequences[i] = i;
+    }
+  }
+
+  /**
+   * Returns {@code false} without waiting if the ring is full.
+   */
+  boolean offer(Payment payment) {
+    long position = tail.get();
+    while (true) {
+      int slot = (int) position & mask;
+      long difference = (long) SEQUENCES.getAcquire(sequences, slot) - position;
+      if (difference == 0) {
+        if (tail.compareAndSet(position, position + 1)) {
+          payments[slot] = payment;
+          SEQUENCES.setRelease(sequences, slot, position + 1);
+          return true;
+        }
+        position = tail.get();
+      } else if (difference < 0) {
+        // The slot still holds a payment from the previous lap
+        return false;
+      } else {
+        position = tail.get();
+      }
+    }
+  }
+
+  /**
+   * Moves up to {@code max} published payments into {@code batch}, oldest first. Only the consumer thread may call this.
+   *
+   * @return the number of payments moved
+   */
+  int drainTo(List<Payment> batch, int max) {
+    long position = head;
+    int drained = 0;
+    while (drained < max) {
+      int slot = (int) position & mask;
+      if ((long) SEQUENCES.getAcquire(sequences, slot) != position + 1) {
+        break;
+      }
+      batch.add(payments[slot]);
+      payments[slot] = null;
+      SEQUENCES.setRelease(sequences, slot, position + mask + 1);
+      position++;
+      drained++;
+    }
+    head = position;
+    return drained;
+  }
+
+  /**
+   * Payments claimed and not yet drained, including any still being published.
+   */
+  int size() {
+    return (int) Math.max(0, tail.get() - head);
+  }
+
+  int capacity() {
+    return mask + 1;
+  }
+}
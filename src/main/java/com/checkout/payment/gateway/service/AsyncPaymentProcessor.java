@@ -0,0 +1,156 @@
+package com.checkout.payment.gateway.service;
+
+import com.checkout.payment.gateway.exception.PaymentQueueFullException;
+import com.checkout.payment.gateway.model.CreditCard;
+import com.checkout.payment.gateway.model.Payment;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Opt-in accept-then-poll mode ({@code payments.async.enabled=true}). A submitted payment is stored as pending and its
+ * authorization is queued for a fixed pool of {@code payments.async.workers} threads, so the request returns without waiting for
+ * the bank.
+ *
+ * <p>At most {@code payments.async.queue-capacity} authorizations wait in the queue. Beyond that, submissions fail with
+ * {@link PaymentQueueFullException} before anything is stored. A slow bank therefore shows up as a full queue rather than as
+ * slow requests.
+ *
+ * <p>On shutdown, new submissions are refused and the workers drain the queue for up to {@code payments.async.shutdown-timeout},
+ * including payments from submissions accepted before shutdown that were still being stored as pending.
+ * Card details are never persisted, so a payment still pending after that stays pending.
+ */
+@Component
+@ConditionalOnProperty(name = "payments.async.enabled", havingValue = "true")
+public class AsyncPaymentProcessor implements MeterBinder, AutoCloseable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(AsyncPaymentProcessor.class);
+
+  private static final long POLL_INTERVAL_MILLIS = 100;
+
+  private final PaymentGatewayService paymentGatewayService;
+
+  private final BlockingQueue<PendingAuthorization> queue = new LinkedBlockingQueue<>();
+
+  // One permit per free queue slot, taken before the pending payment is stored and returned when a worker takes it off the queue
+  private final Semaphore queueSlots;
+
+  private final int queueCapacity;
+
+  private final Thread[] workers;
+
+  private final Duration shutdownTimeout;
+
+  private final LongAdder rejected = new LongAdder();
+
+  // Submits past the closed check whose pending payment may not be queued yet; workers keep going until these have landed
+  private final AtomicInteger submitting = new AtomicInteger();
+
+  private volatile boolean closed;
+
+  public AsyncPaymentProcessor(PaymentGatewayService paymentGatewayService,
+      @Value("${payments.async.queue-capacity:10000}") int queueCapacity,
+      @Value("${payments.async.workers:64}") int workerCount,
+      @Value("${payments.async.shutdown-timeout:30s}") Duration shutdownTimeout) {
+    this.paymentGatewayService = paymentGatewayService;
+    this.queueSlots = new Semaphore(queueCapacity);
+    this.queueCapacity = queueCapacity;
+    this.shutdownTimeout = shutdownTimeout;
+    this.workers = new Thread[workerCount];
+    for (int i = 0; i < workerCount; i++) {
+      workers[i] = Thread.ofPlatform().name("payment-worker-" + i).daemon().start(this::work);
+    }
+  }
+
+  /**
+   * Stores {@code payment} as pending and queues its authorization. The returned payment is the pending one; poll it by id for
+   * the outcome.
+   */
+  public Mono<Payment> submit(Payment payment, CreditCard creditCard) {
+    return Mono.defer(() -> {
+      // Counted before closed is read, so a worker that sees no submits in flight after closing cannot miss this one
+      submitting.incrementAndGet();
+      if (closed || !queueSlots.tryAcquire()) {
+        submitting.decrementAndGet();
+        rejected.increment();
+        return Mono.error(new PaymentQueueFullException("Too many payments awaiting authorization"));
+      }
+      return paymentGatewayService.acceptPayment(payment)
+          .doOnNext(pending -> queue.add(new PendingAuthorization(pending, creditCard)))
+          .doOnError(e -> queueSlots.release())
+          .doFinally(signal -> submitting.decrementAndGet());
+    });
+  }
+
+  /**
+   * Queue slots in use, including those reserved by payments still being stored as pending.
+   */
+  public int getQueueDepth() {
+    return queueCapacity - queueSlots.availablePermits();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("payments.async.queue.depth", this, AsyncPaymentProcessor::getQueueDepth)
+        .description("Accepted payments waiting for a worker to authorize them")
+        .register(registry);
+    FunctionCounter.builder("payments.async.rejections", rejected, LongAdder::sum)
+        .description("Payments refused because the authorization queue was full")
+        .register(registry);
+  }
+
+  @Override
+  public void close() throws InterruptedException {
+    closed = true;
+    long deadline = System.nanoTime() + shutdownTimeout.toNanos();
+    for (Thread worker : workers) {
+      worker.join(Duration.ofNanos(Math.max(0, deadline - System.nanoTime())));
+    }
+    for (Thread worker : workers) {
+      worker.interrupt();
+    }
+    int left = queue.size() + submitting.get();
+    if (left > 0) {
+      LOG.warn("{} accepted payments were left pending at shutdown", left);
+    }
+  }
+
+  private void work() {
+    // Read in this order: once closed, a submit either is counted here or sees closed and is refused, and one that is no longer
+    // counted has already queued its payment
+    while (!closed || submitting.get() > 0 || !queue.isEmpty()) {
+      PendingAuthorization next;
+      try {
+        next = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        return;
+      }
+      if (next == null) {
+        continue;
+      }
+      queueSlots.release();
+      try {
+        paymentGatewayService.completePayment(next.payment(), next.creditCard()).block();
+      } catch (RuntimeException e) {
+        LOG.error("Could not complete pending payment {}", next.payment().getId(), e);
+      }
+    }
+  }
+
+  private record PendingAuthorization(Payment payment, CreditCard creditCard) {
+  }
+}
@@ -2,14 +2,24 @@ package com.checkout.payment.gateway.service;
 
 import com.checkout.payment.gateway.client.AcquiringBankClient;
 import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.event.PaymentEventBus;
 import com.checkout.payment.gateway.exception.PaymentNotFoundException;
+import com.checkout.payment.gateway.id.PaymentIdGenerator;
+import com.checkout.payment.gateway.metrics.PaymentMetrics;
+import com.checkout.payment.gateway.metrics.PaymentMetrics.Stage;
 import com.checkout.payment.gateway.model.CreditCard;
 import com.checkout.payment.gateway.model.Payment;
+import com.checkout.payment.gateway.repository.PaymentAggregates;
+import com.checkout.payment.gateway.repository.PaymentQuery;
 import com.checkout.payment.gateway.repository.PaymentsRepository;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @Service
 public class PaymentGatewayService {
@@ -20,23 +30,117 @@ public class PaymentGatewayService {
 
   private final AcquiringBankClient acquiringBankClient;
 
-  public PaymentGatewayService(PaymentsRepository paymentsRepository, AcquiringBankClient acquiringBankClient) {
+  private final PaymentMetrics paymentMetrics;
+
+  private final PaymentIdGenerator paymentIdGenerator;
+
+  private final PaymentEventBus paymentEventBus;
+
+  public PaymentGatewayService(PaymentsRepository paymentsRepository, AcquiringBankClient acquiringBankClient, PaymentMetrics paymentMetrics,
+      PaymentIdGenerator paymentIdGenerator, PaymentEventBus paymentEventBus) {
     this.paymentsRepository = paymentsRepository;
     this.acquiringBankClient = acquiringBankClient;
+    this.paymentMetrics = paymentMetrics;
+    this.paymentIdGenerator = paymentIdGenerator;
+    this.paymentEventBus = paymentEventBus;
   }
 
   public Payment getPaymentById(UUID id) {
     LOG.debug("Requesting access to to payment with ID {}", id);
     return paymentsRepository.getById(id)
-        .orElseThrow(() -> new PaymentNotFoundException("Payment not found"));
+        .orElseThrow(() -> PaymentNotFoundException.INSTANCE);
+  }
+
+  public Stream<Payment> queryPayments(PaymentQuery query) {
+    return paymentsRepository.query(query);
   }
 
-  public void processPayment(Payment payment, CreditCard creditCard) {
-    PaymentStatus status = acquiringBankClient.authorizePayment(payment, creditCard);
+  /**
+   * Streams the payment with {@code id} as it is now and then on every status change, ending once it has a final status.
+   */
+  public Flux<Payment> streamPayment(UUID id) {
+    getPaymentById(id);
+    return paymentEventBus.subscribe(id, () -> paymentsRepository.getById(id).orElse(null))
+        .takeUntil(payment -> payment.getStatus() != PaymentStatus.PENDING);
+  }
+
+  /**
+   * Streams every payment stored from now on, each time its status changes.
+   */
+  public Flux<Payment> streamPayments() {
+    return paymentEventBus.subscribe(null, () -> null);
+  }
+
+  public PaymentAggregates getAggregates() {
+    return paymentsRepository.aggregates();
+  }
 
-    payment.setId(UUID.randomUUID());
-    payment.setStatus(status);
+  public Mono<Payment> processPayment(Payment payment, CreditCard creditCard) {
+    return authorizeAndStore(payment, creditCard, status -> {
+      payment.setId(paymentIdGenerator.nextId());
+      payment.setStatus(status);
+      return payment;
+    });
+  }
+
+  /**
+   * Stores {@code payment} as {@link PaymentStatus#PENDING} under a new id, to be authorized later by {@link #completePayment}.
+   */
+  public Mono<Payment> acceptPayment(Payment payment) {
+    return Mono.defer(() -> {
+      payment.setId(paymentIdGenerator.nextId());
+      payment.setStatus(PaymentStatus.PENDING);
+      return store(payment);
+    });
+  }
+
+  /**
+   * Authorizes a payment accepted by {@link #acceptPayment} and stores it again with the outcome. If the bank cannot be reached or
+   * does not answer in time the payment is stored as {@link PaymentStatus#REJECTED}, since nobody is waiting to retry it.
+   */
+  public Mono<Payment> completePayment(Payment pending, CreditCard creditCard) {
+    return authorizeAndStore(pending, creditCard, status -> withStatus(pending, status))
+        .onErrorResume(e -> {
+          LOG.warn("Rejecting pending payment {} after a failed authorization: {}", pending.getId(), e.getMessage());
+          return store(withStatus(pending, PaymentStatus.REJECTED));
+        });
+  }
+
+  // The doFinally callbacks timing authorization and storage capture their start time, so each allocates once per payment
+  private Mono<Payment> authorizeAndStore(Payment payment, CreditCard creditCard, Function<PaymentStatus, Payment> withOutcome) {
+    return Mono.defer(() -> {
+      paymentMetrics.paymentStarted();
+      long authorizationStarted = System.nanoTime();
+      return acquiringBankClient.authorizePayment(payment, creditCard)
+          .doFinally(signal -> paymentMetrics.recordStage(Stage.AUTHORIZATION, authorizationStarted))
+          .flatMap(status -> store(withOutcome.apply(status)))
+          .doOnNext(processed -> paymentMetrics.paymentProcessed(processed.getStatus()))
+          .doOnError(paymentMetrics::paymentFailed)
+          .doFinally(signal -> paymentMetrics.paymentFinished());
+    });
+  }
+
+  /**
+   * Stores {@code payment} and, once it is durable, publishes it to the event streams.
+   */
+  private Mono<Payment> store(Payment payment) {
+    long storageStarted = System.nanoTime();
+    return Mono.fromFuture(paymentsRepository.add(payment))
+        .doFinally(signal -> paymentMetrics.recordStage(Stage.STORAGE, storageStarted))
+        .doOnSuccess(durable -> paymentEventBus.publish(payment))
+        .thenReturn(payment);
+  }
 
-    paymentsRepository.add(payment);
+  // Stored payments are replaced rather than updated in place, so the repository can tell what the previous status was
+  private static Payment withStatus(Payment payment, PaymentStatus status) {
+    Payment updated = new Payment();
+    updated.setId(payment.getId());
+    updated.setStatus(status);
+    updated.setCardNumberLastFour(payment.getCardNumberLastFour());
+    updated.setExpiryMonth(payment.getExpiryMonth());
+    updated.setExpiryYear(payment.getExpiryYear());
+    updated.setCurrency(payment.getCurrency());
+    updated.setAmount(payment.getAmount());
+    return updated;
   }
 }
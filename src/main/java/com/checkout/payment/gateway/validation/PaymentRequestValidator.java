@@ -0,0 +1,167 @@
+package com.checkout.payment.gateway.validation;
+
+import com.checkout.payment.gateway.dto.PostPaymentRequestDTO;
+import com.checkout.payment.gateway.enums.Currency;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hand-written equivalent of the Bean Validation constraints declared on {@link PostPaymentRequestDTO}, for the request path.
+ *
+ * <p>It produces the same messages for the same inputs, but scans digits and matches currencies directly instead of running
+ * regexes, and compares the expiry date with a current year-month that a background timer refreshes, rather than calling
+ * {@link YearMonth#now()} per request. A valid request allocates nothing.
+ */
+@Component
+public class PaymentRequestValidator implements AutoCloseable {
+
+  static final String CARD_NUMBER_REQUIRED = "Card number must be provided";
+  static final String CARD_NUMBER_FORMAT = "Card number must be between 14 and 19 digits";
+  static final String CVV_REQUIRED = "CVV must be provided";
+  static final String CVV_FORMAT = "CVV must be 3 or 4 digits";
+  static final String EXPIRY_MONTH_RANGE = "Expiry month must be between 1 and 12";
+  static final String EXPIRY_YEAR_MINIMUM = "Expiry year must be current year or later";
+  static final String CURRENCY_REQUIRED = "Currency must be provided";
+  static final String CURRENCY_SUPPORTED = "Currency must be one of USD, EUR, or GBP";
+  static final String AMOUNT_POSITIVE = "Amount must be greater than zero";
+  static final String EXPIRY_DATE_FUTURE = "Expiry date must be in the future";
+
+  // Mirrors @Min on PostPaymentRequestDTO.expiryYear
+  private static final int MIN_EXPIRY_YEAR = 2024;
+  private static final int MAX_YEAR = 999_999_999;
+  private static final int MAX_ERRORS = 10;
+  private static final String[] NO_ERRORS = new String[0];
+
+  private final Clock clock;
+
+  private final ScheduledExecutorService refresher;
+
+  // year * 12 + (month - 1), so that year-months compare as plain numbers
+  private volatile long currentMonth;
+
+  @Autowired
+  public PaymentRequestValidator(@Value("${payments.validation.clock-refresh-interval:1s}") Duration refreshInterval) {
+    this(Clock.systemDefaultZone(), refreshInterval);
+  }
+
+  PaymentRequestValidator(Clock clock, Duration refreshInterval) {
+    this.clock = clock;
+    refreshCurrentMonth();
+    this.refresher = Executors.newSingleThreadScheduledExecutor(task -> {
+      Thread thread = new Thread(task, "payment-validation-clock");
+      thread.setDaemon(true);
+      return thread;
+    });
+    refresher.scheduleAtFixedRate(this::refreshCurrentMonth, refreshInterval.toNanos(), refreshInterval.toNanos(), TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Returns the messages of every constraint {@code request} violates, or an empty array if it is valid.
+   */
+  public String[] validate(PostPaymentRequestDTO request) {
+    String[] errors = null;
+    int count = 0;
+
+    String cardNumber = request.getCardNumber();
+    if (isBlank(cardNumber)) {
+      errors = add(errors, count++, CARD_NUMBER_REQUIRED);
+    }
+    if (cardNumber != null && !isDigits(cardNumber, 14, 19)) {
+      errors = add(errors, count++, CARD_NUMBER_FORMAT);
+    }
+
+    String cvv = request.getCvv();
+    if (isBlank(cvv)) {
+      errors = add(errors, count++, CVV_REQUIRED);
+    }
+    if (cvv != null && !isDigits(cvv, 3, 4)) {
+      errors = add(errors, count++, CVV_FORMAT);
+    }
+
+    int expiryMonth = request.getExpiryMonth();
+    if (expiryMonth < 1 || expiryMonth > 12) {
+      errors = add(errors, count++, EXPIRY_MONTH_RANGE);
+    }
+    int expiryYear = request.getExpiryYear();
+    if (expiryYear < MIN_EXPIRY_YEAR) {
+      errors = add(errors, count++, EXPIRY_YEAR_MINIMUM);
+    }
+
+    String currency = request.getCurrency();
+    if (isBlank(currency)) {
+      errors = add(errors, count++, CURRENCY_REQUIRED);
+    }
+    if (currency != null && !isSupportedCurrency(currency)) {
+      errors = add(errors, count++, CURRENCY_SUPPORTED);
+    }
+
+    if (request.getAmount() <= 0) {
+      errors = add(errors, count++, AMOUNT_POSITIVE);
+    }
+
+    // Like isExpiryDateValid, a month or year that cannot form a date is left to the other constraints
+    boolean isExpiryDate = expiryMonth >= 1 && expiryMonth <= 12 && expiryYear >= -MAX_YEAR && expiryYear <= MAX_YEAR;
+    if (isExpiryDate && expiryYear * 12L + expiryMonth - 1 <= currentMonth) {
+      errors = add(errors, count++, EXPIRY_DATE_FUTURE);
+    }
+
+    return count == 0 ? NO_ERRORS : Arrays.copyOf(errors, count);
+  }
+
+  @Override
+  public void close() {
+    refresher.shutdownNow();
+  }
+
+  private void refreshCurrentMonth() {
+    YearMonth now = YearMonth.now(clock);
+    currentMonth = now.getYear() * 12L + now.getMonthValue() - 1;
+  }
+
+  private static String[] add(String[] errors, int index, String error) {
+    String[] target = errors == null ? new String[MAX_ERRORS] : errors;
+    target[index] = error;
+    return target;
+  }
+
+  /**
+   * Same rule as {@code @NotBlank}: null, or nothing left once leading and trailing control characters and spaces are trimmed.
+   */
+  private static boolean isBlank(String value) {
+    if (value == null) {
+      return true;
+    }
+    for (int i = 0; i < value.length(); i++) {
+      if (value.charAt(i) > ' ') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isDigits(String value, int minLength, int maxLength) {
+    int length = value.length();
+    if (length < minLength || length > maxLength) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      char c = value.charAt(i);
+      if (c < '0' || c > '9') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isSupportedCurrency(String currency) {
+    return Currency.fromCode(currency) != null;
+  }
+}
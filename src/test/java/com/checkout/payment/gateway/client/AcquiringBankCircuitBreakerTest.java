@@ -0,0 +1,87 @@
+package com.checkout.payment.gateway.client;
+
+import com.checkout.payment.gateway.client.AcquiringBankCircuitBreaker.State;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AcquiringBankCircuitBreakerTest {
+
+  private static final int THREADS = 8;
+  private static final int CALLS_PER_THREAD = 200_000;
+
+  @Test
+  public void shouldOpenOnceFailureRateReachesThreshold() {
+    AcquiringBankCircuitBreaker circuitBreaker = new AcquiringBankCircuitBreaker(10, 4, 0.5, Duration.ofHours(1), 1);
+
+    circuitBreaker.onSuccess();
+    circuitBreaker.onSuccess();
+    circuitBreaker.onError();
+    assertEquals(State.CLOSED, circuitBreaker.getState());
+    circuitBreaker.onError();
+
+    assertEquals(State.OPEN, circuitBreaker.getState());
+    assertFalse(circuitBreaker.tryAcquirePermission());
+  }
+
+  @Test
+  public void shouldForgetFailuresOfPreviousWindow() {
+    AcquiringBankCircuitBreaker circuitBreaker = new AcquiringBankCircuitBreaker(10, 10, 0.5, Duration.ofHours(1), 1);
+
+    for (int i = 0; i < 10; i++) {
+      if (i < 4) {
+        circuitBreaker.onError();
+      } else {
+        circuitBreaker.onSuccess();
+      }
+    }
+    for (int i = 0; i < 4; i++) {
+      circuitBreaker.onError();
+    }
+    for (int i = 0; i < 6; i++) {
+      circuitBreaker.onSuccess();
+    }
+
+    assertEquals(State.CLOSED, circuitBreaker.getState());
+  }
+
+  @Test
+  public void shouldNotOpenWhileWindowsRollOverConcurrently() throws Exception {
+    // Every thread fails one call in ten. However the threads interleave, a window of t >= 20 calls holds at most t / 10 + THREADS
+    // failures, which stays below 60% of it; only a window whose counts were reset apart can look worse than that
+    AcquiringBankCircuitBreaker circuitBreaker = new AcquiringBankCircuitBreaker(100, 20, 0.6, Duration.ofHours(1), 1);
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    CountDownLatch start = new CountDownLatch(1);
+    try {
+      List<Future<?>> threads = new ArrayList<>();
+      for (int t = 0; t < THREADS; t++) {
+        threads.add(executor.submit(() -> {
+          start.await();
+          for (int i = 0; i < CALLS_PER_THREAD; i++) {
+            if (i % 10 == 9) {
+              circuitBreaker.onError();
+            } else {
+              circuitBreaker.onSuccess();
+            }
+          }
+          return null;
+        }));
+      }
+      start.countDown();
+      for (Future<?> thread : threads) {
+        thread.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(State.CLOSED, circuitBreaker.getState());
+  }
+}
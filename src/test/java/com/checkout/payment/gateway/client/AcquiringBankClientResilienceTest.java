@@ -0,0 +1,176 @@
+package com.checkout.payment.gateway.client;
+
+import com.checkout.payment.gateway.enums.Currency;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.exception.AcquiringBankUnavailableException;
+import com.checkout.payment.gateway.loadtest.StubAcquiringBank;
+import com.checkout.payment.gateway.model.CreditCard;
+import com.checkout.payment.gateway.model.Payment;
+import java.time.Duration;
+import java.time.YearMonth;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AcquiringBankClientResilienceTest {
+
+  private StubAcquiringBank bank;
+
+  @BeforeEach
+  public void setUp() {
+    bank = new StubAcquiringBank(Duration.ZERO);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    bank.close();
+  }
+
+  @Test
+  public void shouldFailFastOnceCircuitBreakerOpens() {
+    bank.setErrorRate(1.0);
+    AcquiringBankCircuitBreaker circuitBreaker = new AcquiringBankCircuitBreaker(10, 5, 0.5, Duration.ofMinutes(1), 2);
+    AcquiringBankClient client = createClient(createLimiter(10, Duration.ofSeconds(1)), circuitBreaker);
+
+    for (int i = 0; i < 5; i++) {
+      StepVerifier.create(client.authorizePayment(createTestPayment(), createTestCreditCard()))
+          .expectNext(PaymentStatus.DECLINED)
+          .verifyComplete();
+    }
+    assertEquals(AcquiringBankCircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+    long requestsBefore = bank.requests();
+    StepVerifier.create(client.authorizePayment(createTestPayment(), createTestCreditCard()))
+        .expectError(AcquiringBankUnavailableException.class)
+        .verify();
+    assertEquals(requestsBefore, bank.requests());
+  }
+
+  @Test
+  public void shouldCloseCircuitBreakerAfterSuccessfulTrialCalls() throws Exception {
+    bank.setErrorRate(1.0);
+    AcquiringBankCircuitBreaker circuitBreaker = new AcquiringBankCircuitBreaker(10, 5, 0.5, Duration.ofMillis(50), 2);
+    AcquiringBankClient client = createClient(createLimiter(10, Duration.ofSeconds(1)), circuitBreaker);
+    for (int i = 0; i < 5; i++) {
+      client.authorizePayment(createTestPayment(), createTestCreditCard()).block();
+    }
+    assertEquals(AcquiringBankCircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+    bank.setErrorRate(0);
+    Thread.sleep(100);
+    for (int i = 0; i < 2; i++) {
+      StepVerifier.create(client.authorizePayment(createTestPayment(), createTestCreditCard()))
+          .expectNext(PaymentStatus.AUTHORIZED)
+          .verifyComplete();
+    }
+
+    assertEquals(AcquiringBankCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+  }
+
+  @Test
+  public void shouldReopenCircuitBreakerWhenTrialCallFails() throws Exception {
+    bank.setErrorRate(1.0);
+    AcquiringBankCircuitBreaker circuitBreaker = new AcquiringBankCircuitBreaker(10, 5, 0.5, Duration.ofMillis(50), 2);
+    AcquiringBankClient client = createClient(createLimiter(10, Duration.ofSeconds(1)), circuitBreaker);
+    for (int i = 0; i < 5; i++) {
+      client.authorizePayment(createTestPayment(), createTestCreditCard()).block();
+    }
+
+    Thread.sleep(100);
+    client.authorizePayment(createTestPayment(), createTestCreditCard()).block();
+
+    assertEquals(AcquiringBankCircuitBreaker.State.OPEN, circuitBreaker.getState());
+  }
+
+  @Test
+  public void shouldLowerConcurrencyLimitWhenBankSlowsDown() {
+    bank.setLatency(Duration.ofMillis(100));
+    AcquiringBankConcurrencyLimiter concurrencyLimiter = createLimiter(20, Duration.ofMillis(50));
+    AcquiringBankClient client = createClient(concurrencyLimiter, new AcquiringBankCircuitBreaker(100, 20, 0.5, Duration.ofSeconds(10), 5));
+
+    for (int i = 0; i < 5; i++) {
+      client.authorizePayment(createTestPayment(), createTestCreditCard()).block();
+    }
+
+    assertTrue(concurrencyLimiter.getLimit() < 20, "limit should have backed off, was " + concurrencyLimiter.getLimit());
+  }
+
+  @Test
+  public void shouldRaiseConcurrencyLimitWhileBankIsFastAndLimitIsUsed() {
+    AcquiringBankConcurrencyLimiter concurrencyLimiter = createLimiter(4, Duration.ofSeconds(1));
+    AcquiringBankClient client = createClient(concurrencyLimiter, new AcquiringBankCircuitBreaker(100, 20, 0.5, Duration.ofSeconds(10), 5));
+
+    Flux.range(0, 50)
+        .flatMap(i -> client.authorizePayment(createTestPayment(), createTestCreditCard()).onErrorReturn(PaymentStatus.DECLINED), 4)
+        .blockLast();
+
+    assertTrue(concurrencyLimiter.getLimit() > 4, "limit should have grown, was " + concurrencyLimiter.getLimit());
+  }
+
+  @Test
+  public void shouldRejectCallsBeyondConcurrencyLimit() {
+    bank.setLatency(Duration.ofMillis(500));
+    AcquiringBankConcurrencyLimiter concurrencyLimiter = new AcquiringBankConcurrencyLimiter(2, 2, 2, Duration.ofSeconds(1), 0.9);
+    AcquiringBankClient client = createClient(concurrencyLimiter, new AcquiringBankCircuitBreaker(100, 20, 0.5, Duration.ofSeconds(10), 5));
+
+    client.authorizePayment(createTestPayment(), createTestCreditCard()).subscribe();
+    client.authorizePayment(createTestPayment(), createTestCreditCard()).subscribe();
+
+    StepVerifier.create(client.authorizePayment(createTestPayment(), createTestCreditCard()))
+        .expectError(AcquiringBankUnavailableException.class)
+        .verify();
+  }
+
+  @Test
+  public void shouldReleasePermitOnceWhenCancelledAfterResponse() {
+    AcquiringBankConcurrencyLimiter concurrencyLimiter = createLimiter(10, Duration.ofSeconds(1));
+    AcquiringBankCircuitBreaker circuitBreaker = new AcquiringBankCircuitBreaker(100, 20, 0.5, Duration.ofSeconds(10), 5);
+    AcquiringBankClient client = createClient(concurrencyLimiter, circuitBreaker);
+
+    // take(1) cancels upstream as soon as the response arrives, after it has already been seen
+    for (int i = 0; i < 5; i++) {
+      assertEquals(PaymentStatus.AUTHORIZED, client.authorizePayment(createTestPayment(), createTestCreditCard()).flux().take(1).blockLast());
+    }
+
+    assertEquals(0, concurrencyLimiter.getInFlight());
+  }
+
+  @Test
+  public void shouldReleasePermitWhenCancelledBeforeResponse() {
+    bank.setLatency(Duration.ofSeconds(5));
+    AcquiringBankConcurrencyLimiter concurrencyLimiter = createLimiter(10, Duration.ofSeconds(1));
+    AcquiringBankClient client = createClient(concurrencyLimiter, new AcquiringBankCircuitBreaker(100, 20, 0.5, Duration.ofSeconds(10), 5));
+
+    client.authorizePayment(createTestPayment(), createTestCreditCard()).subscribe().dispose();
+
+    assertEquals(0, concurrencyLimiter.getInFlight());
+  }
+
+  private AcquiringBankConcurrencyLimiter createLimiter(int initialLimit, Duration latencyThreshold) {
+    return new AcquiringBankConcurrencyLimiter(initialLimit, 1, 100, latencyThreshold, 0.5);
+  }
+
+  private AcquiringBankClient createClient(AcquiringBankConcurrencyLimiter concurrencyLimiter, AcquiringBankCircuitBreaker circuitBreaker) {
+    return new AcquiringBankClient(bank.baseUrl(), WebClient.create(), concurrencyLimiter, circuitBreaker);
+  }
+
+  private CreditCard createTestCreditCard() {
+    return new CreditCard("2222405343248877", "123");
+  }
+
+  private Payment createTestPayment() {
+    YearMonth future = YearMonth.now().plusYears(1);
+
+    Payment payment = new Payment();
+    payment.setExpiryMonth(future.getMonthValue());
+    payment.setExpiryYear(future.getYear());
+    payment.setCurrency(Currency.GBP);
+    payment.setAmount(100);
+    return payment;
+  }
+}
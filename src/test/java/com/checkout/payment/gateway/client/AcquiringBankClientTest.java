@@ -1,10 +1,13 @@
 package com.checkout.payment.gateway.client;
 
 import com.checkout.payment.gateway.dto.AcquiringBankResponseDTO;
+import com.checkout.payment.gateway.enums.Currency;
 import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.exception.AcquiringBankTimeoutException;
 import com.checkout.payment.gateway.model.CreditCard;
 import com.checkout.payment.gateway.model.Payment;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.handler.timeout.ReadTimeoutException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Value;
@@ -14,7 +17,9 @@ import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.ExchangeFunction;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 
+import java.time.Duration;
 import java.time.YearMonth;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -37,7 +42,9 @@ public class AcquiringBankClientTest {
         .exchangeFunction(exchangeFunctionMock)
         .build();
 
-    acquiringBankClient = new AcquiringBankClient(acquiringBankBaseUrl, webClient);
+    AcquiringBankConcurrencyLimiter concurrencyLimiter = new AcquiringBankConcurrencyLimiter(10, 1, 10, Duration.ofSeconds(1), 0.9);
+    AcquiringBankCircuitBreaker circuitBreaker = new AcquiringBankCircuitBreaker(100, 20, 0.5, Duration.ofSeconds(10), 5);
+    acquiringBankClient = new AcquiringBankClient(acquiringBankBaseUrl, webClient, concurrencyLimiter, circuitBreaker);
   }
 
   @Test
@@ -53,9 +60,9 @@ public class AcquiringBankClientTest {
 
     Payment payment = createTestPayment();
     CreditCard creditCard = createTestCreditCard();
-    PaymentStatus status = acquiringBankClient.authorizePayment(payment, creditCard);
-
-    assertEquals(PaymentStatus.AUTHORIZED, status);
+    StepVerifier.create(acquiringBankClient.authorizePayment(payment, creditCard))
+        .expectNext(PaymentStatus.AUTHORIZED)
+        .verifyComplete();
   }
 
   @Test
@@ -71,9 +78,9 @@ public class AcquiringBankClientTest {
 
     Payment payment = createTestPayment();
     CreditCard creditCard = createTestCreditCard();
-    PaymentStatus status = acquiringBankClient.authorizePayment(payment, creditCard);
-
-    assertEquals(PaymentStatus.DECLINED, status);
+    StepVerifier.create(acquiringBankClient.authorizePayment(payment, creditCard))
+        .expectNext(PaymentStatus.DECLINED)
+        .verifyComplete();
   }
 
   @Test
@@ -82,9 +89,20 @@ public class AcquiringBankClientTest {
 
     Payment payment = createTestPayment();
     CreditCard creditCard = createTestCreditCard();
-    PaymentStatus status = acquiringBankClient.authorizePayment(payment, creditCard);
+    StepVerifier.create(acquiringBankClient.authorizePayment(payment, creditCard))
+        .expectNext(PaymentStatus.DECLINED)
+        .verifyComplete();
+  }
 
-    assertEquals(PaymentStatus.DECLINED, status);
+  @Test
+  public void shouldFailWithTimeoutIfBankDoesNotRespondInTime() {
+    when(exchangeFunctionMock.exchange(any(ClientRequest.class))).thenReturn(Mono.error(ReadTimeoutException.INSTANCE));
+
+    Payment payment = createTestPayment();
+    CreditCard creditCard = createTestCreditCard();
+    StepVerifier.create(acquiringBankClient.authorizePayment(payment, creditCard))
+        .expectError(AcquiringBankTimeoutException.class)
+        .verify();
   }
 
   private CreditCard createTestCreditCard() {
@@ -97,7 +115,7 @@ public class AcquiringBankClientTest {
     Payment payment = new Payment();
     payment.setExpiryMonth(future.getMonthValue());
     payment.setExpiryYear(future.getYear());
-    payment.setCurrency("GBP");
+    payment.setCurrency(Currency.GBP);
     payment.setAmount(100);
     return payment;
   }
@@ -0,0 +1,82 @@
+package com.checkout.payment.gateway.cluster;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConsistentHashRingTest {
+
+  private static final List<String> NODES = List.of("http://node-a:8080", "http://node-b:8080", "http://node-c:8080", "http://node-d:8080");
+
+  private final Random random = new Random(7);
+
+  @Test
+  public void shouldSpreadIdsEvenlyAcrossNodes() {
+    ConsistentHashRing ring = new ConsistentHashRing(NODES, 256);
+    Map<String, Integer> owned = new HashMap<>();
+
+    for (int i = 0; i < 100_000; i++) {
+      owned.merge(ring.ownerOf(randomId()), 1, Integer::sum);
+    }
+
+    assertEquals(NODES.size(), owned.size());
+    for (int count : owned.values()) {
+      assertEquals(25_000, count, 3_750, "ids per node: " + owned);
+    }
+  }
+
+  @Test
+  public void shouldAgreeOnOwnersFromSameNodeList() {
+    ConsistentHashRing ring = new ConsistentHashRing(NODES, 256);
+    ConsistentHashRing sameNodesInAnotherProcess = new ConsistentHashRing(List.copyOf(NODES), 256);
+
+    for (int i = 0; i < 10_000; i++) {
+      UUID id = randomId();
+      assertEquals(ring.ownerOf(id), sameNodesInAnotherProcess.ownerOf(id));
+    }
+  }
+
+  @Test
+  public void shouldOnlyMoveIdsToAddedNode() {
+    ConsistentHashRing before = new ConsistentHashRing(NODES, 256);
+    List<String> grown = new ArrayList<>(NODES);
+    grown.add("http://node-e:8080");
+    ConsistentHashRing after = new ConsistentHashRing(grown, 256);
+
+    int moved = 0;
+    for (int i = 0; i < 100_000; i++) {
+      UUID id = randomId();
+      String owner = after.ownerOf(id);
+      if (!owner.equals(before.ownerOf(id))) {
+        assertEquals("http://node-e:8080", owner);
+        moved++;
+      }
+    }
+
+    assertEquals(20_000, moved, 3_000);
+  }
+
+  @Test
+  public void shouldOwnEverythingWithSingleNode() {
+    ConsistentHashRing ring = new ConsistentHashRing(List.of("http://localhost:8080"), 1);
+
+    for (int i = 0; i < 1_000; i++) {
+      assertEquals("http://localhost:8080", ring.ownerOf(randomId()));
+    }
+  }
+
+  @Test
+  public void shouldRejectEmptyNodeList() {
+    assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(List.of(), 256));
+  }
+
+  private UUID randomId() {
+    return new UUID(random.nextLong(), random.nextLong());
+  }
+}
@@ -0,0 +1,165 @@
+package com.checkout.payment.gateway.cluster;
+
+import com.checkout.payment.gateway.PaymentGatewayApplication;
+import com.checkout.payment.gateway.loadtest.StubAcquiringBank;
+import com.checkout.payment.gateway.repository.PaymentsRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Three gateway instances on localhost ports, partitioned by payment id, each answering for every payment whichever node owns it.
+ */
+public class PaymentClusterTest {
+
+  private static final int NODES = 3;
+
+  private static final String SECRET = "cluster-test-secret";
+
+  private static final String PAYMENT_JSON = """
+      {"cardNumber":"2222405343248877","cvv":"123","expiryMonth":12,"expiryYear":%d,"currency":"GBP","amount":100}
+      """.formatted(YearMonth.now().getYear() + 1);
+
+  private static final List<String> urls = new ArrayList<>();
+
+  private static final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+
+  private static StubAcquiringBank bank;
+
+  private final HttpClient httpClient = HttpClient.newHttpClient();
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @BeforeAll
+  static void startCluster() throws IOException {
+    bank = new StubAcquiringBank(Duration.ZERO);
+    List<Integer> ports = new ArrayList<>();
+    for (int i = 0; i < NODES; i++) {
+      try (ServerSocket socket = new ServerSocket(0)) {
+        ports.add(socket.getLocalPort());
+      }
+    }
+    ports.forEach(port -> urls.add("http://localhost:" + port));
+
+    for (int i = 0; i < NODES; i++) {
+      nodes.add(new SpringApplicationBuilder(PaymentGatewayApplication.class)
+          .properties(
+              "server.port=" + ports.get(i),
+              "logging.level.root=WARN",
+              "acquiring.bank.base-url=" + bank.baseUrl(),
+              "payments.cluster.enabled=true",
+              "payments.cluster.nodes=" + String.join(",", urls),
+              "payments.cluster.secret=" + SECRET,
+              "payments.cluster.self=" + urls.get(i))
+          .run());
+    }
+  }
+
+  @AfterAll
+  static void stopCluster() {
+    nodes.forEach(ConfigurableApplicationContext::close);
+    bank.close();
+  }
+
+  @Test
+  public void shouldReadEveryPaymentFromEveryNode() throws Exception {
+    List<JsonNode> created = new ArrayList<>();
+    for (int i = 0; i < 30; i++) {
+      created.add(post(urls.get(i % NODES)));
+    }
+
+    for (JsonNode payment : created) {
+      for (String url : urls) {
+        HttpResponse<String> response = get(url, payment.get("id").asText());
+        assertEquals(200, response.statusCode(), url);
+        assertEquals(payment, objectMapper.readTree(response.body()));
+      }
+    }
+  }
+
+  @Test
+  public void shouldStoreEachPaymentOnlyOnItsOwner() throws Exception {
+    List<UUID> ids = new ArrayList<>();
+    for (int i = 0; i < 30; i++) {
+      ids.add(UUID.fromString(post(urls.get(0)).get("id").asText()));
+    }
+
+    for (UUID id : ids) {
+      int holders = 0;
+      for (ConfigurableApplicationContext node : nodes) {
+        PaymentsRepository repository = node.getBean(PaymentsRepository.class);
+        if (repository.getLocal(id).isPresent()) {
+          holders++;
+          assertTrue(node.getBean(PaymentCluster.class).isLocal(id));
+        }
+      }
+      assertEquals(1, holders, id.toString());
+    }
+  }
+
+  @Test
+  public void shouldReturnNotFoundFromEveryNodeForUnknownPayment() throws Exception {
+    for (int i = 0; i < 10; i++) {
+      UUID id = UUID.randomUUID();
+      for (String url : urls) {
+        assertEquals(404, get(url, id.toString()).statusCode(), url);
+      }
+    }
+  }
+
+  @Test
+  public void shouldRefuseInternalCallsWithoutClusterSecret() throws Exception {
+    JsonNode payment = post(urls.get(0));
+    for (String url : urls) {
+      URI internal = URI.create(url + "/internal/v1/payments/" + payment.get("id").asText());
+      HttpResponse<String> anonymous = httpClient.send(HttpRequest.newBuilder(internal).GET().build(),
+          HttpResponse.BodyHandlers.ofString());
+      HttpResponse<String> wrongSecret = httpClient.send(HttpRequest.newBuilder(internal)
+          .header(PaymentCluster.SECRET_HEADER, "not-" + SECRET)
+          .PUT(HttpRequest.BodyPublishers.ofByteArray(new byte[36]))
+          .header("Content-Type", "application/octet-stream")
+          .build(), HttpResponse.BodyHandlers.ofString());
+      HttpResponse<String> member = httpClient.send(HttpRequest.newBuilder(internal)
+          .header(PaymentCluster.SECRET_HEADER, SECRET)
+          .GET()
+          .build(), HttpResponse.BodyHandlers.ofString());
+
+      assertEquals(403, anonymous.statusCode(), url);
+      assertEquals(403, wrongSecret.statusCode(), url);
+      // Calls from localhost with the secret come from a node address, so they get past the check to the ownership test
+      assertTrue(member.statusCode() == 200 || member.statusCode() == 421, url + " answered " + member.statusCode());
+    }
+  }
+
+  private JsonNode post(String url) throws Exception {
+    HttpRequest request = HttpRequest.newBuilder(URI.create(url + "/api/v1/payments"))
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofString(PAYMENT_JSON))
+        .build();
+    HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    assertEquals(201, response.statusCode(), response.body());
+    return objectMapper.readTree(response.body());
+  }
+
+  private HttpResponse<String> get(String url, String id) throws Exception {
+    HttpRequest request = HttpRequest.newBuilder(URI.create(url + "/api/v1/payments/" + id)).GET().build();
+    return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+  }
+}
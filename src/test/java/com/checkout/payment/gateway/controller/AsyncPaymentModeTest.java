@@ -0,0 +1,127 @@
+package com.checkout.payment.gateway.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.checkout.payment.gateway.client.AcquiringBankClient;
+import com.checkout.payment.gateway.dto.PostPaymentRequestDTO;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.CreditCard;
+import com.checkout.payment.gateway.model.Payment;
+import com.checkout.payment.gateway.service.AsyncPaymentProcessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.YearMonth;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+@SpringBootTest(properties = {
+    "payments.async.enabled=true",
+    "payments.async.workers=1",
+    "payments.async.queue-capacity=1"
+})
+@AutoConfigureMockMvc
+class AsyncPaymentModeTest {
+
+  final static String BASE_URL = "/api/v1/payments";
+
+  @Autowired
+  private MockMvc mvc;
+
+  @Autowired
+  private AsyncPaymentProcessor asyncPaymentProcessor;
+
+  @MockBean
+  private AcquiringBankClient bankClient;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  void shouldAcceptPaymentAndReportOutcomeOnceAuthorized() throws Exception {
+    Sinks.One<PaymentStatus> bank = Sinks.one();
+    when(bankClient.authorizePayment(any(Payment.class), any(CreditCard.class))).thenReturn(bank.asMono());
+
+    MvcResult accepted = submit()
+        .andExpect(status().isAccepted())
+        .andExpect(jsonPath("$.status").value("Pending"))
+        .andReturn();
+    String id = objectMapper.readTree(accepted.getResponse().getContentAsString()).get("id").asText();
+
+    mvc.perform(MockMvcRequestBuilders.get("%s/%s".formatted(BASE_URL, id)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.status").value("Pending"));
+
+    bank.tryEmitValue(PaymentStatus.AUTHORIZED);
+
+    assertEquals("Authorized", awaitStatus(id, "Authorized"));
+  }
+
+  @Test
+  void shouldRejectWithTooManyRequestsWhenQueueIsFull() throws Exception {
+    Sinks.One<PaymentStatus> bank = Sinks.one();
+    when(bankClient.authorizePayment(any(Payment.class), any(CreditCard.class))).thenReturn(bank.asMono());
+
+    // The only worker picks up the first payment and waits on the bank, the second fills the queue
+    submit().andExpect(status().isAccepted());
+    awaitEmptyQueue();
+    submit().andExpect(status().isAccepted());
+
+    submit()
+        .andExpect(status().isTooManyRequests())
+        .andExpect(jsonPath("$.messages").value("Too many payments awaiting authorization"));
+
+    bank.tryEmitValue(PaymentStatus.DECLINED);
+    awaitEmptyQueue();
+  }
+
+  private ResultActions submit() throws Exception {
+    MvcResult result = mvc.perform(MockMvcRequestBuilders.post(BASE_URL)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(createPayload())))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    return mvc.perform(MockMvcRequestBuilders.asyncDispatch(result));
+  }
+
+  private String awaitStatus(String id, String expected) throws Exception {
+    String actual = null;
+    for (int attempt = 0; attempt < 100 && !expected.equals(actual); attempt++) {
+      Thread.sleep(20);
+      String body = mvc.perform(MockMvcRequestBuilders.get("%s/%s".formatted(BASE_URL, id))).andReturn().getResponse().getContentAsString();
+      actual = objectMapper.readTree(body).get("status").asText();
+    }
+    return actual;
+  }
+
+  private void awaitEmptyQueue() throws InterruptedException {
+    for (int attempt = 0; attempt < 100 && asyncPaymentProcessor.getQueueDepth() > 0; attempt++) {
+      Thread.sleep(20);
+    }
+    assertTrue(asyncPaymentProcessor.getQueueDepth() == 0, "queue should have drained");
+  }
+
+  private PostPaymentRequestDTO createPayload() {
+    PostPaymentRequestDTO payload = new PostPaymentRequestDTO();
+    payload.setCardNumber("2222405343248877");
+    payload.setCvv("123");
+    payload.setExpiryMonth(12);
+    payload.setExpiryYear(YearMonth.now().plusYears(1).getYear());
+    payload.setCurrency("USD");
+    payload.setAmount(100);
+    return payload;
+  }
+}
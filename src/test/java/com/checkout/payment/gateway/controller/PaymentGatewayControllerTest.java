@@ -2,21 +2,33 @@ package com.checkout.payment.gateway.controller;
 
 
 import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.checkout.payment.gateway.client.AcquiringBankClient;
 import com.checkout.payment.gateway.dto.PostPaymentRequestDTO;
 import com.checkout.payment.gateway.dto.mappers.PaymentMapper;
+import com.checkout.payment.gateway.enums.Currency;
 import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.id.PaymentIdGenerator;
 import com.checkout.payment.gateway.model.CreditCard;
 import com.checkout.payment.gateway.model.Payment;
 import com.checkout.payment.gateway.repository.PaymentsRepository;
+import java.time.Instant;
 import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -24,8 +36,10 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import reactor.core.publisher.Mono;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -39,6 +53,12 @@ class PaymentGatewayControllerTest {
   @Autowired
   PaymentsRepository paymentsRepository;
 
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Autowired
+  private PaymentIdGenerator paymentIdGenerator;
+
   @MockBean
   private AcquiringBankClient bankClient;
 
@@ -51,7 +71,7 @@ class PaymentGatewayControllerTest {
     Payment payment = new Payment();
     payment.setId(UUID.randomUUID());
     payment.setAmount(10);
-    payment.setCurrency("USD");
+    payment.setCurrency(Currency.USD);
     payment.setStatus(PaymentStatus.AUTHORIZED);
     payment.setExpiryMonth(12);
     payment.setExpiryYear(2024);
@@ -65,7 +85,7 @@ class PaymentGatewayControllerTest {
         .andExpect(jsonPath("$.cardNumberLastFour").value(payment.getCardNumberLastFour()))
         .andExpect(jsonPath("$.expiryMonth").value(payment.getExpiryMonth()))
         .andExpect(jsonPath("$.expiryYear").value(payment.getExpiryYear()))
-        .andExpect(jsonPath("$.currency").value(payment.getCurrency()))
+        .andExpect(jsonPath("$.currency").value(payment.getCurrency().getCode()))
         .andExpect(jsonPath("$.amount").value(payment.getAmount()));
   }
 
@@ -79,12 +99,101 @@ class PaymentGatewayControllerTest {
         .andExpect(jsonPath("$.messages").value("Payment not found"));
   }
 
+  @Test
+  void shouldStreamMatchingPaymentsAsNdjsonPageByPage() throws Exception {
+    Instant from = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    Payment first = createQueryablePayment(Currency.EUR);
+    createQueryablePayment(Currency.USD);
+    Payment second = createQueryablePayment(Currency.EUR);
+    String query = "%s?status=declined&currency=EUR&from=%s&limit=1".formatted(BASE_URL, from);
+
+    List<String> firstPage = queryPayments(query);
+    List<String> secondPage = queryPayments(query + "&after=" + first.getId());
+    List<String> lastPage = queryPayments(query + "&after=" + second.getId());
+
+    assertEquals(List.of(first.getId().toString()), firstPage);
+    assertEquals(List.of(second.getId().toString()), secondPage);
+    assertEquals(List.of(), lastPage);
+  }
+
+  @Test
+  void shouldReportTotalsIncludingNewPayment() throws Exception {
+    long declined = paymentsRepository.aggregates().count(PaymentStatus.DECLINED, Currency.GBP);
+    createQueryablePayment(Currency.GBP);
+
+    mvc.perform(MockMvcRequestBuilders.get(BASE_URL + "/aggregates"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.totals[?(@.status == 'Declined' && @.currency == 'GBP')].count").value((int) declined + 1))
+        .andExpect(jsonPath("$.authorizationRate.length()").value(60));
+  }
+
+  @Test
+  void shouldStreamFinalPaymentStateAsServerSentEvent() throws Exception {
+    Payment payment = createQueryablePayment(Currency.USD);
+
+    MvcResult result = mvc.perform(MockMvcRequestBuilders.get("%s/%s/events".formatted(BASE_URL, payment.getId())))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    result.getAsyncResult(5_000);
+
+    String body = result.getResponse().getContentAsString();
+    assertTrue(body.contains("id:" + payment.getId()), body);
+    assertTrue(body.contains("event:payment"), body);
+    assertTrue(body.contains("\"status\":\"Declined\""), body);
+  }
+
+  @Test
+  void shouldReturnNotFoundForEventsOfNonExistentPayment() throws Exception {
+    mvc.perform(MockMvcRequestBuilders.get("%s/%s/events".formatted(BASE_URL, UUID.randomUUID())))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  void shouldReturnBadRequestForInvalidQuery() throws Exception {
+    mvc.perform(MockMvcRequestBuilders.get(BASE_URL + "?status=Settled&currency=EGP&from=yesterday&limit=0"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.messages", containsInAnyOrder(
+            "Status must be one of Authorized, Declined, Rejected, or Pending",
+            "Currency must be one of USD, EUR, or GBP",
+            "From must be an ISO-8601 instant",
+            "Limit must be between 1 and 100000")));
+  }
+
+  private Payment createQueryablePayment(Currency currency) {
+    Payment payment = new Payment();
+    payment.setId(paymentIdGenerator.nextId());
+    payment.setAmount(10);
+    payment.setCurrency(currency);
+    payment.setStatus(PaymentStatus.DECLINED);
+    payment.setExpiryMonth(12);
+    payment.setExpiryYear(2030);
+    payment.setCardNumberLastFour(4321);
+    paymentsRepository.add(payment);
+    return payment;
+  }
+
+  private List<String> queryPayments(String url) throws Exception {
+    MvcResult result = mvc.perform(MockMvcRequestBuilders.get(url))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    String body = mvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+    List<String> ids = new ArrayList<>();
+    for (String line : body.split("\n")) {
+      if (!line.isEmpty()) {
+        ids.add(objectMapper.readTree(line).get("id").asText());
+      }
+    }
+    return ids;
+  }
+
   PostPaymentRequestDTO createPayload() {
     PostPaymentRequestDTO payload = new PostPaymentRequestDTO();
     payload.setCardNumber("2222405343248877");
     payload.setCvv("123");
     payload.setExpiryMonth(12);
-    payload.setExpiryYear(2025);
+    payload.setExpiryYear(YearMonth.now().plusYears(1).getYear());
     payload.setCurrency("USD");
     payload.setAmount(100);
 
@@ -98,16 +207,123 @@ class PaymentGatewayControllerTest {
     Payment payment = paymentMapper.toPayment(payload);
     payment.setId(UUID.randomUUID());
     payment.setStatus(PaymentStatus.AUTHORIZED);
-    when(bankClient.authorizePayment(any(Payment.class), any(CreditCard.class))).thenReturn(PaymentStatus.AUTHORIZED);
+    when(bankClient.authorizePayment(any(Payment.class), any(CreditCard.class))).thenReturn(Mono.just(PaymentStatus.AUTHORIZED));
 
-    mvc.perform(MockMvcRequestBuilders.post(BASE_URL)
+    MvcResult result = mvc.perform(MockMvcRequestBuilders.post(BASE_URL)
             .contentType(MediaType.APPLICATION_JSON)
             .content(objectMapper.writeValueAsString(payload)))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    mvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
         .andExpect(status().isCreated())
         .andExpect(jsonPath("$.id").isNotEmpty())
         .andExpect(jsonPath("$.status").value("Authorized"));
   }
 
+  @Test
+  void shouldRecordStageTimingsAndStatusCounts() throws Exception {
+    when(bankClient.authorizePayment(any(Payment.class), any(CreditCard.class))).thenReturn(Mono.just(PaymentStatus.DECLINED));
+    double declined = meterRegistry.get("payments.processed").tag("status", "declined").counter().count();
+    long authorizations = meterRegistry.get("payments.stage.duration").tag("stage", "authorization").timer().count();
+
+    MvcResult result = mvc.perform(MockMvcRequestBuilders.post(BASE_URL)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(createPayload())))
+        .andReturn();
+    mvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+        .andExpect(status().isCreated());
+
+    assertEquals(declined + 1, meterRegistry.get("payments.processed").tag("status", "declined").counter().count());
+    assertEquals(authorizations + 1, meterRegistry.get("payments.stage.duration").tag("stage", "authorization").timer().count());
+    assertEquals(0, meterRegistry.get("payments.in.flight").gauge().value());
+  }
+
+  @Test
+  void shouldReturnSamePaymentForRepeatedIdempotencyKey() throws Exception {
+    PostPaymentRequestDTO payload = createPayload();
+    String idempotencyKey = UUID.randomUUID().toString();
+    when(bankClient.authorizePayment(any(Payment.class), any(CreditCard.class))).thenReturn(Mono.just(PaymentStatus.AUTHORIZED));
+
+    MvcResult first = mvc.perform(MockMvcRequestBuilders.post(BASE_URL)
+            .header(PaymentGatewayController.IDEMPOTENCY_KEY_HEADER, idempotencyKey)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(payload)))
+        .andReturn();
+    String id = objectMapper.readTree(mvc.perform(MockMvcRequestBuilders.asyncDispatch(first))
+            .andExpect(status().isCreated())
+            .andReturn().getResponse().getContentAsString())
+        .get("id").asText();
+
+    MvcResult retry = mvc.perform(MockMvcRequestBuilders.post(BASE_URL)
+            .header(PaymentGatewayController.IDEMPOTENCY_KEY_HEADER, idempotencyKey)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(payload)))
+        .andReturn();
+    mvc.perform(MockMvcRequestBuilders.asyncDispatch(retry))
+        .andExpect(status().isCreated())
+        .andExpect(jsonPath("$.id").value(id));
+
+    verify(bankClient, times(1)).authorizePayment(any(Payment.class), any(CreditCard.class));
+  }
+
+  @Test
+  void shouldReturnUnprocessableEntityForIdempotencyKeyReusedWithDifferentPayment() throws Exception {
+    PostPaymentRequestDTO payload = createPayload();
+    String idempotencyKey = UUID.randomUUID().toString();
+    when(bankClient.authorizePayment(any(Payment.class), any(CreditCard.class))).thenReturn(Mono.just(PaymentStatus.AUTHORIZED));
+
+    MvcResult first = mvc.perform(MockMvcRequestBuilders.post(BASE_URL)
+            .header(PaymentGatewayController.IDEMPOTENCY_KEY_HEADER, idempotencyKey)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(payload)))
+        .andReturn();
+    mvc.perform(MockMvcRequestBuilders.asyncDispatch(first))
+        .andExpect(status().isCreated());
+
+    payload.setAmount(200);
+    MvcResult reused = mvc.perform(MockMvcRequestBuilders.post(BASE_URL)
+            .header(PaymentGatewayController.IDEMPOTENCY_KEY_HEADER, idempotencyKey)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(payload)))
+        .andReturn();
+    mvc.perform(MockMvcRequestBuilders.asyncDispatch(reused))
+        .andExpect(status().isUnprocessableEntity())
+        .andExpect(jsonPath("$.messages").value("Idempotency key was already used for a different payment"));
+  }
+
+  @Test
+  void shouldReturnResultPerItemForBatch() throws Exception {
+    PostPaymentRequestDTO invalid = createPayload();
+    invalid.setCvv("1");
+    when(bankClient.authorizePayment(any(Payment.class), any(CreditCard.class))).thenReturn(Mono.just(PaymentStatus.AUTHORIZED));
+
+    MvcResult result = mvc.perform(MockMvcRequestBuilders.post(BASE_URL + "/batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(List.of(createPayload(), invalid, createPayload()))))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    mvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(3))
+        .andExpect(jsonPath("$[0].status").value("CREATED"))
+        .andExpect(jsonPath("$[0].payment.status").value("Authorized"))
+        .andExpect(jsonPath("$[1].index").value(1))
+        .andExpect(jsonPath("$[1].status").value("BAD_REQUEST"))
+        .andExpect(jsonPath("$[1].messages").value("CVV must be 3 or 4 digits"))
+        .andExpect(jsonPath("$[2].status").value("CREATED"));
+  }
+
+  @Test
+  void shouldReturnBadRequestForEmptyBatch() throws Exception {
+    mvc.perform(MockMvcRequestBuilders.post(BASE_URL + "/batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("[]"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.status").value("BAD_REQUEST"));
+  }
+
   @Test
   void shouldReturnBadRequestForEmptyCardNumber() throws Exception {
     PostPaymentRequestDTO payload = createPayload();
@@ -0,0 +1,132 @@
+package com.checkout.payment.gateway.event;
+
+import com.checkout.payment.gateway.enums.Currency;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.exception.EventProcessingException;
+import com.checkout.payment.gateway.model.Payment;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PaymentEventBusTest {
+
+  @Test
+  public void shouldDeliverOnlyTheSubscribedPaymentAfterItsCurrentState() {
+    PaymentEventBus bus = new PaymentEventBus(16);
+    Payment pending = createTestPayment(PaymentStatus.PENDING);
+    Payment authorized = createTestPayment(PaymentStatus.AUTHORIZED);
+    authorized.setId(pending.getId());
+    Payment other = createTestPayment(PaymentStatus.DECLINED);
+
+    StepVerifier.create(bus.subscribe(pending.getId(), () -> pending))
+        .expectNext(pending)
+        .then(() -> {
+          bus.publish(other);
+          bus.publish(authorized);
+        })
+        .expectNext(authorized)
+        .thenCancel()
+        .verify();
+  }
+
+  @Test
+  public void shouldDeliverOnlyTheSubscribedPaymentWhileManyOtherStreamsAreOpen() {
+    PaymentEventBus bus = new PaymentEventBus(1);
+    List<Payment> others = new ArrayList<>();
+    List<Disposable> otherStreams = new ArrayList<>();
+    List<Payment> received = new ArrayList<>();
+    for (int i = 0; i < 1_000; i++) {
+      Payment other = createTestPayment(PaymentStatus.AUTHORIZED);
+      others.add(other);
+      otherStreams.add(bus.subscribe(other.getId(), () -> null).subscribe(received::add));
+    }
+    Payment payment = createTestPayment(PaymentStatus.AUTHORIZED);
+
+    // A buffer of one would overflow any stream handed a payment it did not subscribe to
+    StepVerifier.create(bus.subscribe(payment.getId(), () -> null), 0)
+        .then(() -> {
+          others.forEach(bus::publish);
+          bus.publish(payment);
+        })
+        .thenRequest(Long.MAX_VALUE)
+        .expectNext(payment)
+        .thenCancel()
+        .verify();
+
+    assertEquals(others, received);
+    assertEquals(1_000, bus.getSubscriberCount());
+    otherStreams.forEach(Disposable::dispose);
+    assertEquals(0, bus.getSubscriberCount());
+  }
+
+  @Test
+  public void shouldFanOutToEverySubscriber() {
+    PaymentEventBus bus = new PaymentEventBus(16);
+    Payment first = createTestPayment(PaymentStatus.AUTHORIZED);
+    Payment second = createTestPayment(PaymentStatus.DECLINED);
+
+    StepVerifier all = StepVerifier.create(bus.subscribe(null, () -> null))
+        .expectNext(first, second)
+        .thenCancel()
+        .verifyLater();
+    StepVerifier alsoAll = StepVerifier.create(bus.subscribe(null, () -> null))
+        .expectNext(first, second)
+        .thenCancel()
+        .verifyLater();
+    bus.publish(first);
+    bus.publish(second);
+
+    all.verify();
+    alsoAll.verify();
+  }
+
+  @Test
+  public void shouldEndStreamOfSubscriberThatFallsBehindWithoutBlockingOthers() {
+    PaymentEventBus bus = new PaymentEventBus(2);
+    Payment first = createTestPayment(PaymentStatus.AUTHORIZED);
+    Payment second = createTestPayment(PaymentStatus.AUTHORIZED);
+    Payment third = createTestPayment(PaymentStatus.AUTHORIZED);
+
+    StepVerifier.create(bus.subscribe(null, () -> null), 0)
+        .then(() -> {
+          bus.publish(first);
+          bus.publish(second);
+          bus.publish(third);
+        })
+        .thenRequest(Long.MAX_VALUE)
+        .expectNext(first, second)
+        .expectError(EventProcessingException.class)
+        .verify();
+
+    assertEquals(0, bus.getSubscriberCount());
+  }
+
+  @Test
+  public void shouldUnregisterSubscriberOnCancel() {
+    PaymentEventBus bus = new PaymentEventBus(16);
+
+    StepVerifier.create(bus.subscribe(null, () -> null))
+        .then(() -> assertEquals(1, bus.getSubscriberCount()))
+        .thenCancel()
+        .verify();
+
+    assertEquals(0, bus.getSubscriberCount());
+  }
+
+  private Payment createTestPayment(PaymentStatus status) {
+    Payment payment = new Payment();
+    payment.setId(UUID.randomUUID());
+    payment.setStatus(status);
+    payment.setCardNumberLastFour(4321);
+    payment.setExpiryMonth(12);
+    payment.setExpiryYear(2030);
+    payment.setCurrency(Currency.USD);
+    payment.setAmount(100);
+    return payment;
+  }
+}
@@ -0,0 +1,62 @@
+package com.checkout.payment.gateway.exception;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ErrorResponseBodiesTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  public void shouldSerializeErrorResponseAsJson() {
+    ErrorResponseBodies bodies = new ErrorResponseBodies(objectMapper, 16);
+
+    ResponseEntity<Object> response = bodies.get(HttpStatus.BAD_REQUEST, "CVV must be provided", "Amount must be greater than zero");
+
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+    assertEquals("{\"status\":\"BAD_REQUEST\",\"messages\":[\"CVV must be provided\",\"Amount must be greater than zero\"]}",
+        new String((byte[]) response.getBody(), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void shouldReuseResponseForSameStatusAndMessages() {
+    ErrorResponseBodies bodies = new ErrorResponseBodies(objectMapper, 16);
+
+    ResponseEntity<Object> first = bodies.get(HttpStatus.NOT_FOUND, "Payment not found");
+
+    assertSame(first, bodies.get(HttpStatus.NOT_FOUND, new String[]{"Payment not found"}));
+    assertNotSame(first, bodies.get(HttpStatus.BAD_REQUEST, "Payment not found"));
+    assertEquals(2, bodies.size());
+  }
+
+  @Test
+  public void shouldNotBeAffectedByCallerChangingMessages() {
+    ErrorResponseBodies bodies = new ErrorResponseBodies(objectMapper, 16);
+    String[] messages = {"Card number must be provided"};
+    ResponseEntity<Object> first = bodies.get(HttpStatus.BAD_REQUEST, messages);
+
+    messages[0] = "CVV must be provided";
+
+    assertSame(first, bodies.get(HttpStatus.BAD_REQUEST, "Card number must be provided"));
+    assertNotSame(first, bodies.get(HttpStatus.BAD_REQUEST, messages));
+  }
+
+  @Test
+  public void shouldStopCachingOnceFull() {
+    ErrorResponseBodies bodies = new ErrorResponseBodies(objectMapper, 1);
+    bodies.get(HttpStatus.NOT_FOUND, "Payment not found");
+
+    ResponseEntity<Object> uncached = bodies.get(HttpStatus.BAD_REQUEST, "Limit must be between 1 and 100000");
+
+    assertEquals(HttpStatus.BAD_REQUEST, uncached.getStatusCode());
+    assertNotSame(uncached, bodies.get(HttpStatus.BAD_REQUEST, "Limit must be between 1 and 100000"));
+    assertEquals(1, bodies.size());
+  }
+}
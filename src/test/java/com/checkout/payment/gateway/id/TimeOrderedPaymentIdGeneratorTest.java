@@ -0,0 +1,73 @@
+package com.checkout.payment.gateway.id;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimeOrderedPaymentIdGeneratorTest {
+
+  private static final Instant NOW = Instant.parse("2030-06-15T10:15:30.123Z");
+
+  @Test
+  public void shouldIssueVersion7IdsCarryingTheTimestamp() {
+    TimeOrderedPaymentIdGenerator generator = new TimeOrderedPaymentIdGenerator(Clock.fixed(NOW, ZoneOffset.UTC));
+
+    UUID id = generator.nextId();
+
+    assertEquals(7, id.version());
+    assertEquals(2, id.variant());
+    assertEquals(NOW.toEpochMilli(), id.getMostSignificantBits() >>> 16);
+  }
+
+  @Test
+  public void shouldSortIdsFromLaterMillisecondsAfterEarlierOnes() {
+    List<UUID> ids = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      Clock clock = Clock.fixed(NOW.plus(Duration.ofMillis(i)), ZoneOffset.UTC);
+      ids.add(new TimeOrderedPaymentIdGenerator(clock).nextId());
+    }
+
+    for (int i = 1; i < ids.size(); i++) {
+      assertTrue(Long.compareUnsigned(ids.get(i - 1).getMostSignificantBits(), ids.get(i).getMostSignificantBits()) < 0);
+    }
+  }
+
+  @Test
+  public void shouldNotRepeatIdsWithinTheSameMillisecondAcrossThreads() throws Exception {
+    TimeOrderedPaymentIdGenerator generator = new TimeOrderedPaymentIdGenerator(Clock.fixed(NOW, ZoneOffset.UTC));
+    int threads = generator.stripes() * 2;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<List<UUID>>> futures = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        futures.add(executor.submit(() -> {
+          List<UUID> ids = new ArrayList<>();
+          for (int i = 0; i < 10_000; i++) {
+            ids.add(generator.nextId());
+          }
+          return ids;
+        }));
+      }
+
+      Set<UUID> unique = new HashSet<>();
+      for (Future<List<UUID>> future : futures) {
+        unique.addAll(future.get());
+      }
+      assertEquals(threads * 10_000, unique.size());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
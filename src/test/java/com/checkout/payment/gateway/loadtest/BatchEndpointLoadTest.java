@@ -0,0 +1,110 @@
+package com.checkout.payment.gateway.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.checkout.payment.gateway.dto.BatchPaymentResultDTO;
+import com.checkout.payment.gateway.dto.PostPaymentRequestDTO;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+/**
+ * Submits the same number of payments through the single-payment endpoint and through the batch endpoint, with the same client-side
+ * parallelism, and compares throughput.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class BatchEndpointLoadTest {
+
+  private static final int PAYMENTS = 5_000;
+  private static final int BATCH_SIZE = 100;
+  private static final int CLIENT_PARALLELISM = 8;
+  private static final Duration BANK_LATENCY = Duration.ofMillis(5);
+
+  private static final StubAcquiringBank BANK = new StubAcquiringBank(BANK_LATENCY);
+
+  @LocalServerPort
+  private int port;
+
+  @DynamicPropertySource
+  static void gatewayProperties(DynamicPropertyRegistry registry) {
+    registry.add("acquiring.bank.base-url", BANK::baseUrl);
+    registry.add("acquiring.bank.limiter.initial-limit", () -> 500);
+  }
+
+  @AfterAll
+  static void stopBank() {
+    BANK.close();
+  }
+
+  @Test
+  void shouldProcessBatchesFasterThanSinglePayments() {
+    WebClient client = WebClient.create("http://localhost:" + port);
+    PostPaymentRequestDTO payload = createPayload();
+
+    long started = System.nanoTime();
+    long created = Flux.range(0, PAYMENTS)
+        .flatMap(i -> client.post()
+            .uri("/api/v1/payments")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(payload)
+            .retrieve()
+            .toBodilessEntity(), CLIENT_PARALLELISM)
+        .filter(response -> response.getStatusCode().value() == HttpStatus.CREATED.value())
+        .count()
+        .block(Duration.ofMinutes(2));
+    Duration single = Duration.ofNanos(System.nanoTime() - started);
+    assertEquals(PAYMENTS, created);
+
+    List<PostPaymentRequestDTO> batch = Collections.nCopies(BATCH_SIZE, payload);
+    started = System.nanoTime();
+    long createdInBatches = Flux.range(0, PAYMENTS / BATCH_SIZE)
+        .flatMap(i -> client.post()
+            .uri("/api/v1/payments/batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(batch)
+            .retrieve()
+            .bodyToMono(new ParameterizedTypeReference<List<BatchPaymentResultDTO>>() { })
+            .flatMapIterable(results -> results), CLIENT_PARALLELISM)
+        .filter(result -> result.getStatus() == HttpStatus.CREATED)
+        .count()
+        .block(Duration.ofMinutes(2));
+    Duration batched = Duration.ofNanos(System.nanoTime() - started);
+    assertEquals(PAYMENTS, createdInBatches);
+
+    System.out.printf("%,d payments, %d client connections, %dms bank latency: single %dms (%,.0f/s), batches of %d %dms (%,.0f/s)%n",
+        PAYMENTS, CLIENT_PARALLELISM, BANK_LATENCY.toMillis(),
+        single.toMillis(), throughput(single), BATCH_SIZE, batched.toMillis(), throughput(batched));
+
+    assertTrue(batched.compareTo(single) < 0, "batches took %dms, single payments %dms".formatted(batched.toMillis(), single.toMillis()));
+  }
+
+  private static double throughput(Duration elapsed) {
+    return PAYMENTS * 1000.0 / Math.max(1, elapsed.toMillis());
+  }
+
+  private PostPaymentRequestDTO createPayload() {
+    PostPaymentRequestDTO payload = new PostPaymentRequestDTO();
+    payload.setCardNumber("2222405343248877");
+    payload.setCvv("123");
+    payload.setExpiryMonth(12);
+    payload.setExpiryYear(YearMonth.now().plusYears(1).getYear());
+    payload.setCurrency("USD");
+    payload.setAmount(100);
+    return payload;
+  }
+}
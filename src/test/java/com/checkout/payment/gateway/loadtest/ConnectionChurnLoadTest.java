@@ -0,0 +1,127 @@
+package com.checkout.payment.gateway.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.checkout.payment.gateway.client.AcquiringBankCircuitBreaker;
+import com.checkout.payment.gateway.client.AcquiringBankClient;
+import com.checkout.payment.gateway.client.AcquiringBankConcurrencyLimiter;
+import com.checkout.payment.gateway.enums.Currency;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.CreditCard;
+import com.checkout.payment.gateway.model.Payment;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Compares bank call latency through a default {@link WebClient} and through the tuned {@code acquiringBankWebClient} while the bank
+ * closes a share of its connections after responding.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class ConnectionChurnLoadTest {
+
+  private static final int PAYMENTS = 20_000;
+  private static final int CONCURRENCY = 200;
+  private static final double CONNECTION_CLOSE_RATE = 0.2;
+  private static final Duration BANK_LATENCY = Duration.ofMillis(10);
+
+  private static final StubAcquiringBank BANK = new StubAcquiringBank(BANK_LATENCY);
+
+  @Autowired
+  @Qualifier("acquiringBankWebClient")
+  private WebClient tunedWebClient;
+
+  @DynamicPropertySource
+  static void gatewayProperties(DynamicPropertyRegistry registry) {
+    registry.add("acquiring.bank.base-url", BANK::baseUrl);
+  }
+
+  @AfterAll
+  static void stopBank() {
+    BANK.close();
+  }
+
+  @Test
+  void shouldKeepTailLatencyLowUnderConnectionChurn() {
+    BANK.setConnectionCloseRate(CONNECTION_CLOSE_RATE);
+
+    Result before = run(WebClient.create());
+    Result after = run(tunedWebClient);
+
+    System.out.printf("%,d payments, %d concurrent, %.0f%% of connections closed by the bank:%n", PAYMENTS, CONCURRENCY,
+        CONNECTION_CLOSE_RATE * 100);
+    System.out.printf("  default WebClient: p50 %.1fms, p99 %.1fms, max %.1fms, %d failed%n", before.percentile(50), before.percentile(99),
+        before.percentile(100), before.failed());
+    System.out.printf("  tuned WebClient:   p50 %.1fms, p99 %.1fms, max %.1fms, %d failed%n", after.percentile(50), after.percentile(99),
+        after.percentile(100), after.failed());
+
+    assertEquals(0, after.failed());
+    assertTrue(after.percentile(99) < before.percentile(99),
+        "tuned p99 %.1fms should beat default p99 %.1fms".formatted(after.percentile(99), before.percentile(99)));
+  }
+
+  private Result run(WebClient webClient) {
+    AcquiringBankClient client = new AcquiringBankClient(BANK.baseUrl(), webClient,
+        new AcquiringBankConcurrencyLimiter(CONCURRENCY, CONCURRENCY, CONCURRENCY, Duration.ofHours(1), 0.9),
+        new AcquiringBankCircuitBreaker(PAYMENTS, PAYMENTS, 1.0, Duration.ofSeconds(10), 5));
+    Payment payment = createTestPayment();
+    CreditCard creditCard = new CreditCard("2222405343248877", "123");
+    long[] latencies = new long[PAYMENTS];
+    AtomicInteger failed = new AtomicInteger();
+
+    Flux.range(0, PAYMENTS)
+        .flatMap(i -> Mono.defer(() -> {
+          long started = System.nanoTime();
+          return client.authorizePayment(payment, creditCard)
+              .onErrorReturn(PaymentStatus.DECLINED)
+              .doOnNext(status -> {
+                if (status == PaymentStatus.AUTHORIZED) {
+                  latencies[i] = System.nanoTime() - started;
+                } else {
+                  latencies[i] = -1;
+                  failed.incrementAndGet();
+                }
+              });
+        }), CONCURRENCY)
+        .blockLast(Duration.ofMinutes(5));
+
+    // Failed calls are often rejected straight away, so only successful calls count towards latency
+    return new Result(Arrays.stream(latencies).filter(latency -> latency >= 0).sorted().toArray(), failed.get());
+  }
+
+  private Payment createTestPayment() {
+    YearMonth future = YearMonth.now().plusYears(1);
+
+    Payment payment = new Payment();
+    payment.setExpiryMonth(future.getMonthValue());
+    payment.setExpiryYear(future.getYear());
+    payment.setCurrency(Currency.GBP);
+    payment.setAmount(100);
+    return payment;
+  }
+
+  private record Result(long[] sortedLatencies, int failed) {
+
+    double percentile(double percentile) {
+      if (sortedLatencies.length == 0) {
+        return Double.NaN;
+      }
+      int index = (int) Math.ceil(percentile / 100 * sortedLatencies.length) - 1;
+      return sortedLatencies[Math.max(0, index)] / 1_000_000.0;
+    }
+  }
+}
@@ -0,0 +1,113 @@
+package com.checkout.payment.gateway.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.checkout.payment.gateway.dto.PostPaymentRequestDTO;
+import com.checkout.payment.gateway.dto.PostPaymentResponseDTO;
+import com.checkout.payment.gateway.loadtest.OpenModelLoadDriver.LoadReport;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Drives open-model POST and then GET traffic at the gateway, backed by a stub bank with realistic latency, declines and errors, and
+ * reports throughput and latency percentiles for each. Rates and durations can be raised with the {@code loadtest.post-rate},
+ * {@code loadtest.get-rate} and {@code loadtest.duration-seconds} system properties.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class EndToEndLoadTest {
+
+  private static final int POST_RATE = Integer.getInteger("loadtest.post-rate", 500);
+  private static final int GET_RATE = Integer.getInteger("loadtest.get-rate", 2_000);
+  private static final Duration DURATION = Duration.ofSeconds(Integer.getInteger("loadtest.duration-seconds", 10));
+  private static final int MAX_OUTSTANDING = 5_000;
+
+  private static final StubAcquiringBank BANK = new StubAcquiringBank(
+      LatencyDistribution.logNormal(Duration.ofMillis(20), Duration.ofMillis(200)));
+
+  @LocalServerPort
+  private int port;
+
+  @DynamicPropertySource
+  static void gatewayProperties(DynamicPropertyRegistry registry) {
+    registry.add("acquiring.bank.base-url", BANK::baseUrl);
+    // Injected bank errors would otherwise shrink the limit; this test measures the pipeline, not the limiter
+    registry.add("acquiring.bank.limiter.initial-limit", () -> MAX_OUTSTANDING);
+    registry.add("acquiring.bank.limiter.min-limit", () -> MAX_OUTSTANDING);
+    registry.add("acquiring.bank.limiter.max-limit", () -> MAX_OUTSTANDING);
+  }
+
+  @AfterAll
+  static void stopBank() {
+    BANK.close();
+  }
+
+  @Test
+  void shouldSustainTargetRatesWithRealisticBank() {
+    BANK.setDeclineRate(0.1);
+    BANK.setErrorRate(0.01);
+    WebClient client = WebClient.builder()
+        .baseUrl("http://localhost:" + port)
+        .clientConnector(new ReactorClientHttpConnector(HttpClient.create(ConnectionProvider.builder("load-driver")
+            .maxConnections(MAX_OUTSTANDING)
+            .pendingAcquireMaxCount(-1)
+            .build())))
+        .build();
+    OpenModelLoadDriver driver = new OpenModelLoadDriver(MAX_OUTSTANDING);
+    PostPaymentRequestDTO payload = createPayload();
+    int posts = (int) (POST_RATE * DURATION.toSeconds());
+    AtomicReferenceArray<UUID> created = new AtomicReferenceArray<>(posts);
+
+    LoadReport post = driver.run("POST /api/v1/payments", POST_RATE, DURATION, i -> client.post()
+        .uri("/api/v1/payments")
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(payload)
+        .exchangeToMono(response -> response.bodyToMono(PostPaymentResponseDTO.class)
+            .doOnNext(body -> created.set((int) i, body.getId()))
+            .thenReturn(response.statusCode().value())));
+    LoadReport get = driver.run("GET /api/v1/payments/{id}", GET_RATE, DURATION, i -> {
+      UUID id = created.get((int) (i % posts));
+      if (id == null) {
+        // The POST for this slot failed or was dropped; GET /api/v1/payments/ would hit the query endpoint instead
+        return Mono.error(new IllegalStateException("No payment was created for request " + i % posts));
+      }
+      return client.get()
+          .uri("/api/v1/payments/{id}", id)
+          .exchangeToMono(response -> response.releaseBody().thenReturn(response.statusCode().value()));
+    });
+    post.print();
+    get.print();
+
+    assertEquals(posts, post.count(201), "every payment should be created, declined or not");
+    assertEquals(GET_RATE * DURATION.toSeconds(), get.count(200), "every created payment should be retrievable");
+    assertTrue(post.throughput() > POST_RATE * 0.9, "POST throughput %.0f/s fell short of %d/s".formatted(post.throughput(), POST_RATE));
+    assertTrue(get.throughput() > GET_RATE * 0.9, "GET throughput %.0f/s fell short of %d/s".formatted(get.throughput(), GET_RATE));
+  }
+
+  private PostPaymentRequestDTO createPayload() {
+    PostPaymentRequestDTO payload = new PostPaymentRequestDTO();
+    payload.setCardNumber("2222405343248877");
+    payload.setCvv("123");
+    payload.setExpiryMonth(12);
+    payload.setExpiryYear(YearMonth.now().plusYears(1).getYear());
+    payload.setCurrency("USD");
+    payload.setAmount(100);
+    return payload;
+  }
+}
@@ -0,0 +1,28 @@
+package com.checkout.payment.gateway.loadtest;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Source of response delays for the {@link StubAcquiringBank}.
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+  long sampleNanos(ThreadLocalRandom random);
+
+  static LatencyDistribution fixed(Duration latency) {
+    long nanos = latency.toNanos();
+    return random -> nanos;
+  }
+
+  /**
+   * Log-normal delays with the given median and 99th percentile, which is a fair model of a remote service: most calls are close
+   * to the median and a long tail is much slower.
+   */
+  static LatencyDistribution logNormal(Duration median, Duration p99) {
+    double mu = Math.log(median.toNanos());
+    double sigma = (Math.log(p99.toNanos()) - mu) / 2.3263; // z-score of the 99th percentile
+    return random -> (long) Math.exp(mu + sigma * random.nextGaussian());
+  }
+}
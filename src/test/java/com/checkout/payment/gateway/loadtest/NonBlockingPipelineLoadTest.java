@@ -0,0 +1,98 @@
+package com.checkout.payment.gateway.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.checkout.payment.gateway.dto.PostPaymentRequestDTO;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.List;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Fires far more concurrent payments than there are Tomcat threads at a slow stub bank. With the non-blocking pipeline every request
+ * reaches the bank at once, so the whole burst completes in roughly one bank round trip.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class NonBlockingPipelineLoadTest {
+
+  private static final int SERVLET_THREADS = 20;
+  private static final int CONCURRENT_PAYMENTS = 1000;
+  private static final Duration BANK_LATENCY = Duration.ofMillis(500);
+
+  private static final StubAcquiringBank BANK = new StubAcquiringBank(BANK_LATENCY);
+
+  @LocalServerPort
+  private int port;
+
+  @DynamicPropertySource
+  static void gatewayProperties(DynamicPropertyRegistry registry) {
+    registry.add("acquiring.bank.base-url", BANK::baseUrl);
+    registry.add("acquiring.bank.max-connections", () -> CONCURRENT_PAYMENTS);
+    registry.add("acquiring.bank.limiter.initial-limit", () -> CONCURRENT_PAYMENTS);
+    registry.add("acquiring.bank.limiter.max-limit", () -> CONCURRENT_PAYMENTS);
+    registry.add("server.tomcat.threads.max", () -> SERVLET_THREADS);
+    registry.add("server.tomcat.threads.min-spare", () -> SERVLET_THREADS);
+  }
+
+  @AfterAll
+  static void stopBank() {
+    BANK.close();
+  }
+
+  @Test
+  void shouldKeepFarMorePaymentsInFlightThanServletThreads() {
+    WebClient client = WebClient.builder()
+        .baseUrl("http://localhost:" + port)
+        .clientConnector(new ReactorClientHttpConnector(HttpClient.create(ConnectionProvider.builder("load-driver")
+            .maxConnections(CONCURRENT_PAYMENTS)
+            .build())))
+        .build();
+    PostPaymentRequestDTO payload = createPayload();
+
+    long started = System.nanoTime();
+    List<HttpStatus> statuses = Flux.range(0, CONCURRENT_PAYMENTS)
+        .flatMap(i -> client.post()
+            .uri("/api/v1/payments")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(payload)
+            .retrieve()
+            .toBodilessEntity()
+            .map(response -> HttpStatus.valueOf(response.getStatusCode().value())), CONCURRENT_PAYMENTS)
+        .collectList()
+        .block(Duration.ofMinutes(1));
+    Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+
+    System.out.printf("%d payments, %d servlet threads, %dms bank latency: peak %d in flight at the bank, %dms total%n",
+        CONCURRENT_PAYMENTS, SERVLET_THREADS, BANK_LATENCY.toMillis(), BANK.maxInFlight(), elapsed.toMillis());
+
+    assertEquals(CONCURRENT_PAYMENTS, statuses.stream().filter(HttpStatus.CREATED::equals).count());
+    assertTrue(BANK.maxInFlight() > SERVLET_THREADS * 10,
+        "expected far more than %d authorizations in flight, peak was %d".formatted(SERVLET_THREADS, BANK.maxInFlight()));
+  }
+
+  private PostPaymentRequestDTO createPayload() {
+    PostPaymentRequestDTO payload = new PostPaymentRequestDTO();
+    payload.setCardNumber("2222405343248877");
+    payload.setCvv("123");
+    payload.setExpiryMonth(12);
+    payload.setExpiryYear(YearMonth.now().plusYears(1).getYear());
+    payload.setCurrency("USD");
+    payload.setAmount(100);
+    return payload;
+  }
+}
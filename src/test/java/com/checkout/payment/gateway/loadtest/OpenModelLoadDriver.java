@@ -0,0 +1,108 @@
+package com.checkout.payment.gateway.loadtest;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongFunction;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import reactor.core.publisher.Mono;
+
+/**
+ * Open-model load generator: requests are started at a fixed arrival rate whether or not earlier ones have completed, as independent
+ * clients would. Latency is measured from the time each request was due to start, so a stalled gateway shows up in the percentiles
+ * instead of quietly slowing the driver down.
+ *
+ * <p>Requests beyond {@code maxOutstanding} are not sent and are reported as dropped, which keeps a stalled gateway from exhausting
+ * the driver's memory.
+ */
+public class OpenModelLoadDriver {
+
+  private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+  private static final Duration DRAIN_TIMEOUT = Duration.ofMinutes(1);
+
+  private final int maxOutstanding;
+
+  public OpenModelLoadDriver(int maxOutstanding) {
+    this.maxOutstanding = maxOutstanding;
+  }
+
+  /**
+   * Starts {@code requestsPerSecond} requests per second for {@code duration}, waits for the outstanding ones to finish and reports on
+   * them. {@code request} is given the request's sequence number and returns the HTTP status it received.
+   */
+  public LoadReport run(String name, int requestsPerSecond, Duration duration, LongFunction<Mono<Integer>> request) {
+    Histogram latencies = new ConcurrentHistogram(HIGHEST_TRACKABLE_NANOS, 3);
+    Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    LongAdder errors = new LongAdder();
+    LongAdder dropped = new LongAdder();
+    AtomicInteger outstanding = new AtomicInteger();
+    long intervalNanos = TimeUnit.SECONDS.toNanos(1) / requestsPerSecond;
+    long total = requestsPerSecond * duration.toSeconds();
+
+    long started = System.nanoTime();
+    for (long i = 0; i < total; i++) {
+      long intendedStart = started + i * intervalNanos;
+      long wait;
+      while ((wait = intendedStart - System.nanoTime()) > 0) {
+        LockSupport.parkNanos(wait);
+      }
+      if (outstanding.get() >= maxOutstanding) {
+        dropped.increment();
+        continue;
+      }
+
+      outstanding.incrementAndGet();
+      request.apply(i)
+          .doOnNext(status -> statuses.computeIfAbsent(status, key -> new LongAdder()).increment())
+          .doOnError(error -> errors.increment())
+          .doFinally(signal -> {
+            latencies.recordValue(Math.min(HIGHEST_TRACKABLE_NANOS, System.nanoTime() - intendedStart));
+            outstanding.decrementAndGet();
+          })
+          .subscribe(status -> { }, error -> { });
+    }
+
+    long deadline = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+    while (outstanding.get() > 0 && System.nanoTime() - deadline < 0) {
+      LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+    }
+    Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+
+    Map<Integer, Long> statusCounts = new TreeMap<>();
+    statuses.forEach((status, count) -> statusCounts.put(status, count.sum()));
+    return new LoadReport(name, requestsPerSecond, elapsed, latencies, statusCounts, errors.sum(), dropped.sum() + outstanding.get());
+  }
+
+  public record LoadReport(String name, int targetRate, Duration elapsed, Histogram latencies, Map<Integer, Long> statuses, long errors,
+                           long dropped) {
+
+    public long completed() {
+      return latencies.getTotalCount();
+    }
+
+    public double throughput() {
+      return completed() * 1_000_000_000.0 / elapsed.toNanos();
+    }
+
+    public double percentileMillis(double percentile) {
+      return latencies.getValueAtPercentile(percentile) / 1_000_000.0;
+    }
+
+    public long count(int status) {
+      return statuses.getOrDefault(status, 0L);
+    }
+
+    public void print() {
+      System.out.printf("%s: %,d requests at %,d/s target, %,.0f/s achieved, %d errors, %d dropped, statuses %s%n",
+          name, completed(), targetRate, throughput(), errors, dropped, statuses);
+      System.out.printf("  latency p50 %.1fms, p90 %.1fms, p99 %.1fms, p99.9 %.1fms, max %.1fms%n", percentileMillis(50),
+          percentileMillis(90), percentileMillis(99), percentileMillis(99.9), latencies.getMaxValue() / 1_000_000.0);
+    }
+  }
+}
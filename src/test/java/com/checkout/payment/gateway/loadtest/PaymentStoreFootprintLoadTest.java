@@ -0,0 +1,147 @@
+package com.checkout.payment.gateway.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.checkout.payment.gateway.enums.Currency;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.Payment;
+import com.checkout.payment.gateway.repository.HeapPaymentStore;
+import com.checkout.payment.gateway.repository.OffHeapPaymentStore;
+import com.checkout.payment.gateway.repository.PaymentAggregates;
+import com.checkout.payment.gateway.repository.PaymentIdFilter;
+import com.checkout.payment.gateway.repository.PaymentStore;
+import com.checkout.payment.gateway.repository.PaymentsRepository;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares the heap retained per payment and the GC time spent under steady read/write churn for the heap and off-heap
+ * {@link PaymentStore} backends, and reports the heap {@link PaymentsRepository} retains per payment for its indexes. Needs a
+ * heap of at least 2 GB.
+ */
+@Tag("load")
+class PaymentStoreFootprintLoadTest {
+
+  private static final int PAYMENTS = 2_000_000;
+  private static final int CHURN_OPERATIONS = 20_000_000;
+  private static final Currency[] CURRENCIES = Currency.values();
+
+  @Test
+  void shouldRetainLessHeapAndSpendLessTimeInGcOffHeap() {
+    Footprint heap = measure(HeapPaymentStore::new);
+    Footprint offHeap = measure(OffHeapPaymentStore::new);
+
+    System.out.printf("%,d payments: heap store %,d bytes/payment, %dms GC in %d collections; "
+            + "off-heap store %,d heap bytes/payment, %dms GC in %d collections%n",
+        PAYMENTS, heap.heapBytesPerPayment(), heap.gcMillis(), heap.gcCount(),
+        offHeap.heapBytesPerPayment(), offHeap.gcMillis(), offHeap.gcCount());
+
+    assertTrue(offHeap.heapBytesPerPayment() * 4 < heap.heapBytesPerPayment(),
+        "off-heap store retained %d heap bytes/payment, heap store %d".formatted(offHeap.heapBytesPerPayment(), heap.heapBytesPerPayment()));
+  }
+
+  @Test
+  void shouldReportHeapRetainedByRepositoryIndexes() {
+    // With the off-heap store holding the payments, nearly all heap a repository retains on top of its store is PaymentIndex
+    long storeBytes = retainedBytesPerPayment(() -> {
+      PaymentStore store = new OffHeapPaymentStore(PAYMENTS);
+      for (int i = 0; i < PAYMENTS; i++) {
+        store.put(createTestPayment(i));
+      }
+      return store;
+    });
+    long repositoryBytes = retainedBytesPerPayment(() -> {
+      PaymentsRepository repository = new PaymentsRepository(new OffHeapPaymentStore(PAYMENTS), Optional.empty(), 0, Duration.ZERO,
+          new PaymentAggregates(Duration.ofHours(1)), new PaymentIdFilter(PAYMENTS, 0.01), Optional.empty(), Optional.empty(),
+          Optional.empty());
+      for (int i = 0; i < PAYMENTS; i++) {
+        repository.add(createTestPayment(i));
+      }
+      return repository;
+    });
+    long indexBytes = repositoryBytes - storeBytes;
+
+    System.out.printf("%,d payments: repository indexes retain %,d heap bytes/payment on top of the store%n", PAYMENTS, indexBytes);
+
+    assertTrue(indexBytes < 256, "repository indexes retained %d heap bytes/payment".formatted(indexBytes));
+  }
+
+  private long retainedBytesPerPayment(Supplier<Object> fill) {
+    long heapBefore = usedHeapAfterGc();
+    Object retained = fill.get();
+    long heapAfter = usedHeapAfterGc();
+    Reference.reachabilityFence(retained);
+    return (heapAfter - heapBefore) / PAYMENTS;
+  }
+
+  private Footprint measure(IntFunction<PaymentStore> storeFactory) {
+    long heapBefore = usedHeapAfterGc();
+    PaymentStore store = storeFactory.apply(PAYMENTS);
+    // Ids are kept as primitive pairs so the churn phase below can find payments without retaining UUID objects
+    long[] mostSignificantBits = new long[PAYMENTS];
+    long[] leastSignificantBits = new long[PAYMENTS];
+    for (int i = 0; i < PAYMENTS; i++) {
+      Payment payment = createTestPayment(i);
+      mostSignificantBits[i] = payment.getId().getMostSignificantBits();
+      leastSignificantBits[i] = payment.getId().getLeastSignificantBits();
+      store.put(payment);
+    }
+    long heapAfter = usedHeapAfterGc();
+    long idBytes = (long) PAYMENTS * 2 * Long.BYTES;
+
+    long gcMillisBefore = gcMillis();
+    long gcCountBefore = gcCount();
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    for (int i = 0; i < CHURN_OPERATIONS; i++) {
+      int target = random.nextInt(PAYMENTS);
+      UUID id = new UUID(mostSignificantBits[target], leastSignificantBits[target]);
+      if (i % 10 == 0) {
+        Payment payment = createTestPayment(target);
+        payment.setId(id);
+        store.put(payment);
+      } else if (store.get(id) == null) {
+        throw new AssertionError("Lost payment " + id);
+      }
+    }
+    return new Footprint((heapAfter - heapBefore - idBytes) / PAYMENTS, gcMillis() - gcMillisBefore, gcCount() - gcCountBefore);
+  }
+
+  private static long usedHeapAfterGc() {
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+  }
+
+  private static long gcMillis() {
+    return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+  }
+
+  private static long gcCount() {
+    return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+  }
+
+  private static Payment createTestPayment(int i) {
+    Payment payment = new Payment();
+    payment.setId(UUID.randomUUID());
+    payment.setStatus(PaymentStatus.AUTHORIZED);
+    payment.setCardNumberLastFour(1000 + i % 9000);
+    payment.setExpiryMonth(1 + i % 12);
+    payment.setExpiryYear(2030);
+    payment.setCurrency(CURRENCIES[i % CURRENCIES.length]);
+    payment.setAmount(i);
+    return payment;
+  }
+
+  private record Footprint(long heapBytesPerPayment, long gcMillis, long gcCount) {
+  }
+}
@@ -0,0 +1,101 @@
+package com.checkout.payment.gateway.loadtest;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+/**
+ * In-process acquiring bank that answers every payment after a delay drawn from a {@link LatencyDistribution}, and tracks how many
+ * authorizations it is serving at once. The latency, the share of payments declined, the share of requests answered with a 500 and
+ * the share of responses that close their connection can be changed while it runs.
+ */
+public class StubAcquiringBank implements AutoCloseable {
+
+  private static final String AUTHORIZED = "{\"authorized\":true,\"authorization_code\":\"0bb07405-6d44-4b50-a14f-7ae0beff13ad\"}";
+  private static final String DECLINED = "{\"authorized\":false,\"authorization_code\":\"\"}";
+
+  private volatile LatencyDistribution latency;
+  private volatile double declineRate;
+  private volatile double errorRate;
+  private volatile double connectionCloseRate;
+  private final AtomicLong requests = new AtomicLong();
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger maxInFlight = new AtomicInteger();
+  private final DisposableServer server;
+
+  public StubAcquiringBank(Duration latency) {
+    this(LatencyDistribution.fixed(latency));
+  }
+
+  public StubAcquiringBank(LatencyDistribution latency) {
+    this.latency = latency;
+    this.server = HttpServer.create()
+        .host("localhost")
+        .port(0)
+        .route(routes -> routes.post("/payments", this::authorize))
+        .bindNow();
+  }
+
+  public String baseUrl() {
+    return "http://localhost:" + server.port();
+  }
+
+  public void setLatency(Duration latency) {
+    this.latency = LatencyDistribution.fixed(latency);
+  }
+
+  public void setLatency(LatencyDistribution latency) {
+    this.latency = latency;
+  }
+
+  public void setDeclineRate(double declineRate) {
+    this.declineRate = declineRate;
+  }
+
+  public void setErrorRate(double errorRate) {
+    this.errorRate = errorRate;
+  }
+
+  public void setConnectionCloseRate(double connectionCloseRate) {
+    this.connectionCloseRate = connectionCloseRate;
+  }
+
+  public long requests() {
+    return requests.get();
+  }
+
+  public int maxInFlight() {
+    return maxInFlight.get();
+  }
+
+  @Override
+  public void close() {
+    server.disposeNow();
+  }
+
+  private Mono<Void> authorize(HttpServerRequest request, HttpServerResponse response) {
+    requests.incrementAndGet();
+    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    boolean failed = random.nextDouble() < errorRate;
+    String body = random.nextDouble() < declineRate ? DECLINED : AUTHORIZED;
+    if (random.nextDouble() < connectionCloseRate) {
+      response.keepAlive(false);
+    }
+
+    return request.receive().aggregate()
+        .then(Mono.delay(Duration.ofNanos(latency.sampleNanos(random))))
+        .then(failed
+            ? response.status(HttpResponseStatus.INTERNAL_SERVER_ERROR).send().then()
+            : response.header(HttpHeaderNames.CONTENT_TYPE, "application/json").sendString(Mono.just(body)).then())
+        .doFinally(signal -> inFlight.decrementAndGet());
+  }
+}
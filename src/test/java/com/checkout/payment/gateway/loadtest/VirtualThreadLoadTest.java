@@ -0,0 +1,98 @@
+package com.checkout.payment.gateway.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.checkout.payment.gateway.client.AcquiringBankCircuitBreaker;
+import com.checkout.payment.gateway.client.AcquiringBankClient;
+import com.checkout.payment.gateway.client.AcquiringBankConcurrencyLimiter;
+import com.checkout.payment.gateway.client.VirtualThreadAcquiringBankClient;
+import com.checkout.payment.gateway.enums.Currency;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.CreditCard;
+import com.checkout.payment.gateway.model.Payment;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+/**
+ * Compares blocking bank authorizations on a platform thread pool the size of Tomcat's default against a virtual-thread-per-task
+ * executor. Each run opens one socket per concurrent payment on both ends, so 10k payments need a file descriptor limit above 20k.
+ */
+@Tag("load")
+class VirtualThreadLoadTest {
+
+  private static final int PLATFORM_THREADS = 200;
+  private static final Duration BANK_LATENCY = Duration.ofMillis(100);
+
+  private static final StubAcquiringBank BANK = new StubAcquiringBank(BANK_LATENCY);
+
+  @AfterAll
+  static void stopBank() {
+    BANK.close();
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1_000, 5_000, 10_000})
+  void shouldAuthorizeFasterOnVirtualThreads(int concurrentPayments) {
+    Duration platform = authorizeAll(concurrentPayments, Executors.newFixedThreadPool(PLATFORM_THREADS));
+    Duration virtual = authorizeAll(concurrentPayments, Executors.newVirtualThreadPerTaskExecutor());
+
+    System.out.printf("%,d concurrent payments, %dms bank latency: %d platform threads %dms (%,.0f/s), virtual threads %dms (%,.0f/s)%n",
+        concurrentPayments, BANK_LATENCY.toMillis(), PLATFORM_THREADS,
+        platform.toMillis(), throughput(concurrentPayments, platform), virtual.toMillis(), throughput(concurrentPayments, virtual));
+
+    assertTrue(virtual.compareTo(platform) < 0, "virtual threads took %dms, platform threads %dms".formatted(virtual.toMillis(), platform.toMillis()));
+  }
+
+  private Duration authorizeAll(int concurrentPayments, ExecutorService executor) {
+    RestTemplate restTemplate = new RestTemplateBuilder().rootUri(BANK.baseUrl()).build();
+    // Platform threads queue payments behind the pool, so the limiter must not mistake queueing for a slow bank
+    AcquiringBankConcurrencyLimiter concurrencyLimiter = new AcquiringBankConcurrencyLimiter(concurrentPayments, concurrentPayments,
+        concurrentPayments, Duration.ofHours(1), 0.9);
+    AcquiringBankCircuitBreaker circuitBreaker = new AcquiringBankCircuitBreaker(100, 20, 0.5, Duration.ofSeconds(10), 5);
+    AcquiringBankClient client = new VirtualThreadAcquiringBankClient(BANK.baseUrl(), WebClient.create(), concurrencyLimiter, circuitBreaker,
+        restTemplate, executor);
+    Payment payment = createTestPayment();
+    CreditCard creditCard = new CreditCard("2222405343248877", "123");
+
+    try {
+      long started = System.nanoTime();
+      long authorized = Flux.range(0, concurrentPayments)
+          .flatMap(i -> client.authorizePayment(payment, creditCard), concurrentPayments)
+          .filter(PaymentStatus.AUTHORIZED::equals)
+          .count()
+          .block(Duration.ofMinutes(2));
+      Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+
+      assertEquals(concurrentPayments, authorized);
+      return elapsed;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static double throughput(int payments, Duration elapsed) {
+    return payments * 1000.0 / Math.max(1, elapsed.toMillis());
+  }
+
+  private Payment createTestPayment() {
+    YearMonth future = YearMonth.now().plusYears(1);
+
+    Payment payment = new Payment();
+    payment.setExpiryMonth(future.getMonthValue());
+    payment.setExpiryYear(future.getYear());
+    payment.setCurrency(Currency.GBP);
+    payment.setAmount(100);
+    return payment;
+  }
+}
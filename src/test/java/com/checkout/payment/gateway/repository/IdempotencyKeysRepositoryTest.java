@@ -0,0 +1,164 @@
+package com.checkout.payment.gateway.repository;
+
+import com.checkout.payment.gateway.dto.PostPaymentRequestDTO;
+import com.checkout.payment.gateway.dto.PostPaymentResponseDTO;
+import com.checkout.payment.gateway.exception.IdempotencyKeyConflictException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IdempotencyKeysRepositoryTest {
+
+  private final AtomicInteger processed = new AtomicInteger();
+
+  @Test
+  public void shouldReturnStoredResponseWithoutProcessingAgain() {
+    IdempotencyKeysRepository repository = new IdempotencyKeysRepository(100, Duration.ofMinutes(1));
+    PostPaymentResponseDTO response = createTestResponse();
+
+    StepVerifier.create(repository.getOrProcess("key", fingerprint(1), () -> process(Mono.just(response))))
+        .expectNext(response)
+        .verifyComplete();
+    StepVerifier.create(repository.getOrProcess("key", fingerprint(1), () -> process(Mono.just(createTestResponse()))))
+        .expectNext(response)
+        .verifyComplete();
+
+    assertEquals(1, processed.get());
+  }
+
+  @Test
+  public void shouldJoinPaymentStillInFlight() {
+    IdempotencyKeysRepository repository = new IdempotencyKeysRepository(100, Duration.ofMinutes(1));
+    Sinks.One<PostPaymentResponseDTO> bank = Sinks.one();
+    PostPaymentResponseDTO response = createTestResponse();
+
+    Mono<PostPaymentResponseDTO> first = repository.getOrProcess("key", fingerprint(1), () -> process(bank.asMono()));
+    Mono<PostPaymentResponseDTO> duplicate = repository.getOrProcess("key", fingerprint(1), () -> process(bank.asMono()));
+    bank.tryEmitValue(response);
+
+    StepVerifier.create(first).expectNext(response).verifyComplete();
+    StepVerifier.create(duplicate).expectNext(response).verifyComplete();
+    assertEquals(1, processed.get());
+  }
+
+  @Test
+  public void shouldRejectKeyReusedForDifferentPayment() {
+    IdempotencyKeysRepository repository = new IdempotencyKeysRepository(100, Duration.ofMinutes(1));
+
+    repository.getOrProcess("key", fingerprint(1), () -> process(Mono.just(createTestResponse()))).block();
+
+    StepVerifier.create(repository.getOrProcess("key", fingerprint(2), () -> process(Mono.just(createTestResponse()))))
+        .expectError(IdempotencyKeyConflictException.class)
+        .verify();
+  }
+
+  @Test
+  public void shouldForgetFailedAttempts() {
+    IdempotencyKeysRepository repository = new IdempotencyKeysRepository(100, Duration.ofMinutes(1));
+    PostPaymentResponseDTO response = createTestResponse();
+
+    StepVerifier.create(repository.getOrProcess("key", fingerprint(1), () -> process(Mono.error(new RuntimeException("Connection error")))))
+        .expectError(RuntimeException.class)
+        .verify();
+    StepVerifier.create(repository.getOrProcess("key", fingerprint(1), () -> process(Mono.just(response))))
+        .expectNext(response)
+        .verifyComplete();
+
+    assertEquals(2, processed.get());
+  }
+
+  @Test
+  public void shouldNotKeepFailedAttemptsQueuedForEviction() {
+    IdempotencyKeysRepository repository = new IdempotencyKeysRepository(100, Duration.ofMinutes(1));
+
+    for (int i = 0; i < 10_000; i++) {
+      StepVerifier.create(repository.getOrProcess("key-" + i, fingerprint(1), () -> process(Mono.error(new RuntimeException("Connection error")))))
+          .expectError(RuntimeException.class)
+          .verify();
+    }
+
+    assertEquals(0, repository.size());
+    assertEquals(0, repository.queuedKeys());
+  }
+
+  @Test
+  public void shouldProcessAgainOnceKeyHasExpired() throws Exception {
+    IdempotencyKeysRepository repository = new IdempotencyKeysRepository(100, Duration.ofMillis(1));
+
+    repository.getOrProcess("key", fingerprint(1), () -> process(Mono.just(createTestResponse()))).block();
+    Thread.sleep(5);
+    repository.getOrProcess("key", fingerprint(1), () -> process(Mono.just(createTestResponse()))).block();
+
+    assertEquals(2, processed.get());
+  }
+
+  @Test
+  public void shouldEvictOldestKeysBeyondCapacity() {
+    IdempotencyKeysRepository repository = new IdempotencyKeysRepository(2, Duration.ofMinutes(1));
+
+    for (int i = 0; i < 10; i++) {
+      repository.getOrProcess("key-" + i, fingerprint(1), () -> process(Mono.just(createTestResponse()))).block();
+    }
+
+    assertTrue(repository.size() <= 3);
+  }
+
+  @Test
+  public void shouldForgetAttemptWhoseProcessorThrows() {
+    IdempotencyKeysRepository repository = new IdempotencyKeysRepository(100, Duration.ofMinutes(1));
+    PostPaymentResponseDTO response = createTestResponse();
+
+    StepVerifier.create(repository.getOrProcess("key", fingerprint(1), () -> {
+          throw new IllegalStateException("Processing could not start");
+        }))
+        .expectError(IllegalStateException.class)
+        .verify(Duration.ofSeconds(5));
+    StepVerifier.create(repository.getOrProcess("key", fingerprint(1), () -> process(Mono.just(response))))
+        .expectNext(response)
+        .verifyComplete();
+  }
+
+  @Test
+  public void shouldTellRequestsWithDifferentBodiesApart() {
+    PostPaymentRequestDTO request = createTestRequest();
+    PostPaymentRequestDTO same = createTestRequest();
+    PostPaymentRequestDTO different = createTestRequest();
+    different.setAmount(1001);
+
+    assertArrayEquals(request.fingerprint(), same.fingerprint());
+    assertFalse(Arrays.equals(request.fingerprint(), different.fingerprint()));
+  }
+
+  private byte[] fingerprint(int request) {
+    return new byte[] {(byte) request};
+  }
+
+  private PostPaymentRequestDTO createTestRequest() {
+    PostPaymentRequestDTO request = new PostPaymentRequestDTO();
+    request.setCardNumber("2222405343248877");
+    request.setCvv("123");
+    request.setExpiryMonth(4);
+    request.setExpiryYear(2030);
+    request.setCurrency("GBP");
+    request.setAmount(100);
+    return request;
+  }
+
+  private Mono<PostPaymentResponseDTO> process(Mono<PostPaymentResponseDTO> result) {
+    processed.incrementAndGet();
+    return result;
+  }
+
+  private PostPaymentResponseDTO createTestResponse() {
+    PostPaymentResponseDTO response = new PostPaymentResponseDTO();
+    response.setId(UUID.randomUUID());
+    return response;
+  }
+}
@@ -0,0 +1,130 @@
+package com.checkout.payment.gateway.repository;
+
+import com.checkout.payment.gateway.enums.Currency;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.Payment;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffHeapPaymentStoreTest {
+
+  @Test
+  public void shouldMaterialiseEqualPaymentOnRead() {
+    OffHeapPaymentStore store = new OffHeapPaymentStore(16);
+    Payment payment = createTestPayment();
+
+    store.put(payment);
+
+    Payment stored = store.get(payment.getId());
+    assertNotSame(payment, stored);
+    assertEquals(payment, stored);
+  }
+
+  @Test
+  public void shouldReplacePaymentWithSameId() {
+    OffHeapPaymentStore store = new OffHeapPaymentStore(16);
+    Payment payment = createTestPayment();
+    store.put(payment);
+
+    payment.setStatus(PaymentStatus.DECLINED);
+    store.put(payment);
+
+    assertEquals(1, store.size());
+    assertEquals(PaymentStatus.DECLINED, store.get(payment.getId()).getStatus());
+  }
+
+  @Test
+  public void shouldGrowAndKeepRemainingPaymentsReachableAfterRemovals() {
+    OffHeapPaymentStore store = new OffHeapPaymentStore(16);
+    List<Payment> payments = new ArrayList<>();
+    for (int i = 0; i < 50_000; i++) {
+      Payment payment = createTestPayment();
+      payments.add(payment);
+      store.put(payment);
+    }
+
+    for (int i = 0; i < payments.size(); i += 2) {
+      assertTrue(store.remove(payments.get(i).getId()));
+    }
+
+    assertEquals(payments.size() / 2, store.size());
+    for (int i = 0; i < payments.size(); i++) {
+      Payment payment = payments.get(i);
+      if (i % 2 == 0) {
+        assertNull(store.get(payment.getId()));
+      } else {
+        assertEquals(payment, store.get(payment.getId()));
+      }
+    }
+    assertFalse(store.remove(payments.get(0).getId()));
+  }
+
+  @Test
+  public void shouldRoundTripEveryCurrency() {
+    OffHeapPaymentStore store = new OffHeapPaymentStore(16);
+    for (Currency currency : Currency.values()) {
+      Payment payment = createTestPayment();
+      payment.setCurrency(currency);
+      store.put(payment);
+
+      assertEquals(currency, store.get(payment.getId()).getCurrency());
+    }
+  }
+
+  @Test
+  public void shouldReadConsistentlyWhileWritersGrowTheStore() throws Exception {
+    OffHeapPaymentStore store = new OffHeapPaymentStore(16);
+    Payment seeded = createTestPayment();
+    store.put(seeded);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> workers = new ArrayList<>();
+
+    try {
+      for (int i = 0; i < 4; i++) {
+        workers.add(executor.submit(() -> {
+          start.await();
+          for (int j = 0; j < 20_000; j++) {
+            store.put(createTestPayment());
+          }
+          return null;
+        }));
+        workers.add(executor.submit(() -> {
+          start.await();
+          for (int j = 0; j < 20_000; j++) {
+            assertEquals(seeded, store.get(seeded.getId()));
+          }
+          return null;
+        }));
+      }
+      start.countDown();
+
+      for (Future<?> worker : workers) {
+        worker.get();
+      }
+      assertEquals(80_001, store.size());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private Payment createTestPayment() {
+    Payment payment = new Payment();
+    payment.setId(UUID.randomUUID());
+    payment.setStatus(PaymentStatus.AUTHORIZED);
+    payment.setCardNumberLastFour(4321);
+    payment.setExpiryMonth(12);
+    payment.setExpiryYear(2030);
+    payment.setCurrency(Currency.GBP);
+    payment.setAmount(100);
+    return payment;
+  }
+}
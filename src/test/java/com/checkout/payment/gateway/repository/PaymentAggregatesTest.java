@@ -0,0 +1,98 @@
+package com.checkout.payment.gateway.repository;
+
+import com.checkout.payment.gateway.enums.Currency;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.Payment;
+import com.checkout.payment.gateway.repository.PaymentAggregates.MinuteOutcomes;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PaymentAggregatesTest {
+
+  private static final long MINUTE = 60_000;
+
+  @Test
+  public void shouldTotalCountsAndAmountsByStatusAndCurrency() {
+    PaymentAggregates aggregates = new PaymentAggregates(5, () -> 0);
+    PaymentsRepository repository = new PaymentsRepositoryBuilder().aggregates(aggregates).build();
+
+    repository.add(createTestPayment(PaymentStatus.AUTHORIZED, Currency.USD, 100));
+    repository.add(createTestPayment(PaymentStatus.AUTHORIZED, Currency.USD, 250));
+    repository.add(createTestPayment(PaymentStatus.DECLINED, Currency.GBP, 70));
+
+    assertEquals(2, aggregates.count(PaymentStatus.AUTHORIZED, Currency.USD));
+    assertEquals(350, aggregates.amount(PaymentStatus.AUTHORIZED, Currency.USD));
+    assertEquals(1, aggregates.count(PaymentStatus.DECLINED, Currency.GBP));
+    assertEquals(70, aggregates.amount(PaymentStatus.DECLINED, Currency.GBP));
+    assertEquals(0, aggregates.count(PaymentStatus.DECLINED, Currency.USD));
+  }
+
+  @Test
+  public void shouldMovePaymentToItsNewStatusTotal() {
+    PaymentAggregates aggregates = new PaymentAggregates(5, () -> 0);
+    PaymentsRepository repository = new PaymentsRepositoryBuilder().aggregates(aggregates).build();
+    Payment authorized = createTestPayment(PaymentStatus.AUTHORIZED, Currency.EUR, 100);
+    Payment declined = createTestPayment(PaymentStatus.DECLINED, Currency.EUR, 100);
+    declined.setId(authorized.getId());
+
+    repository.add(authorized);
+    repository.add(declined);
+
+    assertEquals(0, aggregates.count(PaymentStatus.AUTHORIZED, Currency.EUR));
+    assertEquals(0, aggregates.amount(PaymentStatus.AUTHORIZED, Currency.EUR));
+    assertEquals(1, aggregates.count(PaymentStatus.DECLINED, Currency.EUR));
+    assertEquals(100, aggregates.amount(PaymentStatus.DECLINED, Currency.EUR));
+  }
+
+  @Test
+  public void shouldCountOutcomesPerMinuteOverTheWindow() {
+    AtomicLong now = new AtomicLong(10 * MINUTE);
+    PaymentAggregates aggregates = new PaymentAggregates(3, now::get);
+
+    aggregates.recordOutcome(PaymentStatus.AUTHORIZED);
+    aggregates.recordOutcome(PaymentStatus.DECLINED);
+    now.set(11 * MINUTE + 30_000);
+    aggregates.recordOutcome(PaymentStatus.AUTHORIZED);
+    now.set(12 * MINUTE);
+
+    List<MinuteOutcomes> minutes = aggregates.lastMinutes();
+    assertEquals(3, minutes.size());
+    assertEquals(Instant.ofEpochMilli(10 * MINUTE), minutes.get(0).start());
+    assertEquals(1, minutes.get(0).count(PaymentStatus.AUTHORIZED));
+    assertEquals(1, minutes.get(0).count(PaymentStatus.DECLINED));
+    assertEquals(1, minutes.get(1).count(PaymentStatus.AUTHORIZED));
+    assertEquals(0, minutes.get(2).count(PaymentStatus.AUTHORIZED));
+  }
+
+  @Test
+  public void shouldReuseBucketOnceItsMinuteLeavesTheWindow() {
+    AtomicLong now = new AtomicLong(10 * MINUTE);
+    PaymentAggregates aggregates = new PaymentAggregates(3, now::get);
+    aggregates.recordOutcome(PaymentStatus.AUTHORIZED);
+
+    now.set(13 * MINUTE);
+    aggregates.recordOutcome(PaymentStatus.DECLINED);
+
+    List<MinuteOutcomes> minutes = aggregates.lastMinutes();
+    assertEquals(Instant.ofEpochMilli(11 * MINUTE), minutes.get(0).start());
+    assertTrue(minutes.stream().allMatch(minute -> minute.count(PaymentStatus.AUTHORIZED) == 0));
+    assertEquals(1, minutes.get(2).count(PaymentStatus.DECLINED));
+  }
+
+  private Payment createTestPayment(PaymentStatus status, Currency currency, int amount) {
+    Payment payment = new Payment();
+    payment.setId(UUID.randomUUID());
+    payment.setStatus(status);
+    payment.setCardNumberLastFour(4321);
+    payment.setExpiryMonth(12);
+    payment.setExpiryYear(2030);
+    payment.setCurrency(currency);
+    payment.setAmount(amount);
+    return payment;
+  }
+}
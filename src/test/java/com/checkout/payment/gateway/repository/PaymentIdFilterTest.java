@@ -0,0 +1,123 @@
+package com.checkout.payment.gateway.repository;
+
+import com.checkout.payment.gateway.model.Payment;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PaymentIdFilterTest {
+
+  private final Random random = new Random(42);
+
+  @Test
+  public void shouldSizeForExpectedPaymentsAndFalsePositiveRate() {
+    PaymentIdFilter filter = new PaymentIdFilter(10_000, 0.01);
+
+    // -10000 * ln(0.01) / ln(2)^2 = 95851 bits, rounded up to whole words
+    assertEquals(95_872, filter.bitCount());
+    assertEquals(7, filter.hashes());
+  }
+
+  @Test
+  public void shouldContainEveryAddedId() {
+    PaymentIdFilter filter = new PaymentIdFilter(10_000, 0.01);
+    List<UUID> ids = randomIds(10_000);
+
+    ids.forEach(filter::add);
+
+    for (UUID id : ids) {
+      assertTrue(filter.mightContain(id));
+    }
+  }
+
+  @Test
+  public void shouldKeepFalsePositivesNearConfiguredRate() {
+    PaymentIdFilter filter = new PaymentIdFilter(10_000, 0.01);
+    randomIds(10_000).forEach(filter::add);
+
+    int falsePositives = 0;
+    for (UUID id : randomIds(100_000)) {
+      if (filter.mightContain(id)) {
+        falsePositives++;
+      }
+    }
+
+    assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+    assertEquals(0.01, filter.estimatedFalsePositiveRate(), 0.005);
+  }
+
+  @Test
+  public void shouldHandleTimeOrderedIds() {
+    PaymentIdFilter filter = new PaymentIdFilter(10_000, 0.01);
+    long millis = 1_714_558_500_000L;
+    for (int i = 0; i < 10_000; i++) {
+      filter.add(timeOrderedId(millis + i / 100));
+    }
+
+    int falsePositives = 0;
+    for (int i = 0; i < 100_000; i++) {
+      if (filter.mightContain(timeOrderedId(millis + i / 1_000))) {
+        falsePositives++;
+      }
+    }
+
+    assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+  }
+
+  @Test
+  public void shouldForgetIdsMissingFromRebuild() {
+    PaymentIdFilter filter = new PaymentIdFilter(1_000, 0.001);
+    List<UUID> retained = randomIds(500);
+    List<UUID> retired = randomIds(500);
+    retained.forEach(filter::add);
+    retired.forEach(filter::add);
+
+    filter.rebuild(retained.size(), retained.stream());
+
+    retained.forEach(id -> assertTrue(filter.mightContain(id)));
+    long stillPassing = retired.stream().filter(filter::mightContain).count();
+    assertTrue(stillPassing < 10, "retired ids still passing: " + stillPassing);
+  }
+
+  @Test
+  public void shouldGrowWhenRebuiltWithMoreThanExpected() {
+    PaymentIdFilter filter = new PaymentIdFilter(1_000, 0.01);
+    List<UUID> ids = randomIds(10_000);
+
+    filter.rebuild(ids.size(), ids.stream());
+
+    assertEquals(new PaymentIdFilter(10_000, 0.01).bitCount(), filter.bitCount());
+    assertEquals(0.01, filter.estimatedFalsePositiveRate(), 0.005);
+  }
+
+  @Test
+  public void shouldAnswerUnknownIdsWithoutReadingStore() {
+    PaymentStore store = new HeapPaymentStore(16) {
+      @Override
+      public Payment get(UUID id) {
+        fail("store read for " + id);
+        return null;
+      }
+    };
+    PaymentIdFilter filter = new PaymentIdFilter(1_000, 1e-9);
+    PaymentsRepository repository = new PaymentsRepositoryBuilder().store(store).idFilter(filter).build();
+
+    assertTrue(repository.getById(UUID.randomUUID()).isEmpty());
+  }
+
+  private List<UUID> randomIds(int count) {
+    List<UUID> ids = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      ids.add(new UUID(random.nextLong(), random.nextLong()));
+    }
+    return ids;
+  }
+
+  private UUID timeOrderedId(long millis) {
+    return new UUID((millis << 16) | 0x7000 | (random.nextInt() & 0xfff), 0x8000_0000_0000_0000L | (random.nextLong() & 0x3fff_ffff_ffff_ffffL));
+  }
+}
@@ -0,0 +1,66 @@
+package com.checkout.payment.gateway.repository;
+
+import com.checkout.payment.gateway.repository.journal.PaymentJournal;
+import com.checkout.payment.gateway.repository.snapshot.PaymentSnapshots;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Builds a {@link PaymentsRepository} for tests: a small heap store, no persistence, clustering or retention bounds, unless set.
+ */
+class PaymentsRepositoryBuilder {
+
+  private PaymentStore store = new HeapPaymentStore(16);
+
+  private PaymentJournal journal;
+
+  private int maxEntries;
+
+  private Duration maxAge = Duration.ZERO;
+
+  private PaymentAggregates aggregates = new PaymentAggregates(Duration.ofHours(1));
+
+  private PaymentIdFilter idFilter = new PaymentIdFilter(1_000_000, 0.01);
+
+  private PaymentSnapshots snapshots;
+
+  PaymentsRepositoryBuilder store(PaymentStore store) {
+    this.store = store;
+    return this;
+  }
+
+  PaymentsRepositoryBuilder journal(PaymentJournal journal) {
+    this.journal = journal;
+    return this;
+  }
+
+  PaymentsRepositoryBuilder maxEntries(int maxEntries) {
+    this.maxEntries = maxEntries;
+    return this;
+  }
+
+  PaymentsRepositoryBuilder maxAge(Duration maxAge) {
+    this.maxAge = maxAge;
+    return this;
+  }
+
+  PaymentsRepositoryBuilder aggregates(PaymentAggregates aggregates) {
+    this.aggregates = aggregates;
+    return this;
+  }
+
+  PaymentsRepositoryBuilder idFilter(PaymentIdFilter idFilter) {
+    this.idFilter = idFilter;
+    return this;
+  }
+
+  PaymentsRepositoryBuilder snapshots(PaymentSnapshots snapshots) {
+    this.snapshots = snapshots;
+    return this;
+  }
+
+  PaymentsRepository build() {
+    return new PaymentsRepository(store, Optional.ofNullable(journal), maxEntries, maxAge, aggregates, idFilter, Optional.empty(),
+        Optional.empty(), Optional.ofNullable(snapshots));
+  }
+}
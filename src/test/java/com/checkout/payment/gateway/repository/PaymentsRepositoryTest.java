@@ -0,0 +1,379 @@
+package com.checkout.payment.gateway.repository;
+
+import com.checkout.payment.gateway.enums.Currency;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.id.TimeOrderedPaymentIdGenerator;
+import com.checkout.payment.gateway.model.Payment;
+import com.checkout.payment.gateway.repository.journal.PaymentJournal;
+import com.checkout.payment.gateway.repository.snapshot.PaymentSnapshots;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PaymentsRepositoryTest {
+
+  private static final int WRITERS = 32;
+  private static final int PAYMENTS_PER_WRITER = 5_000;
+
+  private static final TimeOrderedPaymentIdGenerator IDS = new TimeOrderedPaymentIdGenerator();
+
+  @Test
+  public void shouldReturnStoredPayment() {
+    PaymentsRepository repository = new PaymentsRepositoryBuilder().build();
+    Payment payment = createTestPayment();
+
+    repository.add(payment);
+
+    assertSame(payment, repository.getById(payment.getId()).orElseThrow());
+  }
+
+  @Test
+  public void shouldReturnEmptyForUnknownId() {
+    PaymentsRepository repository = new PaymentsRepositoryBuilder().build();
+
+    assertTrue(repository.getById(UUID.randomUUID()).isEmpty());
+  }
+
+  @Test
+  public void shouldNotLosePaymentsUnderConcurrentWrites() throws Exception {
+    PaymentsRepository repository = new PaymentsRepositoryBuilder().build();
+    ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<List<UUID>>> writers = new ArrayList<>();
+
+    try {
+      for (int i = 0; i < WRITERS; i++) {
+        writers.add(executor.submit(() -> {
+          List<UUID> written = new ArrayList<>(PAYMENTS_PER_WRITER);
+          start.await();
+          for (int j = 0; j < PAYMENTS_PER_WRITER; j++) {
+            Payment payment = createTestPayment();
+            repository.add(payment);
+            written.add(payment.getId());
+          }
+          return written;
+        }));
+      }
+      start.countDown();
+
+      for (Future<List<UUID>> writer : writers) {
+        for (UUID id : writer.get()) {
+          assertTrue(repository.getById(id).isPresent());
+        }
+      }
+      assertEquals(WRITERS * PAYMENTS_PER_WRITER, repository.size());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void shouldEvictOldestPaymentsBeyondMaxEntries() {
+    PaymentsRepository repository = new PaymentsRepositoryBuilder().maxEntries(2).build();
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    repository.bindTo(registry);
+    Payment first = createTestPayment();
+    Payment second = createTestPayment();
+    Payment third = createTestPayment();
+
+    repository.add(first);
+    repository.add(second);
+    repository.add(third);
+
+    assertTrue(repository.getById(first.getId()).isEmpty());
+    assertTrue(repository.getById(second.getId()).isPresent());
+    assertTrue(repository.getById(third.getId()).isPresent());
+    assertEquals(2, registry.get("payments.repository.size").gauge().value());
+    assertEquals(1, registry.get("payments.repository.evictions").tag("cause", "size").functionCounter().count());
+  }
+
+  @Test
+  public void shouldNotEvictPaymentThatIsStoredAgain() {
+    PaymentsRepository repository = new PaymentsRepositoryBuilder().maxEntries(1).build();
+    Payment payment = createTestPayment();
+
+    repository.add(payment);
+    Payment declined = createTestPayment();
+    declined.setId(payment.getId());
+    declined.setStatus(PaymentStatus.DECLINED);
+    repository.add(declined);
+
+    assertEquals(PaymentStatus.DECLINED, repository.getById(payment.getId()).orElseThrow().getStatus());
+  }
+
+  @Test
+  public void shouldRejectPaymentChangedInPlace() {
+    PaymentsRepository repository = new PaymentsRepositoryBuilder().build();
+    Payment payment = createTestPayment(1_000, PaymentStatus.AUTHORIZED, Currency.USD);
+    repository.add(payment);
+
+    Payment stored = repository.getById(payment.getId()).orElseThrow();
+    stored.setStatus(PaymentStatus.DECLINED);
+    assertThrows(IllegalArgumentException.class, () -> repository.add(stored));
+
+    // Still indexed and counted as it was first stored, so storing a copy with the new status moves it correctly
+    assertEquals(1, repository.aggregates().count(PaymentStatus.AUTHORIZED, Currency.USD));
+    Payment declined = createTestPayment(1_000, PaymentStatus.DECLINED, Currency.USD);
+    declined.setId(payment.getId());
+    repository.add(declined);
+
+    assertEquals(0, repository.aggregates().count(PaymentStatus.AUTHORIZED, Currency.USD));
+    assertEquals(1, repository.aggregates().count(PaymentStatus.DECLINED, Currency.USD));
+    assertTrue(repository.query(new PaymentQuery(PaymentStatus.AUTHORIZED, null, null, null, null)).findAny().isEmpty());
+    assertEquals(List.of(declined), repository.query(new PaymentQuery(PaymentStatus.DECLINED, null, null, null, null)).toList());
+  }
+
+  @Test
+  public void shouldExpirePaymentsOlderThanMaxAge() throws Exception {
+    PaymentsRepository repository = new PaymentsRepositoryBuilder().maxAge(Duration.ofMillis(50)).build();
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    repository.bindTo(registry);
+    Payment old = createTestPayment();
+    repository.add(old);
+
+    Thread.sleep(100);
+    Payment recent = createTestPayment();
+    repository.add(recent);
+
+    assertTrue(repository.getById(old.getId()).isEmpty());
+    assertTrue(repository.getById(recent.getId()).isPresent());
+    assertEquals(1, registry.get("payments.repository.evictions").tag("cause", "expired").functionCounter().count());
+  }
+
+  @Test
+  public void shouldMeasureAgeFromCreationTimeInId() {
+    PaymentsRepository repository = new PaymentsRepositoryBuilder().maxAge(Duration.ofHours(1)).build();
+    long now = System.currentTimeMillis();
+    Payment created2HoursAgo = createTestPayment(now - Duration.ofHours(2).toMillis(), PaymentStatus.AUTHORIZED, Currency.USD);
+    Payment createdJustNow = createTestPayment(now, PaymentStatus.AUTHORIZED, Currency.USD);
+
+    repository.add(created2HoursAgo);
+    repository.add(createdJustNow);
+
+    assertTrue(repository.getById(created2HoursAgo.getId()).isEmpty());
+    assertTrue(repository.getById(createdJustNow.getId()).isPresent());
+    repository.close();
+  }
+
+  @Test
+  public void shouldMeasureAgeFromCreationTimeInIdAfterRestart(@TempDir Path directory) throws Exception {
+    long now = System.currentTimeMillis();
+    Payment created2HoursAgo = createTestPayment(now - Duration.ofHours(2).toMillis(), PaymentStatus.AUTHORIZED, Currency.USD);
+    Payment createdJustNow = createTestPayment(now, PaymentStatus.AUTHORIZED, Currency.USD);
+    try (PaymentJournal journal = new PaymentJournal(directory, DataSize.ofMegabytes(1), Duration.ofMillis(1), 4)) {
+      PaymentsRepository repository = new PaymentsRepositoryBuilder().journal(journal).build();
+      repository.add(created2HoursAgo).get(5, TimeUnit.SECONDS);
+      repository.add(createdJustNow).get(5, TimeUnit.SECONDS);
+    }
+
+    try (PaymentJournal journal = new PaymentJournal(directory, DataSize.ofMegabytes(1), Duration.ofMillis(1), 4);
+        PaymentsRepository restarted = new PaymentsRepositoryBuilder().journal(journal).maxAge(Duration.ofHours(1)).build()) {
+      assertTrue(restarted.getById(created2HoursAgo.getId()).isEmpty());
+      assertTrue(restarted.getById(createdJustNow.getId()).isPresent());
+    }
+  }
+
+  @Test
+  public void shouldRefusePaymentWithoutCreationTimeWhenRetentionIsBounded() {
+    PaymentsRepository repository = new PaymentsRepositoryBuilder().maxAge(Duration.ofHours(1)).build();
+    Payment payment = createTestPayment();
+    payment.setId(UUID.randomUUID());
+
+    assertThrows(IllegalArgumentException.class, () -> repository.add(payment));
+
+    assertTrue(repository.getById(payment.getId()).isEmpty());
+    assertEquals(0, repository.size());
+    repository.close();
+  }
+
+  @Test
+  public void shouldExpirePaymentsWhileIdle() throws Exception {
+    PaymentsRepository repository = new PaymentsRepositoryBuilder().maxAge(Duration.ofMillis(50)).build();
+    Payment payment = createTestPayment();
+    repository.add(payment);
+
+    long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+    while (repository.size() > 0 && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+
+    assertTrue(repository.getById(payment.getId()).isEmpty());
+    repository.close();
+  }
+
+  @Test
+  public void shouldNotBringBackEvictedPaymentsOnReplay(@TempDir Path directory) throws Exception {
+    List<Payment> payments = new ArrayList<>();
+    try (PaymentJournal journal = new PaymentJournal(directory, DataSize.ofMegabytes(1), Duration.ofMillis(1), 4)) {
+      PaymentsRepository repository = new PaymentsRepositoryBuilder().journal(journal).maxEntries(2).build();
+      for (int i = 0; i < 5; i++) {
+        Payment payment = createTestPayment();
+        payments.add(payment);
+        repository.add(payment).get(5, TimeUnit.SECONDS);
+      }
+    }
+
+    try (PaymentJournal journal = new PaymentJournal(directory, DataSize.ofMegabytes(1), Duration.ofMillis(1), 4)) {
+      PaymentsRepository restarted = new PaymentsRepositoryBuilder().journal(journal).maxEntries(2).build();
+
+      assertEquals(2, restarted.size());
+      for (int i = 0; i < 3; i++) {
+        assertTrue(restarted.getById(payments.get(i).getId()).isEmpty());
+      }
+      assertTrue(restarted.getById(payments.get(3).getId()).isPresent());
+      assertTrue(restarted.getById(payments.get(4).getId()).isPresent());
+    }
+  }
+
+  @Test
+  public void shouldEvictOldestPaymentsAfterRestoringParallelSnapshot(@TempDir Path directory) throws Exception {
+    List<Payment> payments = new ArrayList<>();
+    try (PaymentSnapshots snapshots = new PaymentSnapshots(Optional.empty(), directory, Duration.ofHours(1), 1, 4, true);
+        PaymentsRepository repository = new PaymentsRepositoryBuilder().snapshots(snapshots).build()) {
+      for (int i = 0; i < 5_000; i++) {
+        Payment payment = createTestPayment(1_000 + i, PaymentStatus.AUTHORIZED, Currency.USD);
+        payments.add(payment);
+        repository.add(payment);
+      }
+    }
+
+    try (PaymentSnapshots snapshots = new PaymentSnapshots(Optional.empty(), directory, Duration.ofHours(1), 1, 4, false);
+        PaymentsRepository restarted = new PaymentsRepositoryBuilder().maxEntries(100).snapshots(snapshots).build()) {
+      // The snapshot loads on several threads in no particular order, yet exactly the newest payments are kept
+      assertEquals(100, restarted.size());
+      List<Payment> newest = payments.subList(payments.size() - 100, payments.size());
+      assertEquals(newest.stream().map(Payment::getId).toList(),
+          restarted.query(new PaymentQuery(null, null, null, null, null)).map(Payment::getId).toList());
+
+      restarted.add(createTestPayment(10_000, PaymentStatus.AUTHORIZED, Currency.USD));
+      assertTrue(restarted.getById(newest.get(0).getId()).isEmpty());
+      assertTrue(restarted.getById(newest.get(1).getId()).isPresent());
+    }
+  }
+
+  @Test
+  public void shouldQueryByStatusCurrencyAndCreationTimeInCreationOrder() {
+    PaymentsRepository repository = new PaymentsRepositoryBuilder().build();
+    Payment early = createTestPayment(1_000, PaymentStatus.AUTHORIZED, Currency.EUR);
+    Payment declined = createTestPayment(2_000, PaymentStatus.DECLINED, Currency.EUR);
+    Payment otherCurrency = createTestPayment(3_000, PaymentStatus.AUTHORIZED, Currency.USD);
+    Payment late = createTestPayment(4_000, PaymentStatus.AUTHORIZED, Currency.EUR);
+    Payment tooLate = createTestPayment(5_000, PaymentStatus.AUTHORIZED, Currency.EUR);
+    for (Payment payment : List.of(tooLate, late, otherCurrency, declined, early)) {
+      repository.add(payment);
+    }
+
+    PaymentQuery query = new PaymentQuery(PaymentStatus.AUTHORIZED, Currency.EUR, Instant.ofEpochMilli(1_000),
+        Instant.ofEpochMilli(5_000), null);
+
+    assertEquals(List.of(early, late), repository.query(query).toList());
+  }
+
+  @Test
+  public void shouldResumeQueryAfterCursor() {
+    PaymentsRepository repository = new PaymentsRepositoryBuilder().build();
+    List<Payment> payments = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      Payment payment = createTestPayment(1_000 + i, PaymentStatus.AUTHORIZED, Currency.GBP);
+      payments.add(payment);
+      repository.add(payment);
+    }
+
+    PaymentQuery firstPage = new PaymentQuery(null, Currency.GBP, null, null, null);
+    List<Payment> first = repository.query(firstPage).limit(4).toList();
+    PaymentQuery secondPage = new PaymentQuery(null, Currency.GBP, null, null, first.get(3).getId());
+    List<Payment> second = repository.query(secondPage).toList();
+
+    assertEquals(payments.subList(0, 4), first);
+    assertEquals(payments.subList(4, 10), second);
+  }
+
+  @Test
+  public void shouldMovePaymentBetweenIndexesWhenStatusChanges() {
+    PaymentsRepository repository = new PaymentsRepositoryBuilder().build();
+    Payment payment = createTestPayment(1_000, PaymentStatus.AUTHORIZED, Currency.USD);
+    repository.add(payment);
+
+    Payment declined = createTestPayment(1_000, PaymentStatus.DECLINED, Currency.USD);
+    declined.setId(payment.getId());
+    repository.add(declined);
+
+    assertTrue(repository.query(new PaymentQuery(PaymentStatus.AUTHORIZED, null, null, null, null)).findAny().isEmpty());
+    assertEquals(List.of(declined), repository.query(new PaymentQuery(PaymentStatus.DECLINED, null, null, null, null)).toList());
+  }
+
+  @Test
+  public void shouldKeepPaymentQueryableWhileItIsStoredAgain() throws Exception {
+    PaymentsRepository repository = new PaymentsRepositoryBuilder().build();
+    Payment payment = createTestPayment(1_000, PaymentStatus.AUTHORIZED, Currency.USD);
+    repository.add(payment);
+    PaymentQuery authorized = new PaymentQuery(PaymentStatus.AUTHORIZED, null, null, null, null);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    try {
+      Future<?> writer = executor.submit(() -> {
+        for (int i = 0; i < 100_000; i++) {
+          Payment again = createTestPayment(1_000, PaymentStatus.AUTHORIZED, Currency.USD);
+          again.setId(payment.getId());
+          repository.add(again);
+        }
+      });
+      while (!writer.isDone()) {
+        assertEquals(1, repository.query(authorized).count(), "payment should stay in its status index while re-indexed");
+      }
+      writer.get();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void shouldDropEvictedPaymentsFromQueries() {
+    PaymentsRepository repository = new PaymentsRepositoryBuilder().maxEntries(1).build();
+    Payment evicted = createTestPayment(1_000, PaymentStatus.AUTHORIZED, Currency.USD);
+    Payment retained = createTestPayment(2_000, PaymentStatus.AUTHORIZED, Currency.USD);
+
+    repository.add(evicted);
+    repository.add(retained);
+
+    assertEquals(List.of(retained), repository.query(new PaymentQuery(null, null, null, null, null)).toList());
+  }
+
+  private Payment createTestPayment(long createdAt, PaymentStatus status, Currency currency) {
+    Payment payment = createTestPayment();
+    // Version 7 layout: creation time in the top 48 bits, then the version, the variant and random bits
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    payment.setId(new UUID((createdAt << 16) | 0x7000L | random.nextLong(0x1000L), 0x8000000000000000L | random.nextLong(1L << 62)));
+    payment.setStatus(status);
+    payment.setCurrency(currency);
+    return payment;
+  }
+
+  private Payment createTestPayment() {
+    Payment payment = new Payment();
+    payment.setId(IDS.nextId());
+    payment.setStatus(PaymentStatus.AUTHORIZED);
+    payment.setCardNumberLastFour(4321);
+    payment.setExpiryMonth(12);
+    payment.setExpiryYear(2030);
+    payment.setCurrency(Currency.USD);
+    payment.setAmount(100);
+    return payment;
+  }
+}
@@ -0,0 +1,176 @@
+package com.checkout.payment.gateway.repository.journal;
+
+import com.checkout.payment.gateway.enums.Currency;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.Payment;
+import com.checkout.payment.gateway.repository.PaymentRecordCodec;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PaymentJournalTest {
+
+  private static final int RECORDS_PER_SEGMENT = 10;
+
+  @TempDir
+  Path directory;
+
+  @Test
+  public void shouldRecoverAppendedPaymentsAcrossSegments() throws Exception {
+    List<Payment> written = new ArrayList<>();
+    try (PaymentJournal journal = openJournal()) {
+      assertEquals(0, journal.recover(payment -> fail("Journal should be empty")));
+      List<CompletableFuture<Void>> flushes = new ArrayList<>();
+      for (int i = 0; i < 25; i++) {
+        Payment payment = createTestPayment(i);
+        written.add(payment);
+        flushes.add(journal.append(payment));
+      }
+      CompletableFuture.allOf(flushes.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+    }
+
+    assertEquals(3, segmentFiles());
+    assertEquals(written, recover());
+  }
+
+  @Test
+  public void shouldLetLaterRecordsSupersedeEarlierOnes() throws Exception {
+    Payment payment = createTestPayment(1);
+    try (PaymentJournal journal = openJournal()) {
+      journal.recover(recovered -> { });
+      journal.append(payment);
+      payment.setStatus(PaymentStatus.DECLINED);
+      journal.append(payment).get(5, TimeUnit.SECONDS);
+    }
+
+    Map<UUID, Payment> recovered = new LinkedHashMap<>();
+    try (PaymentJournal journal = openJournal()) {
+      journal.recover(recoveredPayment -> recovered.put(recoveredPayment.getId(), recoveredPayment));
+    }
+    assertEquals(PaymentStatus.DECLINED, recovered.get(payment.getId()).getStatus());
+  }
+
+  @Test
+  public void shouldDropTornRecordAndResumeAppendingAtTail() throws Exception {
+    List<Payment> written = new ArrayList<>();
+    try (PaymentJournal journal = openJournal()) {
+      journal.recover(payment -> { });
+      for (int i = 0; i < 5; i++) {
+        Payment payment = createTestPayment(i);
+        written.add(payment);
+        journal.append(payment);
+      }
+    }
+
+    // Simulate a crash part-way through writing the last record
+    try (RandomAccessFile file = new RandomAccessFile(JournalSegment.fileName(directory, 0).toFile(), "rw")) {
+      file.seek(JournalSegment.HEADER_SIZE + 4L * PaymentRecordCodec.RECORD_SIZE + 16);
+      file.writeInt(0xDEADBEEF);
+    }
+    written.remove(4);
+
+    Payment appended = createTestPayment(99);
+    try (PaymentJournal journal = openJournal()) {
+      assertEquals(4, journal.recover(payment -> { }));
+      journal.append(appended).get(5, TimeUnit.SECONDS);
+    }
+    written.add(appended);
+
+    assertEquals(written, recover());
+  }
+
+  @Test
+  public void shouldKeepAppendingAfterNextSegmentFailedToCreate() throws Exception {
+    List<Payment> written = new ArrayList<>();
+    try (PaymentJournal journal = openJournal()) {
+      journal.recover(payment -> { });
+      for (int i = 0; i < RECORDS_PER_SEGMENT; i++) {
+        Payment payment = createTestPayment(i);
+        written.add(payment);
+        journal.append(payment);
+      }
+      // Something in the way of the next segment makes rolling over fail
+      Path blocker = Files.createDirectory(JournalSegment.fileName(directory, 1));
+      assertThrows(UncheckedIOException.class, () -> journal.append(createTestPayment(99)));
+      Files.delete(blocker);
+
+      Payment appended = createTestPayment(10);
+      written.add(appended);
+      journal.append(appended).get(5, TimeUnit.SECONDS);
+    }
+
+    assertEquals(written, recover());
+  }
+
+  @Test
+  public void shouldReplayOnlyRecordsAfterCheckpoint() throws Exception {
+    List<Payment> written = new ArrayList<>();
+    JournalPosition position;
+    try (PaymentJournal journal = openJournal()) {
+      journal.recover(payment -> { });
+      for (int i = 0; i < 23; i++) {
+        journal.append(createTestPayment(i));
+      }
+      position = journal.checkpoint().get(5, TimeUnit.SECONDS);
+      for (int i = 23; i < 30; i++) {
+        Payment payment = createTestPayment(i);
+        written.add(payment);
+        journal.append(payment).get(5, TimeUnit.SECONDS);
+      }
+      assertEquals(2, journal.deleteSegmentsBefore(position.segment()));
+    }
+
+    assertEquals(new JournalPosition(2, 3), position);
+    assertEquals(1, segmentFiles());
+    List<Payment> recovered = new ArrayList<>();
+    try (PaymentJournal journal = openJournal()) {
+      assertEquals(7, journal.recover(position, recovered::add));
+    }
+    assertEquals(written, recovered);
+  }
+
+  private PaymentJournal openJournal() {
+    return new PaymentJournal(directory,
+        DataSize.ofBytes(JournalSegment.fileSize(RECORDS_PER_SEGMENT)), Duration.ofMillis(1), 4);
+  }
+
+  private List<Payment> recover() throws Exception {
+    List<Payment> recovered = new ArrayList<>();
+    try (PaymentJournal journal = openJournal()) {
+      journal.recover(recovered::add);
+    }
+    return recovered;
+  }
+
+  private long segmentFiles() throws Exception {
+    try (var files = Files.list(directory)) {
+      return files.count();
+    }
+  }
+
+  private Payment createTestPayment(int amount) {
+    Payment payment = new Payment();
+    payment.setId(UUID.randomUUID());
+    payment.setStatus(PaymentStatus.AUTHORIZED);
+    payment.setCardNumberLastFour(4321);
+    payment.setExpiryMonth(12);
+    payment.setExpiryYear(2030);
+    payment.setCurrency(Currency.USD);
+    payment.setAmount(amount);
+    return payment;
+  }
+}
@@ -0,0 +1,207 @@
+package com.checkout.payment.gateway.repository.snapshot;
+
+import com.checkout.payment.gateway.enums.Currency;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.Payment;
+import com.checkout.payment.gateway.repository.PaymentRecordCodec;
+import com.checkout.payment.gateway.repository.journal.JournalPosition;
+import com.checkout.payment.gateway.repository.journal.PaymentJournal;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PaymentSnapshotsTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  public void shouldLoadSnapshotInParallel() throws Exception {
+    Map<UUID, Payment> payments = new ConcurrentHashMap<>();
+    for (int i = 0; i < 10_000; i++) {
+      Payment payment = createTestPayment(i);
+      payments.put(payment.getId(), payment);
+    }
+    try (PaymentSnapshots snapshots = openSnapshots(Optional.empty(), 4)) {
+      assertEquals(JournalPosition.START, snapshots.load(payment -> fail("No snapshot should exist yet")));
+      snapshots.start(() -> payments.values().stream());
+      assertEquals(10_000, snapshots.snapshot());
+    }
+
+    Map<UUID, Payment> loaded = new ConcurrentHashMap<>();
+    List<String> threads = new CopyOnWriteArrayList<>();
+    try (PaymentSnapshots snapshots = openSnapshots(Optional.empty(), 4)) {
+      snapshots.load(payment -> {
+        threads.add(Thread.currentThread().getName());
+        assertNull(loaded.put(payment.getId(), payment));
+      });
+    }
+
+    assertEquals(payments, loaded);
+    assertTrue(threads.stream().distinct().count() > 1, "Snapshot should be loaded on several threads");
+  }
+
+  @Test
+  public void shouldKeepOnlyLatestSnapshots() throws Exception {
+    List<Payment> payments = new CopyOnWriteArrayList<>();
+    try (PaymentSnapshots snapshots = openSnapshots(Optional.empty(), 2)) {
+      snapshots.load(payment -> { });
+      snapshots.start(payments::stream);
+      for (int i = 1; i <= 4; i++) {
+        payments.add(createTestPayment(i));
+        snapshots.snapshot();
+      }
+    }
+
+    assertEquals(List.of("0000000000000003.snapshot", "0000000000000004.snapshot"), snapshotFiles());
+    List<Payment> loaded = new ArrayList<>();
+    try (PaymentSnapshots snapshots = openSnapshots(Optional.empty(), 1)) {
+      snapshots.load(loaded::add);
+    }
+    assertEquals(payments, loaded);
+  }
+
+  @Test
+  public void shouldRestoreLatestStateFromSnapshotAndJournalTail() throws Exception {
+    Path journalDirectory = directory.resolve("journal");
+    Map<UUID, Payment> payments = new ConcurrentHashMap<>();
+    Payment updated = createTestPayment(1);
+    try (PaymentJournal journal = openJournal(journalDirectory);
+        PaymentSnapshots snapshots = openSnapshots(Optional.of(journal), 2)) {
+      journal.recover(snapshots.load(payment -> { }), payment -> { });
+      snapshots.start(() -> payments.values().stream());
+      for (int i = 0; i < 25; i++) {
+        store(journal, payments, i == 0 ? updated : createTestPayment(i));
+      }
+      snapshots.snapshot();
+      // Changed after the snapshot, so only the journal knows about these
+      updated.setStatus(PaymentStatus.DECLINED);
+      store(journal, payments, copyOf(updated));
+      store(journal, payments, createTestPayment(25));
+    }
+
+    Map<UUID, Payment> restored = new ConcurrentHashMap<>();
+    long replayed;
+    try (PaymentJournal journal = openJournal(journalDirectory);
+        PaymentSnapshots snapshots = openSnapshots(Optional.of(journal), 2)) {
+      // The snapshot taken on shutdown already holds everything, so only the records since then are replayed
+      replayed = journal.recover(snapshots.load(payment -> restored.put(payment.getId(), payment)),
+          payment -> restored.put(payment.getId(), payment));
+    }
+
+    assertEquals(0, replayed);
+    assertEquals(payments, restored);
+    assertEquals(PaymentStatus.DECLINED, restored.get(updated.getId()).getStatus());
+  }
+
+  @Test
+  public void shouldReplayJournalWrittenAfterLatestSnapshot() throws Exception {
+    Path journalDirectory = directory.resolve("journal");
+    Map<UUID, Payment> payments = new ConcurrentHashMap<>();
+    try (PaymentJournal journal = openJournal(journalDirectory);
+        PaymentSnapshots snapshots = new PaymentSnapshots(Optional.of(journal), directory.resolve("snapshots"),
+            Duration.ofHours(1), 1, 2, false)) {
+      journal.recover(snapshots.load(payment -> { }), payment -> { });
+      snapshots.start(() -> payments.values().stream());
+      for (int i = 0; i < 25; i++) {
+        store(journal, payments, createTestPayment(i));
+      }
+      snapshots.snapshot();
+      for (int i = 25; i < 28; i++) {
+        store(journal, payments, createTestPayment(i));
+      }
+    }
+
+    // Segments 0 and 1 are wholly covered by the snapshot
+    try (Stream<Path> segments = Files.list(journalDirectory)) {
+      assertEquals(1, segments.count());
+    }
+    Map<UUID, Payment> restored = new ConcurrentHashMap<>();
+    try (PaymentJournal journal = openJournal(journalDirectory);
+        PaymentSnapshots snapshots = new PaymentSnapshots(Optional.of(journal), directory.resolve("snapshots"),
+            Duration.ofHours(1), 1, 2, false)) {
+      assertEquals(3, journal.recover(snapshots.load(payment -> restored.put(payment.getId(), payment)),
+          payment -> restored.put(payment.getId(), payment)));
+    }
+    assertEquals(payments, restored);
+  }
+
+  @Test
+  public void shouldRejectCorruptSnapshot() throws Exception {
+    List<Payment> payments = List.of(createTestPayment(1), createTestPayment(2));
+    try (PaymentSnapshots snapshots = new PaymentSnapshots(Optional.empty(), directory.resolve("snapshots"), Duration.ofHours(1), 1,
+        1, false)) {
+      snapshots.load(payment -> { });
+      snapshots.start(payments::stream);
+      snapshots.snapshot();
+    }
+    try (RandomAccessFile file = new RandomAccessFile(directory.resolve("snapshots/0000000000000000.snapshot").toFile(), "rw")) {
+      file.seek(PaymentSnapshots.HEADER_SIZE + 16);
+      file.writeInt(0xDEADBEEF);
+    }
+
+    try (PaymentSnapshots snapshots = openSnapshots(Optional.empty(), 1)) {
+      assertThrows(UncheckedIOException.class, () -> snapshots.load(payment -> { }));
+    }
+  }
+
+  private void store(PaymentJournal journal, Map<UUID, Payment> payments, Payment payment) throws Exception {
+    payments.put(payment.getId(), payment);
+    journal.append(payment).get(5, TimeUnit.SECONDS);
+  }
+
+  private PaymentSnapshots openSnapshots(Optional<PaymentJournal> journal, int loadThreads) {
+    return new PaymentSnapshots(journal, directory.resolve("snapshots"), Duration.ofHours(1), 2, loadThreads, true);
+  }
+
+  private PaymentJournal openJournal(Path journalDirectory) {
+    // Ten records per segment after the 16-byte segment header
+    return new PaymentJournal(journalDirectory, DataSize.ofBytes(16 + 10L * PaymentRecordCodec.RECORD_SIZE), Duration.ofMillis(1), 4);
+  }
+
+  private List<String> snapshotFiles() throws Exception {
+    try (Stream<Path> files = Files.list(directory.resolve("snapshots"))) {
+      return files.map(file -> file.getFileName().toString()).sorted().toList();
+    }
+  }
+
+  private Payment copyOf(Payment payment) {
+    Payment copy = new Payment();
+    copy.setId(payment.getId());
+    copy.setStatus(payment.getStatus());
+    copy.setCardNumberLastFour(payment.getCardNumberLastFour());
+    copy.setExpiryMonth(payment.getExpiryMonth());
+    copy.setExpiryYear(payment.getExpiryYear());
+    copy.setCurrency(payment.getCurrency());
+    copy.setAmount(payment.getAmount());
+    return copy;
+  }
+
+  private Payment createTestPayment(int amount) {
+    Payment payment = new Payment();
+    payment.setId(UUID.randomUUID());
+    payment.setStatus(PaymentStatus.AUTHORIZED);
+    payment.setCardNumberLastFour(4321);
+    payment.setExpiryMonth(12);
+    payment.setExpiryYear(2030);
+    payment.setCurrency(Currency.USD);
+    payment.setAmount(amount);
+    return payment;
+  }
+}
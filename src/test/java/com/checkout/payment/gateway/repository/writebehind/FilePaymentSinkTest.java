@@ -0,0 +1,162 @@
+package com.checkout.payment.gateway.repository.writebehind;
+
+import static com.checkout.payment.gateway.repository.PaymentRecordCodec.RECORD_SIZE;
+
+import com.checkout.payment.gateway.enums.Currency;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.model.Payment;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FilePaymentSinkTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  public void shouldRecoverWrittenBatchesInOrder() throws IOException {
+    Path file = directory.resolve("payments.dat");
+    List<Payment> payments = new ArrayList<>();
+    try (FilePaymentSink sink = new FilePaymentSink(file, true)) {
+      for (int batch = 0; batch < 3; batch++) {
+        List<Payment> written = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+          written.add(createTestPayment(batch * 300 + i));
+        }
+        sink.write(written);
+        payments.addAll(written);
+      }
+    }
+
+    List<Payment> recovered = new ArrayList<>();
+    try (FilePaymentSink sink = new FilePaymentSink(file, true)) {
+      assertEquals(900, sink.recover(recovered::add));
+    }
+
+    assertEquals(payments, recovered);
+  }
+
+  @Test
+  public void shouldAppendAfterRecoveredPayments() throws IOException {
+    Path file = directory.resolve("payments.dat");
+    Payment first = createTestPayment(1);
+    Payment second = createTestPayment(2);
+    try (FilePaymentSink sink = new FilePaymentSink(file, false)) {
+      sink.write(List.of(first));
+    }
+    try (FilePaymentSink sink = new FilePaymentSink(file, false)) {
+      sink.recover(payment -> { });
+      sink.write(List.of(second));
+    }
+
+    List<Payment> recovered = new ArrayList<>();
+    try (FilePaymentSink sink = new FilePaymentSink(file, false)) {
+      sink.recover(recovered::add);
+    }
+
+    assertEquals(List.of(first, second), recovered);
+  }
+
+  @Test
+  public void shouldDiscardTornRecordAtTail() throws IOException {
+    Path file = directory.resolve("payments.dat");
+    Payment payment = createTestPayment(1);
+    try (FilePaymentSink sink = new FilePaymentSink(file, true)) {
+      sink.write(List.of(payment));
+    }
+    Files.write(file, new byte[RECORD_SIZE / 2], StandardOpenOption.APPEND);
+
+    List<Payment> recovered = new ArrayList<>();
+    try (FilePaymentSink sink = new FilePaymentSink(file, true)) {
+      assertEquals(1, sink.recover(recovered::add));
+    }
+
+    assertEquals(List.of(payment), recovered);
+    assertEquals(RECORD_SIZE, Files.size(file));
+  }
+
+  @Test
+  public void shouldStopRecoveringAtCorruptRecord() throws IOException {
+    Path file = directory.resolve("payments.dat");
+    Payment payment = createTestPayment(1);
+    try (FilePaymentSink sink = new FilePaymentSink(file, true)) {
+      sink.write(List.of(payment, createTestPayment(2)));
+    }
+    byte[] contents = Files.readAllBytes(file);
+    contents[RECORD_SIZE + 16] ^= 0x7f;
+    Files.write(file, contents);
+
+    List<Payment> recovered = new ArrayList<>();
+    try (FilePaymentSink sink = new FilePaymentSink(file, true)) {
+      assertEquals(1, sink.recover(recovered::add));
+    }
+
+    assertEquals(List.of(payment), recovered);
+    assertEquals(RECORD_SIZE, Files.size(file));
+  }
+
+  @Test
+  public void shouldRefuseToRecoverPastCorruptRecordInTheMiddle() throws IOException {
+    Path file = directory.resolve("payments.dat");
+    List<Payment> payments = List.of(createTestPayment(1), createTestPayment(2), createTestPayment(3));
+    try (FilePaymentSink sink = new FilePaymentSink(file, true)) {
+      sink.write(payments);
+    }
+    byte[] contents = Files.readAllBytes(file);
+    contents[RECORD_SIZE + 16] ^= 0x7f;
+    Files.write(file, contents);
+
+    try (FilePaymentSink sink = new FilePaymentSink(file, true)) {
+      IOException e = assertThrows(IOException.class, () -> sink.recover(payment -> { }));
+      assertTrue(e.getMessage().contains("offset " + RECORD_SIZE), e.getMessage());
+    }
+
+    assertEquals(3L * RECORD_SIZE, Files.size(file));
+    contents[RECORD_SIZE + 16] ^= 0x7f;
+    Files.write(file, contents);
+    List<Payment> recovered = new ArrayList<>();
+    try (FilePaymentSink sink = new FilePaymentSink(file, true)) {
+      assertEquals(3, sink.recover(recovered::add));
+    }
+    assertEquals(payments, recovered);
+  }
+
+  @Test
+  public void shouldDiscardSeveralTornRecordsAtTail() throws IOException {
+    Path file = directory.resolve("payments.dat");
+    Payment payment = createTestPayment(1);
+    try (FilePaymentSink sink = new FilePaymentSink(file, true)) {
+      sink.write(List.of(payment));
+    }
+    Files.write(file, new byte[RECORD_SIZE * 3 + RECORD_SIZE / 2], StandardOpenOption.APPEND);
+
+    List<Payment> recovered = new ArrayList<>();
+    try (FilePaymentSink sink = new FilePaymentSink(file, true)) {
+      assertEquals(1, sink.recover(recovered::add));
+    }
+
+    assertEquals(List.of(payment), recovered);
+    assertEquals(RECORD_SIZE, Files.size(file));
+  }
+
+  private Payment createTestPayment(int amount) {
+    Payment payment = new Payment();
+    payment.setId(UUID.randomUUID());
+    payment.setStatus(PaymentStatus.AUTHORIZED);
+    payment.setCardNumberLastFour(4321);
+    payment.setExpiryMonth(12);
+    payment.setExpiryYear(2030);
+    payment.setCurrency(Currency.USD);
+    payment.setAmount(amount);
+    return payment;
+  }
+}
@@ -0,0 +1,244 @@
+package com.checkout.payment.gateway.repository.writebehind;
+
+import com.checkout.payment.gateway.enums.Currency;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.exception.PaymentStorageOverloadedException;
+import com.checkout.payment.gateway.model.Payment;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PaymentWriteBehindTest {
+
+  @Test
+  public void shouldDeliverEveryOfferedPaymentOnceFromConcurrentProducers() throws Exception {
+    WriteBehindRingBuffer ring = new WriteBehindRingBuffer(64);
+    int producers = 4;
+    int perProducer = 10_000;
+    ExecutorService executor = Executors.newFixedThreadPool(producers);
+    List<Payment> drained = new ArrayList<>();
+    try {
+      List<CompletableFuture<Void>> offering = new ArrayList<>();
+      for (int p = 0; p < producers; p++) {
+        offering.add(CompletableFuture.runAsync(() -> {
+          for (int i = 0; i < perProducer; i++) {
+            Payment payment = createTestPayment(i);
+            while (!ring.offer(payment)) {
+              Thread.onSpinWait();
+            }
+          }
+        }, executor));
+      }
+      CompletableFuture<Void> all = CompletableFuture.allOf(offering.toArray(CompletableFuture[]::new));
+      while (!all.isDone() || ring.size() > 0) {
+        ring.drainTo(drained, 16);
+      }
+      all.get(5, TimeUnit.SECONDS);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(producers * perProducer, drained.size());
+    Set<UUID> ids = new HashSet<>();
+    drained.forEach(payment -> ids.add(payment.getId()));
+    assertEquals(producers * perProducer, ids.size());
+  }
+
+  @Test
+  public void shouldRejectOfferWhenRingIsFull() {
+    WriteBehindRingBuffer ring = new WriteBehindRingBuffer(2);
+
+    assertTrue(ring.offer(createTestPayment(1)));
+    assertTrue(ring.offer(createTestPayment(2)));
+    assertFalse(ring.offer(createTestPayment(3)));
+
+    List<Payment> drained = new ArrayList<>();
+    assertEquals(1, ring.drainTo(drained, 1));
+    assertTrue(ring.offer(createTestPayment(3)));
+    assertEquals(2, ring.drainTo(drained, 10));
+    assertEquals(List.of(1, 2, 3), drained.stream().map(Payment::getAmount).toList());
+  }
+
+  @Test
+  public void shouldWriteInBatchesOfAtMostFlushSize() throws Exception {
+    RecordingSink sink = new RecordingSink();
+    List<Payment> offered = new ArrayList<>();
+    try (PaymentWriteBehind writeBehind = new PaymentWriteBehind(sink, 1024, 8, Duration.ofMillis(5), 1024, Duration.ofSeconds(5))) {
+      for (int i = 0; i < 100; i++) {
+        Payment payment = createTestPayment(i);
+        offered.add(payment);
+        assertTrue(writeBehind.offer(payment).isDone());
+      }
+      awaitWritten(sink, 100);
+    }
+
+    assertEquals(offered, sink.written());
+    assertTrue(sink.batchSizes.stream().allMatch(size -> size >= 1 && size <= 8), sink.batchSizes.toString());
+  }
+
+  @Test
+  public void shouldFlushPartialBatchAfterInterval() throws Exception {
+    RecordingSink sink = new RecordingSink();
+    try (PaymentWriteBehind writeBehind = new PaymentWriteBehind(sink, 1024, 512, Duration.ofMillis(20), 1024, Duration.ofSeconds(5))) {
+      writeBehind.offer(createTestPayment(1));
+
+      awaitWritten(sink, 1);
+    }
+  }
+
+  @Test
+  public void shouldHoldBackOffersUntilFullBufferHasRoom() throws Exception {
+    RecordingSink sink = new RecordingSink();
+    sink.blocked = new CountDownLatch(1);
+    try (PaymentWriteBehind writeBehind = new PaymentWriteBehind(sink, 2, 2, Duration.ofMillis(1), 1024, Duration.ofSeconds(5))) {
+      // The writer blocks in the sink on the first batch, so the ring fills up and later offers have to wait
+      writeBehind.offer(createTestPayment(0));
+      assertTrue(sink.entered.await(5, TimeUnit.SECONDS));
+      List<CompletableFuture<Void>> offers = new ArrayList<>();
+      for (int i = 1; i <= 4; i++) {
+        offers.add(writeBehind.offer(createTestPayment(i)));
+      }
+      CompletableFuture<Void> waiting = offers.get(offers.size() - 1);
+      assertFalse(waiting.isDone());
+      assertTrue(writeBehind.getQueueDepth() > 2);
+
+      sink.blocked.countDown();
+
+      CompletableFuture.allOf(offers.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+      awaitWritten(sink, 5);
+    }
+
+    assertEquals(List.of(0, 1, 2, 3, 4), sink.written().stream().map(Payment::getAmount).toList());
+  }
+
+  @Test
+  public void shouldRefuseOffersOnceTooManyAreWaitingForRoom() throws Exception {
+    RecordingSink sink = new RecordingSink();
+    sink.blocked = new CountDownLatch(1);
+    try (PaymentWriteBehind writeBehind = new PaymentWriteBehind(sink, 2, 2, Duration.ofMillis(1), 2, Duration.ofSeconds(5))) {
+      // The writer blocks in the sink on the first payment; the next two fill the ring and two more wait for room
+      writeBehind.offer(createTestPayment(0));
+      assertTrue(sink.entered.await(5, TimeUnit.SECONDS));
+      List<CompletableFuture<Void>> offers = new ArrayList<>();
+      for (int i = 1; i <= 4; i++) {
+        offers.add(writeBehind.offer(createTestPayment(i)));
+      }
+
+      assertThrows(PaymentStorageOverloadedException.class, () -> writeBehind.offer(createTestPayment(5)));
+      assertEquals(4, writeBehind.getQueueDepth());
+
+      sink.blocked.countDown();
+      CompletableFuture.allOf(offers.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+      awaitWritten(sink, 5);
+      assertEquals(0, writeBehind.getQueueDepth());
+    }
+
+    assertEquals(List.of(0, 1, 2, 3, 4), sink.written().stream().map(Payment::getAmount).toList());
+  }
+
+  @Test
+  public void shouldWriteEverythingAcceptedBeforeClosing() throws Exception {
+    RecordingSink sink = new RecordingSink();
+    PaymentWriteBehind writeBehind = new PaymentWriteBehind(sink, 64, 16, Duration.ofSeconds(10), 1024, Duration.ofSeconds(5));
+    for (int i = 0; i < 200; i++) {
+      writeBehind.offer(createTestPayment(i));
+    }
+
+    writeBehind.close();
+
+    assertEquals(200, sink.written().size());
+    assertTrue(sink.closed);
+    assertThrows(IllegalStateException.class, () -> writeBehind.offer(createTestPayment(1)));
+  }
+
+  @Test
+  public void shouldRetryFailedBatchWithoutSkippingPayments() throws Exception {
+    RecordingSink sink = new RecordingSink();
+    sink.failures = 3;
+    try (PaymentWriteBehind writeBehind = new PaymentWriteBehind(sink, 64, 4, Duration.ofMillis(1), 1024, Duration.ofSeconds(5))) {
+      for (int i = 0; i < 10; i++) {
+        writeBehind.offer(createTestPayment(i));
+      }
+      awaitWritten(sink, 10);
+    }
+
+    assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), sink.written().stream().map(Payment::getAmount).toList());
+  }
+
+  private void awaitWritten(RecordingSink sink, int count) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (sink.written().size() < count) {
+      assertTrue(System.nanoTime() < deadline, "Timed out with " + sink.written().size() + " of " + count + " written");
+      Thread.sleep(1);
+    }
+  }
+
+  private Payment createTestPayment(int amount) {
+    Payment payment = new Payment();
+    payment.setId(UUID.randomUUID());
+    payment.setStatus(PaymentStatus.AUTHORIZED);
+    payment.setCardNumberLastFour(4321);
+    payment.setExpiryMonth(12);
+    payment.setExpiryYear(2030);
+    payment.setCurrency(Currency.USD);
+    payment.setAmount(amount);
+    return payment;
+  }
+
+  private static class RecordingSink implements PaymentSink {
+
+    private final List<Payment> written = new CopyOnWriteArrayList<>();
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    private final CountDownLatch entered = new CountDownLatch(1);
+    private volatile CountDownLatch blocked;
+    private volatile int failures;
+    private volatile boolean closed;
+
+    @Override
+    public long recover(Consumer<Payment> consumer) {
+      return 0;
+    }
+
+    @Override
+    public void write(List<Payment> batch) throws IOException {
+      entered.countDown();
+      if (blocked != null) {
+        try {
+          blocked.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IOException(e);
+        }
+      }
+      if (failures > 0) {
+        failures--;
+        throw new IOException("Sink unavailable");
+      }
+      batchSizes.add(batch.size());
+      written.addAll(batch);
+    }
+
+    List<Payment> written() {
+      return written;
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+}
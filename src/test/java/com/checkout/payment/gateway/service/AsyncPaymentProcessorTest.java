@@ -0,0 +1,77 @@
+package com.checkout.payment.gateway.service;
+
+import com.checkout.payment.gateway.enums.Currency;
+import com.checkout.payment.gateway.enums.PaymentStatus;
+import com.checkout.payment.gateway.exception.PaymentQueueFullException;
+import com.checkout.payment.gateway.model.CreditCard;
+import com.checkout.payment.gateway.model.Payment;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AsyncPaymentProcessorTest {
+
+  @Test
+  public void shouldAuthorizePaymentSubmittedBeforeShutdownButStoredAfter() throws Exception {
+    PaymentGatewayService service = mock(PaymentGatewayService.class);
+    Payment payment = createTestPayment();
+    Payment late = createTestPayment();
+    CreditCard creditCard = new CreditCard("2222405343248877", "123");
+    Sinks.One<Payment> stored = Sinks.one();
+    when(service.acceptPayment(payment)).thenReturn(stored.asMono());
+    when(service.acceptPayment(late)).thenReturn(Mono.just(late));
+    when(service.completePayment(any(Payment.class), any(CreditCard.class))).thenReturn(Mono.just(payment));
+    AsyncPaymentProcessor processor = new AsyncPaymentProcessor(service, 1_000, 1, Duration.ofSeconds(5));
+
+    CompletableFuture<Payment> submitted = processor.submit(payment, creditCard).toFuture();
+    Thread closing = Thread.ofPlatform().start(() -> {
+      try {
+        processor.close();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    // The queue is far from full, so the first refused submission means the processor is closed. The first payment is still
+    // being stored as pending at that point, and only reaches the queue afterwards
+    boolean refused = false;
+    while (!refused) {
+      try {
+        processor.submit(late, creditCard).block();
+      } catch (PaymentQueueFullException e) {
+        refused = true;
+      }
+    }
+    // Longer than a worker's poll interval, so a worker that did not wait for the first payment would have stopped by now
+    closing.join(Duration.ofMillis(500));
+    assertTrue(closing.isAlive(), "shutdown should wait for the payment still being stored");
+    stored.tryEmitValue(payment);
+
+    assertSame(payment, submitted.get(5, TimeUnit.SECONDS));
+    assertTrue(closing.join(Duration.ofSeconds(5)));
+    verify(service, timeout(5_000)).completePayment(payment, creditCard);
+    assertEquals(0, processor.getQueueDepth());
+  }
+
+  private Payment createTestPayment() {
+    Payment payment = new Payment();
+    payment.setId(UUID.randomUUID());
+    payment.setStatus(PaymentStatus.PENDING);
+    payment.setCardNumberLastFour(4321);
+    payment.setExpiryMonth(12);
+    payment.setExpiryYear(2030);
+    payment.setCurrency(Currency.USD);
+    payment.setAmount(100);
+    return payment;
+  }
+}
@@ -0,0 +1,114 @@
+package com.checkout.payment.gateway.validation;
+
+import com.checkout.payment.gateway.dto.PostPaymentRequestDTO;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PaymentRequestValidatorTest {
+
+  private static final String[] CARD_NUMBERS = {null, "", "   ", "1234", "2222405343248877", "22224053432488771234", "2222 4053 4324 88",
+      "22224053432488a7", "12345678901234", "1234567890123456789"};
+  private static final String[] CVVS = {null, "", " ", "12", "123", "1234", "12345", "12a", "\u0661\u0662\u0663"};
+  private static final int[] EXPIRY_MONTHS = {-1, 0, 1, 6, 12, 13};
+  private static final int[] EXPIRY_YEARS = {Integer.MIN_VALUE, 0, 2023, 2024, YearMonth.now().getYear(), YearMonth.now().getYear() + 1,
+      Integer.MAX_VALUE};
+  private static final String[] CURRENCIES = {null, "", " ", "USD", "EUR", "GBP", "usd", "EGP", "USDX"};
+  private static final int[] AMOUNTS = {Integer.MIN_VALUE, -1, 0, 1, Integer.MAX_VALUE};
+
+  private static ValidatorFactory validatorFactory;
+
+  private static Validator annotationValidator;
+
+  private static PaymentRequestValidator validator;
+
+  @BeforeAll
+  static void createValidators() {
+    validatorFactory = Validation.buildDefaultValidatorFactory();
+    annotationValidator = validatorFactory.getValidator();
+    validator = new PaymentRequestValidator(Duration.ofSeconds(1));
+  }
+
+  @AfterAll
+  static void closeValidators() {
+    validatorFactory.close();
+    validator.close();
+  }
+
+  @Test
+  public void shouldReportSameMessagesAsAnnotationsForEveryCombination() {
+    int checked = 0;
+    for (String cardNumber : CARD_NUMBERS) {
+      for (String cvv : CVVS) {
+        for (String currency : CURRENCIES) {
+          PostPaymentRequestDTO request = createRequest(cardNumber, cvv, 6, YearMonth.now().getYear() + 1, currency, 1);
+          assertSameMessages(request);
+          checked++;
+        }
+      }
+    }
+    for (int expiryMonth : EXPIRY_MONTHS) {
+      for (int expiryYear : EXPIRY_YEARS) {
+        for (int amount : AMOUNTS) {
+          PostPaymentRequestDTO request = createRequest("2222405343248877", "123", expiryMonth, expiryYear, "USD", amount);
+          assertSameMessages(request);
+          checked++;
+        }
+      }
+    }
+    assertTrue(checked > 1000);
+  }
+
+  @Test
+  public void shouldReturnNoErrorsForValidRequest() {
+    PostPaymentRequestDTO request = createRequest("2222405343248877", "123", 12, YearMonth.now().getYear() + 1, "GBP", 100);
+
+    assertEquals(0, validator.validate(request).length);
+  }
+
+  @Test
+  public void shouldTreatCurrentMonthAsExpired() {
+    Clock clock = Clock.fixed(LocalDate.of(2030, 5, 15).atStartOfDay(ZoneOffset.UTC).toInstant(), ZoneId.of("UTC"));
+    try (PaymentRequestValidator fixedValidator = new PaymentRequestValidator(clock, Duration.ofHours(1))) {
+      assertArrayEquals(new String[]{PaymentRequestValidator.EXPIRY_DATE_FUTURE},
+          fixedValidator.validate(createRequest("2222405343248877", "123", 5, 2030, "GBP", 100)));
+      assertEquals(0, fixedValidator.validate(createRequest("2222405343248877", "123", 6, 2030, "GBP", 100)).length);
+    }
+  }
+
+  private void assertSameMessages(PostPaymentRequestDTO request) {
+    Set<String> expected = annotationValidator.validate(request).stream()
+        .map(ConstraintViolation::getMessage)
+        .collect(Collectors.toSet());
+    String[] actual = validator.validate(request);
+
+    assertEquals(expected, Set.of(actual), () -> "for " + request);
+    assertEquals(expected.size(), actual.length, () -> "duplicate messages for " + request);
+  }
+
+  private static PostPaymentRequestDTO createRequest(String cardNumber, String cvv, int expiryMonth, int expiryYear, String currency,
+      int amount) {
+    PostPaymentRequestDTO request = new PostPaymentRequestDTO();
+    request.setCardNumber(cardNumber);
+    request.setCvv(cvv);
+    request.setExpiryMonth(expiryMonth);
+    request.setExpiryYear(expiryYear);
+    request.setCurrency(currency);
+    request.setAmount(amount);
+    return request;
+  }
+}